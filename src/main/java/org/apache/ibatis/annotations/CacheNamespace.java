@@ -23,6 +23,7 @@ import java.lang.annotation.Target;
 
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.serializer.JavaCacheSerializer;
 
 /**
  * @author Clinton Begin
@@ -42,6 +43,12 @@ public @interface CacheNamespace {
 
   boolean readWrite() default true;
 
+  /**
+   * The serializer that copies the values of a read-write cache.
+   * @since 3.5.2
+   */
+  Class<? extends org.apache.ibatis.cache.CacheSerializer> serializer() default JavaCacheSerializer.class;
+
   boolean blocking() default false;
 
   /**
@@ -0,0 +1,41 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+/**
+ * Copies the values of a read-write cache, so that callers never share the cached instances.
+ * <p>
+ * The value returned by {@link #serialize(Object)} is what the cache stores; {@link #deserialize(Object)}
+ * turns it into a new copy on every read. Implementations must be thread safe and have a default constructor.
+ *
+ * @since 3.5.2
+ * @see org.apache.ibatis.cache.decorators.SerializedCache
+ */
+public interface CacheSerializer {
+
+  /**
+   * @param value The value to cache, never null
+   * @return The form of the value to store in the cache
+   */
+  Object serialize(Object value);
+
+  /**
+   * @param stored A value returned by {@link #serialize(Object)}
+   * @return A new copy of the cached value
+   */
+  Object deserialize(Object stored);
+
+}
@@ -16,10 +16,9 @@
 package org.apache.ibatis.cache.decorators;
 
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
@@ -31,6 +30,9 @@ import org.apache.ibatis.cache.CacheException;
  * It sets a lock over a cache key when the element is not found in cache.
  * This way, other threads will wait until this element is filled instead of hitting the database.
  *
+ * The lock of a key only exists while its value is being loaded, so the decorator does not hold
+ * any memory for keys that are not in flight.
+ *
  * @author Eduardo Macarron
  *
  */
@@ -38,7 +40,7 @@ public class BlockingCache implements Cache {
 
   private long timeout;
   private final Cache delegate;
-  private final ConcurrentHashMap<Object, ReentrantLock> locks;
+  private final ConcurrentHashMap<Object, LoadLatch> locks;
 
   public BlockingCache(Cache delegate) {
     this.delegate = delegate;
@@ -91,33 +93,47 @@ public class BlockingCache implements Cache {
     return null;
   }
 
-  private ReentrantLock getLockForKey(Object key) {
-    return locks.computeIfAbsent(key, k -> new ReentrantLock());
-  }
-
   private void acquireLock(Object key) {
-    Lock lock = getLockForKey(key);
-    if (timeout > 0) {
+    LoadLatch newLatch = new LoadLatch(Thread.currentThread());
+    while (true) {
+      LoadLatch latch = locks.putIfAbsent(key, newLatch);
+      if (latch == null || latch.owner == Thread.currentThread()) {
+        return;
+      }
+      // another thread is loading the value, wait for it and check the cache again
       try {
-        boolean acquired = lock.tryLock(timeout, TimeUnit.MILLISECONDS);
-        if (!acquired) {
-          throw new CacheException("Couldn't get a lock in " + timeout + " for the key " +  key + " at the cache " + delegate.getId());
+        if (timeout > 0) {
+          boolean acquired = latch.await(timeout, TimeUnit.MILLISECONDS);
+          if (!acquired) {
+            throw new CacheException("Couldn't get a lock in " + timeout + " for the key " +  key + " at the cache " + delegate.getId());
+          }
+        } else {
+          latch.await();
         }
       } catch (InterruptedException e) {
         throw new CacheException("Got interrupted while trying to acquire lock for key " + key, e);
       }
-    } else {
-      lock.lock();
     }
   }
 
   private void releaseLock(Object key) {
-    ReentrantLock lock = locks.get(key);
-    if (lock.isHeldByCurrentThread()) {
-      lock.unlock();
+    LoadLatch latch = locks.get(key);
+    if (latch != null && latch.owner == Thread.currentThread()) {
+      locks.remove(key, latch);
+      latch.countDown();
     }
   }
 
+  /**
+   * Returns the number of keys whose value is being loaded.
+   *
+   * @return the number of locked keys
+   * @since 3.5.2
+   */
+  public int getLockCount() {
+    return locks.size();
+  }
+
   public long getTimeout() {
     return timeout;
   }
@@ -125,4 +141,14 @@ public class BlockingCache implements Cache {
   public void setTimeout(long timeout) {
     this.timeout = timeout;
   }
+
+  private static final class LoadLatch extends CountDownLatch {
+    private final Thread owner;
+
+    LoadLatch(Thread owner) {
+      super(1);
+      this.owner = owner;
+    }
+  }
+
 }
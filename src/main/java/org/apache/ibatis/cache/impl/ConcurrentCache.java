@@ -0,0 +1,319 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+
+/**
+ * A thread safe, bounded cache that does not need the {@link org.apache.ibatis.cache.decorators.SynchronizedCache}
+ * decorator. It can be selected with {@code <cache type="CONCURRENT"/>} or
+ * {@code @CacheNamespace(implementation = ConcurrentCache.class)}.
+ * <p>
+ * Reads never lock. When the total weight exceeds the maximum, a few of the oldest entries are sampled and the
+ * least frequently used one is evicted. A new entry is only admitted when it was requested more often than that
+ * victim (TinyLFU), so that a scan of one-off queries does not flush the popular results. Frequencies are
+ * estimated with a {@link FrequencySketch}.
+ * <p>
+ * Supported properties: {@code size} (the maximum weight, 1024 by default), {@code weighCollections}
+ * (when true a collection weighs one per element instead of one per entry), {@code expireAfterWrite} and
+ * {@code expireAfterAccess} (in milliseconds).
+ *
+ * @since 3.5.2
+ */
+public class ConcurrentCache implements Cache {
+
+  private static final int SAMPLE_SIZE = 5;
+
+  private final String id;
+  private final Map<Object, Entry> cache = new ConcurrentHashMap<>();
+  // insertion order of the entries, removed entries are skipped lazily
+  private final Queue<Entry> evictionQueue = new ConcurrentLinkedQueue<>();
+  private final AtomicLong weight = new AtomicLong();
+  private final AtomicInteger removedCount = new AtomicInteger();
+  private final ReentrantLock evictionLock = new ReentrantLock();
+  private volatile FrequencySketch sketch;
+  private volatile long maximumWeight;
+  private volatile boolean weighCollections;
+  private volatile long expireAfterWriteNanos;
+  private volatile long expireAfterAccessNanos;
+
+  public ConcurrentCache(String id) {
+    this.id = id;
+    setSize(1024);
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  @Override
+  public int getSize() {
+    return cache.size();
+  }
+
+  /**
+   * Sets the maximum total weight of the cached entries.
+   *
+   * @param size the maximum weight
+   */
+  public void setSize(int size) {
+    this.maximumWeight = size;
+    this.sketch = new FrequencySketch(size);
+  }
+
+  public void setWeighCollections(boolean weighCollections) {
+    this.weighCollections = weighCollections;
+  }
+
+  public void setExpireAfterWrite(long milliseconds) {
+    this.expireAfterWriteNanos = TimeUnit.MILLISECONDS.toNanos(milliseconds);
+  }
+
+  public void setExpireAfterAccess(long milliseconds) {
+    this.expireAfterAccessNanos = TimeUnit.MILLISECONDS.toNanos(milliseconds);
+  }
+
+  /**
+   * @return the current total weight of the cached entries
+   */
+  public long getWeight() {
+    return weight.get();
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    Entry entry = new Entry(key, value, weigh(value), now());
+    Entry previous = cache.put(key, entry);
+    if (previous != null) {
+      discard(previous);
+    }
+    weight.addAndGet(entry.weight);
+    evictionQueue.add(entry);
+    sketch.increment(key);
+    if (weight.get() > maximumWeight) {
+      evict(entry);
+    } else if (removedCount.get() > Math.max(cache.size(), 64) && evictionLock.tryLock()) {
+      // replaced and removed entries are only skipped by eviction, purge them when they pile up
+      try {
+        removedCount.set(0);
+        evictionQueue.removeIf(queued -> queued.removed);
+      } finally {
+        evictionLock.unlock();
+      }
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    sketch.increment(key);
+    Entry entry = cache.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (expireAfterWriteNanos > 0 || expireAfterAccessNanos > 0) {
+      long now = now();
+      if (isExpired(entry, now)) {
+        remove(entry);
+        return null;
+      }
+      entry.accessTime = now;
+    }
+    return entry.value;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    Entry entry = cache.remove(key);
+    if (entry == null) {
+      return null;
+    }
+    discard(entry);
+    return entry.value;
+  }
+
+  @Override
+  public void clear() {
+    evictionLock.lock();
+    try {
+      for (Entry entry : cache.values()) {
+        remove(entry);
+      }
+      evictionQueue.clear();
+      removedCount.set(0);
+      sketch.clear();
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public ReadWriteLock getReadWriteLock() {
+    return null;
+  }
+
+  private void evict(Entry candidate) {
+    evictionLock.lock();
+    try {
+      boolean admissionChecked = false;
+      while (weight.get() > maximumWeight) {
+        Entry victim = selectVictim(candidate);
+        if (victim == null) {
+          // only the candidate itself is left
+          if (!candidate.removed && weight.get() > maximumWeight) {
+            remove(candidate);
+          }
+          return;
+        }
+        if (!admissionChecked && !candidate.removed) {
+          admissionChecked = true;
+          if (sketch.frequency(candidate.key) < sketch.frequency(victim.key)) {
+            // the victim is more popular than the new entry, keep it
+            evictionQueue.add(victim);
+            remove(candidate);
+            continue;
+          }
+        }
+        remove(victim);
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  /**
+   * Samples the oldest live entries, other than the candidate, and returns the least frequently used one.
+   * The other sampled entries are requeued, expired ones are removed right away.
+   */
+  private Entry selectVictim(Entry candidate) {
+    Entry victim = null;
+    int victimFrequency = Integer.MAX_VALUE;
+    long now = now();
+    Entry[] sampled = new Entry[SAMPLE_SIZE];
+    int count = 0;
+    Entry entry;
+    while (count < SAMPLE_SIZE && (entry = evictionQueue.poll()) != null) {
+      if (entry.removed) {
+        continue;
+      }
+      if (entry == candidate) {
+        sampled[count++] = entry;
+        continue;
+      }
+      if (isExpired(entry, now)) {
+        remove(entry);
+        if (weight.get() <= maximumWeight) {
+          break;
+        }
+        continue;
+      }
+      sampled[count++] = entry;
+      int frequency = sketch.frequency(entry.key);
+      if (frequency < victimFrequency) {
+        victim = entry;
+        victimFrequency = frequency;
+      }
+    }
+    for (int i = 0; i < count; i++) {
+      if (sampled[i] != victim) {
+        evictionQueue.add(sampled[i]);
+      }
+    }
+    return victim;
+  }
+
+  private void remove(Entry entry) {
+    if (cache.remove(entry.key, entry)) {
+      discard(entry);
+    }
+  }
+
+  private void discard(Entry entry) {
+    entry.removed = true;
+    removedCount.incrementAndGet();
+    weight.addAndGet(-entry.weight);
+  }
+
+  private boolean isExpired(Entry entry, long now) {
+    return (expireAfterWriteNanos > 0 && now - entry.writeTime >= expireAfterWriteNanos)
+        || (expireAfterAccessNanos > 0 && now - entry.accessTime >= expireAfterAccessNanos);
+  }
+
+  private int weigh(Object value) {
+    if (weighCollections && value instanceof Collection) {
+      return Math.max(1, ((Collection<?>) value).size());
+    }
+    return 1;
+  }
+
+  private long now() {
+    return expireAfterWriteNanos > 0 || expireAfterAccessNanos > 0 ? System.nanoTime() : 0L;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Cache)) {
+      return false;
+    }
+
+    Cache otherCache = (Cache) o;
+    return getId().equals(otherCache.getId());
+  }
+
+  @Override
+  public int hashCode() {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    return getId().hashCode();
+  }
+
+  private static final class Entry {
+    final Object key;
+    final Object value;
+    final int weight;
+    final long writeTime;
+    volatile long accessTime;
+    volatile boolean removed;
+
+    Entry(Object key, Object value, int weight, long now) {
+      this.key = key;
+      this.value = value;
+      this.weight = weight;
+      this.writeTime = now;
+      this.accessTime = now;
+    }
+  }
+
+}
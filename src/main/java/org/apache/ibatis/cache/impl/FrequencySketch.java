@@ -0,0 +1,95 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+/**
+ * A count-min sketch estimating how often keys were accessed, used as the TinyLFU admission filter of
+ * {@link ConcurrentCache}.
+ * <p>
+ * Counters saturate at 15 and are halved once the number of recorded accesses reaches ten times the
+ * capacity, so that the estimate follows recent popularity. Updates are deliberately unsynchronized:
+ * a lost increment only makes an estimate slightly lower.
+ *
+ * @since 3.5.2
+ */
+class FrequencySketch {
+
+  private static final int DEPTH = 4;
+  private static final int MAX_COUNT = 15;
+  private static final int[] SEEDS = { 0x97cb3127, 0x0ba5a9e7, 0x3c6ef372, 0x5f356495 };
+
+  private final int[] table;
+  private final int mask;
+  private final int sampleSize;
+  private int additions;
+
+  FrequencySketch(long capacity) {
+    int width = Integer.highestOneBit((int) Math.max(256, Math.min(capacity, 1 << 24)) - 1) << 1;
+    this.table = new int[width * DEPTH];
+    this.mask = width - 1;
+    this.sampleSize = 10 * width;
+  }
+
+  void increment(Object key) {
+    int hash = spread(key);
+    boolean added = false;
+    for (int i = 0; i < DEPTH; i++) {
+      int index = indexOf(hash, i);
+      if (table[index] < MAX_COUNT) {
+        table[index]++;
+        added = true;
+      }
+    }
+    if (added && ++additions >= sampleSize) {
+      reset();
+    }
+  }
+
+  int frequency(Object key) {
+    int hash = spread(key);
+    int frequency = MAX_COUNT;
+    for (int i = 0; i < DEPTH; i++) {
+      frequency = Math.min(frequency, table[indexOf(hash, i)]);
+    }
+    return frequency;
+  }
+
+  void clear() {
+    for (int i = 0; i < table.length; i++) {
+      table[i] = 0;
+    }
+    additions = 0;
+  }
+
+  private void reset() {
+    for (int i = 0; i < table.length; i++) {
+      table[i] >>>= 1;
+    }
+    additions = 0;
+  }
+
+  private int indexOf(int hash, int row) {
+    int h = (hash ^ SEEDS[row]) * 0x9e3779b9;
+    h ^= h >>> 16;
+    return row * (mask + 1) + (h & mask);
+  }
+
+  private static int spread(Object key) {
+    int h = key.hashCode() * 0x85ebca6b;
+    return h ^ (h >>> 15);
+  }
+
+}
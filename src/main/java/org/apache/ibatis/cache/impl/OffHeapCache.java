@@ -0,0 +1,393 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.ibatis.builder.InitializingObject;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheSerializer;
+import org.apache.ibatis.cache.serializer.JavaCacheSerializer;
+
+/**
+ * A thread safe cache that keeps its values serialized outside of the Java heap, so that large caches do not
+ * lengthen garbage collection pauses. It can be selected with {@code <cache type="OFF_HEAP"/>} or
+ * {@code @CacheNamespace(implementation = OffHeapCache.class)}.
+ * <p>
+ * Values are serialized with the cache serializer (Java serialization unless another one is configured) and
+ * appended to a ring of direct buffer slabs. Only the index of keys stays on the heap. When the ring is full the
+ * oldest entries are evicted (FIFO). Every read returns a new copy, so the cache is always read-write.
+ * <p>
+ * When the {@code file} property is set the slabs are memory mapped from that file and the keys are written next to
+ * the values, so that the cache is loaded again after a restart. The keys must be serializable in that case.
+ * <p>
+ * Supported properties: {@code capacity} (the bytes to store, 64 MB by default), {@code slabSize}
+ * (the bytes of one buffer, 16 MB by default; larger values are not cached) and {@code file}.
+ *
+ * @since 3.5.2
+ */
+public class OffHeapCache implements Cache, InitializingObject {
+
+  private static final long MAGIC = 0x4D424F4646484541L;
+  private static final int FILE_HEADER_SIZE = 64;
+  private static final int RECORD_HEADER_SIZE = 8;
+  private static final int PADDING = -1;
+
+  private final String id;
+  private final Map<Object, Entry> index = new HashMap<>();
+  // entries in the order they were written, replaced and removed entries are skipped lazily
+  private final Deque<Entry> entries = new ArrayDeque<>();
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final CacheSerializer keySerializer = new JavaCacheSerializer();
+  private CacheSerializer serializer = new JavaCacheSerializer();
+  private long capacity = 64L * 1024 * 1024;
+  private int slabSize = 16 * 1024 * 1024;
+  private String file;
+  private ByteBuffer[] slabs;
+  private MappedByteBuffer fileHeader;
+  private long head;
+
+  public OffHeapCache(String id) {
+    this.id = id;
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  @Override
+  public int getSize() {
+    Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      return index.size();
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  public void setCapacity(long capacity) {
+    this.capacity = capacity;
+  }
+
+  public void setSlabSize(int slabSize) {
+    this.slabSize = slabSize;
+  }
+
+  public void setFile(String file) {
+    this.file = file;
+  }
+
+  /**
+   * Sets the serializer of the values. It must serialize them to byte arrays.
+   */
+  public void setSerializer(CacheSerializer serializer) {
+    this.serializer = serializer;
+  }
+
+  @Override
+  public void initialize() {
+    Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      open();
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    byte[] keyBytes = file == null ? new byte[0] : (byte[]) keySerializer.serialize(key);
+    Object serialized = value == null ? new byte[0] : serializer.serialize(value);
+    if (!(serialized instanceof byte[])) {
+      throw new CacheException("The serializer of the off-heap cache '" + id + "' must serialize to byte arrays.");
+    }
+    byte[] valueBytes = (byte[]) serialized;
+    long recordLength = (long) RECORD_HEADER_SIZE + keyBytes.length + valueBytes.length;
+    Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      open();
+      Entry previous = index.remove(key);
+      if (previous != null) {
+        markRemoved(previous);
+      }
+      if (recordLength > slabSize) {
+        return;
+      }
+      Entry entry = new Entry(key, allocate((int) recordLength), (int) recordLength, keyBytes.length,
+          value == null);
+      ByteBuffer buffer = slice(entry.position);
+      buffer.putInt(entry.length);
+      buffer.putInt(entry.keyLength);
+      buffer.put(keyBytes);
+      buffer.put(valueBytes);
+      index.put(key, entry);
+      entries.addLast(entry);
+      writeFileHeader();
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    byte[] valueBytes;
+    Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      Entry entry = index.get(key);
+      if (entry == null || entry.nullValue) {
+        return null;
+      }
+      ByteBuffer buffer = slice(entry.position + RECORD_HEADER_SIZE + entry.keyLength);
+      valueBytes = new byte[entry.length - RECORD_HEADER_SIZE - entry.keyLength];
+      buffer.get(valueBytes);
+    } finally {
+      readLock.unlock();
+    }
+    return serializer.deserialize(valueBytes);
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      Entry entry = index.remove(key);
+      if (entry != null) {
+        markRemoved(entry);
+      }
+      return null;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      index.clear();
+      entries.clear();
+      head = 0;
+      writeFileHeader();
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public ReadWriteLock getReadWriteLock() {
+    return null;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Cache)) {
+      return false;
+    }
+
+    Cache otherCache = (Cache) o;
+    return getId().equals(otherCache.getId());
+  }
+
+  @Override
+  public int hashCode() {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    return getId().hashCode();
+  }
+
+  /**
+   * Reserves the bytes of a new record at the head of the ring, evicting the oldest entries it overlaps.
+   */
+  private long allocate(int recordLength) {
+    long position = head;
+    long offset = position % slabSize;
+    if (offset + recordLength > slabSize) {
+      // records never span two slabs
+      position += slabSize - offset;
+    }
+    long ringSize = (long) slabSize * slabs.length;
+    while (!entries.isEmpty() && position + recordLength - entries.peekFirst().position > ringSize) {
+      Entry evicted = entries.removeFirst();
+      if (index.get(evicted.key) == evicted) {
+        index.remove(evicted.key);
+      }
+    }
+    if (position != head && slabSize - offset >= 4) {
+      slice(head).putInt(PADDING);
+    }
+    head = position + recordLength;
+    return position;
+  }
+
+  private void markRemoved(Entry entry) {
+    // a negative length keeps the record from being loaded again after a restart
+    slice(entry.position).putInt(-entry.length);
+  }
+
+  private ByteBuffer slice(long position) {
+    long ringPosition = position % ((long) slabSize * slabs.length);
+    int slab = (int) (ringPosition / slabSize);
+    if (slabs[slab] == null) {
+      slabs[slab] = ByteBuffer.allocateDirect(slabSize);
+    }
+    ByteBuffer buffer = slabs[slab].duplicate();
+    buffer.position((int) (ringPosition % slabSize));
+    return buffer;
+  }
+
+  private void open() {
+    if (slabs != null) {
+      return;
+    }
+    slabSize = (int) Math.min(slabSize, capacity);
+    int slabCount = (int) Math.max(1, capacity / slabSize);
+    ByteBuffer[] buffers = new ByteBuffer[slabCount];
+    if (file != null) {
+      try (RandomAccessFile randomAccessFile = new RandomAccessFile(new File(file), "rw");
+           FileChannel channel = randomAccessFile.getChannel()) {
+        fileHeader = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_HEADER_SIZE);
+        for (int i = 0; i < slabCount; i++) {
+          buffers[i] = channel.map(FileChannel.MapMode.READ_WRITE, FILE_HEADER_SIZE + (long) i * slabSize, slabSize);
+        }
+      } catch (IOException e) {
+        throw new CacheException("Error mapping the off-heap cache file " + file + ".  Cause: " + e, e);
+      }
+    }
+    slabs = buffers;
+    if (fileHeader != null) {
+      load(slabCount);
+    }
+  }
+
+  /**
+   * Rebuilds the index from the records between the tail and the head saved in the file header. A file that was not
+   * completely written, for instance when the process crashed before the mapped file was flushed, is started empty.
+   */
+  private void load(int slabCount) {
+    if (fileHeader.getLong(0) != MAGIC || fileHeader.getInt(8) != slabSize || fileHeader.getInt(12) != slabCount) {
+      writeFileHeader();
+      return;
+    }
+    long savedHead = fileHeader.getLong(16);
+    long tail = fileHeader.getLong(24);
+    if (tail < 0 || tail > savedHead || savedHead - tail > (long) slabSize * slabCount || !loadRecords(tail, savedHead)) {
+      index.clear();
+      entries.clear();
+      head = 0;
+      writeFileHeader();
+      return;
+    }
+    head = savedHead;
+  }
+
+  /**
+   * Indexes the records between the two positions.
+   *
+   * @return False if a record is corrupt
+   */
+  private boolean loadRecords(long position, long savedHead) {
+    while (position < savedHead) {
+      long offset = position % slabSize;
+      int length = slabSize - offset < RECORD_HEADER_SIZE ? PADDING : slice(position).getInt();
+      if (length == PADDING) {
+        position += slabSize - offset;
+        continue;
+      }
+      // removed records have a negative length
+      int recordLength = Math.abs(length);
+      if (recordLength < RECORD_HEADER_SIZE || recordLength > slabSize - offset || position + recordLength > savedHead) {
+        return false;
+      }
+      if (length > 0) {
+        ByteBuffer buffer = slice(position + 4);
+        int keyLength = buffer.getInt();
+        if (keyLength < 0 || keyLength > length - RECORD_HEADER_SIZE) {
+          return false;
+        }
+        byte[] keyBytes = new byte[keyLength];
+        buffer.get(keyBytes);
+        Object key;
+        try {
+          key = keySerializer.deserialize(keyBytes);
+        } catch (RuntimeException e) {
+          return false;
+        }
+        Entry entry = new Entry(key, position, length, keyLength, length == RECORD_HEADER_SIZE + keyLength);
+        Entry previous = index.put(key, entry);
+        if (previous != null) {
+          markRemoved(previous);
+        }
+        entries.addLast(entry);
+      }
+      position += recordLength;
+    }
+    return true;
+  }
+
+  private void writeFileHeader() {
+    if (fileHeader != null) {
+      fileHeader.putLong(0, MAGIC);
+      fileHeader.putInt(8, slabSize);
+      fileHeader.putInt(12, slabs.length);
+      fileHeader.putLong(16, head);
+      fileHeader.putLong(24, entries.isEmpty() ? head : entries.peekFirst().position);
+    }
+  }
+
+  private static final class Entry {
+    private final Object key;
+    private final long position;
+    private final int length;
+    private final int keyLength;
+    private final boolean nullValue;
+
+    Entry(Object key, long position, int length, int keyLength, boolean nullValue) {
+      this.key = key;
+      this.position = position;
+      this.length = length;
+      this.keyLength = keyLength;
+      this.nullValue = nullValue;
+    }
+  }
+
+}
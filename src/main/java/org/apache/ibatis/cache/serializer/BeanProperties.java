@@ -0,0 +1,196 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.serializer;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.executor.loader.WriteReplaceInterface;
+import org.apache.ibatis.reflection.LambdaReflectorFactory;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.ReflectorFactory;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.invoker.LambdaMethodInvoker;
+
+/**
+ * The readable and writable properties of a bean class, resolved once through its {@link Reflector}.
+ * <p>
+ * Public accessors and public default constructors are called through functions generated with
+ * {@link LambdaMetafactory}; only properties without accessor methods are still read and written through their
+ * fields.
+ *
+ * @since 3.5.2
+ */
+final class BeanProperties {
+
+  private static final Object[] NO_ARGUMENTS = new Object[0];
+
+  private final Reflector reflector;
+  private final Supplier<Object> constructor;
+  private final Invoker[] getters;
+  private final Invoker[] setters;
+
+  private BeanProperties(Reflector reflector) {
+    this.reflector = reflector;
+    this.constructor = newConstructor(reflector.getDefaultConstructor());
+    Set<String> staticFields = new HashSet<>();
+    Set<String> instanceFields = new HashSet<>();
+    for (Class<?> c = reflector.getType(); c != null; c = c.getSuperclass()) {
+      for (Field field : c.getDeclaredFields()) {
+        (Modifier.isStatic(field.getModifiers()) ? staticFields : instanceFields).add(field.getName());
+      }
+    }
+    List<Invoker> getterList = new ArrayList<>();
+    List<Invoker> setterList = new ArrayList<>();
+    for (String name : reflector.getGetablePropertyNames()) {
+      // a static field is not part of the state of an instance
+      if (reflector.hasSetter(name) && (instanceFields.contains(name) || !staticFields.contains(name))) {
+        getterList.add(reflector.getGetInvoker(name));
+        setterList.add(reflector.getSetInvoker(name));
+      }
+    }
+    this.getters = getterList.toArray(new Invoker[0]);
+    this.setters = setterList.toArray(new Invoker[0]);
+  }
+
+  /**
+   * Returns whether instances of the class can be copied property by property: the class must have a default
+   * constructor, must not be a value type or a collection, and must not be a lazy loading proxy, which has to be
+   * serialized through its write replacement. Every instance field that is not transient must also be a property that
+   * can be both read and written, otherwise copying the properties would silently drop part of the state.
+   */
+  static boolean isBean(Class<?> type, ReflectorFactory reflectorFactory) {
+    if (type.isInterface() || type.isArray() || WriteReplaceInterface.class.isAssignableFrom(type)
+        || Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type)
+        || Number.class.isAssignableFrom(type) || Date.class.isAssignableFrom(type)
+        || CharSequence.class.isAssignableFrom(type)) {
+      return false;
+    }
+    Reflector reflector;
+    try {
+      reflector = reflectorFactory.findForClass(type);
+    } catch (ReflectionException e) {
+      return false;
+    }
+    return reflector.hasDefaultConstructor() && coversState(reflector);
+  }
+
+  private static boolean coversState(Reflector reflector) {
+    Set<String> names = new HashSet<>();
+    for (Class<?> c = reflector.getType(); c != null; c = c.getSuperclass()) {
+      for (Field field : c.getDeclaredFields()) {
+        int modifiers = field.getModifiers();
+        if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+          continue;
+        }
+        // a field hidden by a field of a subclass is not reachable as a property
+        String name = field.getName();
+        if (!names.add(name) || !reflector.hasGetter(name) || !reflector.hasSetter(name)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  static BeanProperties forClass(Class<?> type, ReflectorFactory reflectorFactory, Map<Class<?>, BeanProperties> cache) {
+    return cache.computeIfAbsent(type, t -> new BeanProperties(reflectorFactory.findForClass(t)));
+  }
+
+  static Map<Class<?>, BeanProperties> newCache() {
+    return new ConcurrentHashMap<>();
+  }
+
+  static ReflectorFactory newReflectorFactory() {
+    return new LambdaReflectorFactory();
+  }
+
+  Class<?> getType() {
+    return reflector.getType();
+  }
+
+  int size() {
+    return getters.length;
+  }
+
+  Object newInstance() {
+    try {
+      return constructor.get();
+    } catch (CacheException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new CacheException("Error creating a copy of " + reflector.getType() + ".  Cause: " + e, e);
+    }
+  }
+
+  Object get(Object bean, int index) {
+    try {
+      return getters[index].invoke(bean, NO_ARGUMENTS);
+    } catch (Exception e) {
+      throw new CacheException("Error reading a property of " + reflector.getType() + ".  Cause: " + e, e);
+    }
+  }
+
+  void set(Object bean, int index, Object value) {
+    try {
+      setters[index].invoke(bean, new Object[] { value });
+    } catch (Exception e) {
+      throw new CacheException("Error writing a property of " + reflector.getType() + ".  Cause: " + e, e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Supplier<Object> newConstructor(Constructor<?> constructor) {
+    Class<?> type = constructor.getDeclaringClass();
+    if (Modifier.isPublic(constructor.getModifiers()) && LambdaMethodInvoker.isVisible(type)) {
+      try {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        CallSite callSite = LambdaMetafactory.metafactory(lookup, "get", MethodType.methodType(Supplier.class),
+            MethodType.methodType(Object.class), lookup.unreflectConstructor(constructor), MethodType.methodType(type));
+        return (Supplier<Object>) callSite.getTarget().invokeWithArguments();
+      } catch (Throwable t) {
+        // falls back to reflection
+      }
+    }
+    if (Reflector.canControlMemberAccessible()) {
+      constructor.setAccessible(true);
+    }
+    return () -> {
+      try {
+        return constructor.newInstance();
+      } catch (ReflectiveOperationException e) {
+        throw new CacheException("Error creating a copy of " + type + ".  Cause: " + e, e);
+      }
+    };
+  }
+
+}
@@ -0,0 +1,542 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.serializer;
+
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheSerializer;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.reflection.ReflectorFactory;
+
+/**
+ * Copies cached values with a compact binary encoding.
+ * <p>
+ * Strings, boxed primitives, numbers, dates, byte arrays, arrays and the common {@code java.util} lists, sets and maps
+ * are written with a one byte tag. Beans are written property by property through the properties their
+ * {@link org.apache.ibatis.reflection.Reflector} resolved once per class, so they need a default constructor but do
+ * not need to be {@link Serializable}. A class is only written as a bean when every instance field that is not
+ * transient is a readable and writable property. Shared and cyclic references are preserved. Lazy loading proxies and
+ * any other value the encoding does not know are written with Java serialization.
+ * <p>
+ * Classes of beans, enums and arrays are written by name once per value, unless they were {@link #register(Class...)
+ * registered}, which a subclass can do in its constructor:
+ *
+ * <pre>
+ * public class BlogCacheSerializer extends BinaryCacheSerializer {
+ *   public BlogCacheSerializer() {
+ *     register(Blog.class, Post.class, Author.class);
+ *   }
+ * }
+ * </pre>
+ *
+ * @since 3.5.2
+ */
+public class BinaryCacheSerializer implements CacheSerializer {
+
+  private static final int MAX_RETAINED_BUFFER = 1024 * 1024;
+
+  private static final byte NULL = 0;
+  private static final byte REFERENCE = 1;
+  private static final byte STRING = 2;
+  private static final byte INTEGER = 3;
+  private static final byte LONG = 4;
+  private static final byte SHORT = 5;
+  private static final byte BYTE = 6;
+  private static final byte TRUE = 7;
+  private static final byte FALSE = 8;
+  private static final byte DOUBLE = 9;
+  private static final byte FLOAT = 10;
+  private static final byte CHARACTER = 11;
+  private static final byte BIG_DECIMAL = 12;
+  private static final byte BIG_INTEGER = 13;
+  private static final byte DATE = 14;
+  private static final byte SQL_DATE = 15;
+  private static final byte SQL_TIME = 16;
+  private static final byte SQL_TIMESTAMP = 17;
+  private static final byte BYTE_ARRAY = 18;
+  private static final byte OBJECT_ARRAY = 19;
+  private static final byte ARRAY_LIST = 20;
+  private static final byte LINKED_LIST = 21;
+  private static final byte HASH_SET = 22;
+  private static final byte LINKED_HASH_SET = 23;
+  private static final byte HASH_MAP = 24;
+  private static final byte LINKED_HASH_MAP = 25;
+  private static final byte ENUM = 26;
+  private static final byte BEAN = 27;
+  private static final byte JAVA = 28;
+
+  private final ReflectorFactory reflectorFactory = BeanProperties.newReflectorFactory();
+  private final Map<Class<?>, BeanProperties> beanProperties = BeanProperties.newCache();
+  private final Map<Class<?>, Boolean> beanTypes = new ConcurrentHashMap<>();
+  private final Map<String, Class<?>> classes = new ConcurrentHashMap<>();
+  private final Map<Class<?>, Integer> registeredIds = new ConcurrentHashMap<>();
+  private final List<Class<?>> registeredClasses = new CopyOnWriteArrayList<>();
+  private final ThreadLocal<Output> outputs = ThreadLocal.withInitial(Output::new);
+
+  /**
+   * Registers classes so that they are written as a small number instead of their name. The numbers are assigned in
+   * registration order, so a value stored in a persistent cache can only be read back by a serializer that registered
+   * the same classes in the same order. Classes that are already registered are ignored.
+   *
+   * @param types
+   *          the classes of the beans, enums and array elements that are cached
+   * @return this serializer
+   */
+  public synchronized BinaryCacheSerializer register(Class<?>... types) {
+    for (Class<?> type : types) {
+      if (!registeredIds.containsKey(type)) {
+        registeredClasses.add(type);
+        registeredIds.put(type, registeredClasses.size() - 1);
+      }
+    }
+    return this;
+  }
+
+  @Override
+  public Object serialize(Object value) {
+    Output output = outputs.get();
+    try {
+      writeObject(output, value);
+      return output.toByteArray();
+    } finally {
+      if (output.buffer.length > MAX_RETAINED_BUFFER) {
+        outputs.remove();
+      } else {
+        output.reset();
+      }
+    }
+  }
+
+  @Override
+  public Object deserialize(Object stored) {
+    return readObject(new Input((byte[]) stored));
+  }
+
+  private void writeObject(Output out, Object value) {
+    if (value == null) {
+      out.writeByte(NULL);
+      return;
+    }
+    Class<?> type = value.getClass();
+    if (type == String.class) {
+      out.writeByte(STRING);
+      out.writeString((String) value);
+    } else if (type == Integer.class) {
+      out.writeByte(INTEGER);
+      out.writeVarLong((Integer) value);
+    } else if (type == Long.class) {
+      out.writeByte(LONG);
+      out.writeVarLong((Long) value);
+    } else if (type == Boolean.class) {
+      out.writeByte((Boolean) value ? TRUE : FALSE);
+    } else if (type == Short.class) {
+      out.writeByte(SHORT);
+      out.writeVarLong((Short) value);
+    } else if (type == Byte.class) {
+      out.writeByte(BYTE);
+      out.writeByte((Byte) value);
+    } else if (type == Double.class) {
+      out.writeByte(DOUBLE);
+      out.writeLong(Double.doubleToRawLongBits((Double) value));
+    } else if (type == Float.class) {
+      out.writeByte(FLOAT);
+      out.writeVarLong(Float.floatToRawIntBits((Float) value));
+    } else if (type == Character.class) {
+      out.writeByte(CHARACTER);
+      out.writeVarLong((Character) value);
+    } else if (type == BigDecimal.class) {
+      out.writeByte(BIG_DECIMAL);
+      BigDecimal decimal = (BigDecimal) value;
+      out.writeVarLong(decimal.scale());
+      out.writeBytes(decimal.unscaledValue().toByteArray());
+    } else if (type == BigInteger.class) {
+      out.writeByte(BIG_INTEGER);
+      out.writeBytes(((BigInteger) value).toByteArray());
+    } else if (type == Timestamp.class) {
+      out.writeByte(SQL_TIMESTAMP);
+      out.writeVarLong(((Timestamp) value).getTime());
+      out.writeVarLong(((Timestamp) value).getNanos());
+    } else if (type == Date.class || type == java.sql.Date.class || type == Time.class) {
+      out.writeByte(type == Date.class ? DATE : type == Time.class ? SQL_TIME : SQL_DATE);
+      out.writeVarLong(((Date) value).getTime());
+    } else if (type.isEnum()) {
+      out.writeByte(ENUM);
+      writeClass(out, type);
+      out.writeString(((Enum<?>) value).name());
+    } else if (!writeReference(out, value)) {
+      writeMutableObject(out, value, type);
+    }
+  }
+
+  private void writeMutableObject(Output out, Object value, Class<?> type) {
+    if (type == byte[].class) {
+      out.writeByte(BYTE_ARRAY);
+      out.writeBytes((byte[]) value);
+    } else if (type.isArray() && !type.getComponentType().isPrimitive()) {
+      out.writeByte(OBJECT_ARRAY);
+      writeClass(out, type.getComponentType());
+      Object[] array = (Object[]) value;
+      out.writeVarLong(array.length);
+      for (Object element : array) {
+        writeObject(out, element);
+      }
+    } else if (type == ArrayList.class || type == LinkedList.class || type == HashSet.class
+        || type == LinkedHashSet.class) {
+      out.writeByte(type == ArrayList.class ? ARRAY_LIST
+          : type == LinkedList.class ? LINKED_LIST : type == HashSet.class ? HASH_SET : LINKED_HASH_SET);
+      Collection<?> collection = (Collection<?>) value;
+      out.writeVarLong(collection.size());
+      for (Object element : collection) {
+        writeObject(out, element);
+      }
+    } else if (type == HashMap.class || type == LinkedHashMap.class) {
+      out.writeByte(type == HashMap.class ? HASH_MAP : LINKED_HASH_MAP);
+      Map<?, ?> map = (Map<?, ?>) value;
+      out.writeVarLong(map.size());
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        writeObject(out, entry.getKey());
+        writeObject(out, entry.getValue());
+      }
+    } else if (isBean(type)) {
+      out.writeByte(BEAN);
+      writeClass(out, type);
+      BeanProperties properties = BeanProperties.forClass(type, reflectorFactory, beanProperties);
+      for (int i = 0; i < properties.size(); i++) {
+        writeObject(out, properties.get(value, i));
+      }
+    } else if (value instanceof Serializable) {
+      out.writeByte(JAVA);
+      out.writeBytes(JavaCacheSerializer.serialize((Serializable) value));
+    } else {
+      throw new CacheException("SharedCache failed to make a copy of a non-serializable object: " + value);
+    }
+  }
+
+  private boolean writeReference(Output out, Object value) {
+    Integer handle = out.references.putIfAbsent(value, out.references.size());
+    if (handle == null) {
+      return false;
+    }
+    out.writeByte(REFERENCE);
+    out.writeVarLong(handle);
+    return true;
+  }
+
+  private void writeClass(Output out, Class<?> type) {
+    Integer id = registeredIds.get(type);
+    if (id != null) {
+      out.writeVarLong(-1 - id);
+      return;
+    }
+    Integer handle = out.classes.get(type);
+    if (handle != null) {
+      out.writeVarLong(handle + 1);
+    } else {
+      out.classes.put(type, out.classes.size());
+      out.writeVarLong(0);
+      out.writeString(type.getName());
+    }
+  }
+
+  private boolean isBean(Class<?> type) {
+    return beanTypes.computeIfAbsent(type, t -> BeanProperties.isBean(t, reflectorFactory));
+  }
+
+  @SuppressWarnings("unchecked")
+  private Object readObject(Input in) {
+    byte tag = in.readByte();
+    switch (tag) {
+      case NULL:
+        return null;
+      case REFERENCE:
+        return in.references.get((int) in.readVarLong());
+      case STRING:
+        return in.readString();
+      case INTEGER:
+        return (int) in.readVarLong();
+      case LONG:
+        return in.readVarLong();
+      case SHORT:
+        return (short) in.readVarLong();
+      case BYTE:
+        return in.readByte();
+      case TRUE:
+        return Boolean.TRUE;
+      case FALSE:
+        return Boolean.FALSE;
+      case DOUBLE:
+        return Double.longBitsToDouble(in.readLong());
+      case FLOAT:
+        return Float.intBitsToFloat((int) in.readVarLong());
+      case CHARACTER:
+        return (char) in.readVarLong();
+      case BIG_DECIMAL:
+        int scale = (int) in.readVarLong();
+        return new BigDecimal(new BigInteger(in.readBytes()), scale);
+      case BIG_INTEGER:
+        return new BigInteger(in.readBytes());
+      case DATE:
+        return new Date(in.readVarLong());
+      case SQL_DATE:
+        return new java.sql.Date(in.readVarLong());
+      case SQL_TIME:
+        return new Time(in.readVarLong());
+      case SQL_TIMESTAMP:
+        Timestamp timestamp = new Timestamp(in.readVarLong());
+        timestamp.setNanos((int) in.readVarLong());
+        return timestamp;
+      case ENUM:
+        return Enum.valueOf((Class<Enum>) readClass(in), in.readString());
+      case BYTE_ARRAY:
+        return in.register(in.readBytes());
+      case OBJECT_ARRAY:
+        Class<?> componentType = readClass(in);
+        Object[] array = (Object[]) in.register(Array.newInstance(componentType, (int) in.readVarLong()));
+        for (int i = 0; i < array.length; i++) {
+          array[i] = readObject(in);
+        }
+        return array;
+      case ARRAY_LIST:
+      case LINKED_LIST:
+      case HASH_SET:
+      case LINKED_HASH_SET:
+        return readCollection(in, tag);
+      case HASH_MAP:
+      case LINKED_HASH_MAP:
+        int entries = (int) in.readVarLong();
+        Map<Object, Object> map = (Map<Object, Object>) in.register(
+            tag == HASH_MAP ? new HashMap<>(capacity(entries)) : new LinkedHashMap<>(capacity(entries)));
+        for (int i = 0; i < entries; i++) {
+          map.put(readObject(in), readObject(in));
+        }
+        return map;
+      case BEAN:
+        BeanProperties properties = BeanProperties.forClass(readClass(in), reflectorFactory, beanProperties);
+        Object bean = in.register(properties.newInstance());
+        for (int i = 0; i < properties.size(); i++) {
+          properties.set(bean, i, readObject(in));
+        }
+        return bean;
+      case JAVA:
+        return in.register(JavaCacheSerializer.deserialize(in.readBytes()));
+      default:
+        throw new CacheException("Error deserializing object.  Cause: unknown tag " + tag);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private Collection<Object> readCollection(Input in, byte tag) {
+    int size = (int) in.readVarLong();
+    Collection<Object> collection;
+    if (tag == ARRAY_LIST) {
+      collection = new ArrayList<>(size);
+    } else if (tag == LINKED_LIST) {
+      collection = new LinkedList<>();
+    } else if (tag == HASH_SET) {
+      collection = new HashSet<>(capacity(size));
+    } else {
+      collection = new LinkedHashSet<>(capacity(size));
+    }
+    in.register(collection);
+    for (int i = 0; i < size; i++) {
+      collection.add(readObject(in));
+    }
+    return collection;
+  }
+
+  private Class<?> readClass(Input in) {
+    int handle = (int) in.readVarLong();
+    if (handle < 0) {
+      int id = -1 - handle;
+      if (id >= registeredClasses.size()) {
+        throw new CacheException("Error deserializing object.  Cause: no class is registered with id " + id);
+      }
+      return registeredClasses.get(id);
+    }
+    if (handle > 0) {
+      return in.classes.get(handle - 1);
+    }
+    String name = in.readString();
+    Class<?> type = classes.computeIfAbsent(name, n -> {
+      try {
+        return Resources.classForName(n);
+      } catch (ClassNotFoundException e) {
+        throw new CacheException("Error deserializing object.  Cause: " + e, e);
+      }
+    });
+    in.classes.add(type);
+    return type;
+  }
+
+  private static int capacity(int size) {
+    return size < 3 ? size + 1 : (int) (size / 0.75f + 1.0f);
+  }
+
+  private static final class Output {
+    private final Map<Object, Integer> references = new IdentityHashMap<>();
+    private final Map<Class<?>, Integer> classes = new IdentityHashMap<>();
+    private byte[] buffer = new byte[256];
+    private int position;
+
+    void writeByte(int value) {
+      ensureCapacity(1);
+      buffer[position++] = (byte) value;
+    }
+
+    void writeVarLong(long value) {
+      ensureCapacity(10);
+      long zigZag = (value << 1) ^ (value >> 63);
+      while ((zigZag & ~0x7FL) != 0) {
+        buffer[position++] = (byte) ((zigZag & 0x7F) | 0x80);
+        zigZag >>>= 7;
+      }
+      buffer[position++] = (byte) zigZag;
+    }
+
+    void writeLong(long value) {
+      ensureCapacity(8);
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        buffer[position++] = (byte) (value >>> shift);
+      }
+    }
+
+    void writeBytes(byte[] bytes) {
+      writeVarLong(bytes.length);
+      ensureCapacity(bytes.length);
+      System.arraycopy(bytes, 0, buffer, position, bytes.length);
+      position += bytes.length;
+    }
+
+    void writeString(String value) {
+      int length = value.length();
+      writeVarLong(length);
+      ensureCapacity(length * 3);
+      for (int i = 0; i < length; i++) {
+        char c = value.charAt(i);
+        if (c < 0x80) {
+          buffer[position++] = (byte) c;
+        } else if (c < 0x800) {
+          buffer[position++] = (byte) (0xC0 | (c >> 6));
+          buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        } else {
+          buffer[position++] = (byte) (0xE0 | (c >> 12));
+          buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+          buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        }
+      }
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(buffer, position);
+    }
+
+    void reset() {
+      position = 0;
+      references.clear();
+      classes.clear();
+    }
+
+    private void ensureCapacity(int needed) {
+      if (position + needed > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + needed));
+      }
+    }
+  }
+
+  private static final class Input {
+    private final List<Object> references = new ArrayList<>();
+    private final List<Class<?>> classes = new ArrayList<>();
+    private final byte[] buffer;
+    private int position;
+
+    Input(byte[] buffer) {
+      this.buffer = buffer;
+    }
+
+    Object register(Object value) {
+      references.add(value);
+      return value;
+    }
+
+    byte readByte() {
+      return buffer[position++];
+    }
+
+    long readVarLong() {
+      long zigZag = 0;
+      int shift = 0;
+      byte b;
+      do {
+        b = buffer[position++];
+        zigZag |= (long) (b & 0x7F) << shift;
+        shift += 7;
+      } while ((b & 0x80) != 0);
+      return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+
+    long readLong() {
+      long value = 0;
+      for (int i = 0; i < 8; i++) {
+        value = (value << 8) | (buffer[position++] & 0xFF);
+      }
+      return value;
+    }
+
+    byte[] readBytes() {
+      int length = (int) readVarLong();
+      byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+      position += length;
+      return bytes;
+    }
+
+    String readString() {
+      int length = (int) readVarLong();
+      char[] chars = new char[length];
+      for (int i = 0; i < length; i++) {
+        int b = buffer[position++] & 0xFF;
+        if (b < 0x80) {
+          chars[i] = (char) b;
+        } else if (b < 0xE0) {
+          chars[i] = (char) (((b & 0x1F) << 6) | (buffer[position++] & 0x3F));
+        } else {
+          chars[i] = (char) (((b & 0x0F) << 12) | ((buffer[position++] & 0x3F) << 6) | (buffer[position++] & 0x3F));
+        }
+      }
+      return new String(chars);
+    }
+  }
+
+}
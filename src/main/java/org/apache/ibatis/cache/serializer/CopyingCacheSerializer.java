@@ -0,0 +1,157 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.serializer;
+
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheSerializer;
+import org.apache.ibatis.reflection.ReflectorFactory;
+
+/**
+ * Copies cached values without encoding them: the cache keeps a private deep copy of each value and hands out a new
+ * deep copy on every read.
+ * <p>
+ * Immutable values such as strings, boxed primitives, big numbers and enums are shared. Dates, arrays, the common
+ * {@code java.util} lists, sets and maps, and beans with a default constructor are copied; beans are copied through the
+ * properties their {@link org.apache.ibatis.reflection.Reflector} resolved once per class, provided every instance
+ * field that is not transient is a readable and writable property. Shared and cyclic references are preserved. Lazy
+ * loading proxies and any other value are copied with Java serialization.
+ *
+ * @since 3.5.2
+ */
+public class CopyingCacheSerializer implements CacheSerializer {
+
+  private final ReflectorFactory reflectorFactory = BeanProperties.newReflectorFactory();
+  private final Map<Class<?>, BeanProperties> beanProperties = BeanProperties.newCache();
+  private final Map<Class<?>, Boolean> beanTypes = new ConcurrentHashMap<>();
+
+  @Override
+  public Object serialize(Object value) {
+    return copy(value, new IdentityHashMap<>());
+  }
+
+  @Override
+  public Object deserialize(Object stored) {
+    return copy(stored, new IdentityHashMap<>());
+  }
+
+  @SuppressWarnings("unchecked")
+  private Object copy(Object value, Map<Object, Object> copies) {
+    if (value == null || isImmutable(value.getClass())) {
+      return value;
+    }
+    Object copy = copies.get(value);
+    if (copy != null) {
+      return copy;
+    }
+    Class<?> type = value.getClass();
+    if (value instanceof Date && isCloneable(type)) {
+      copy = ((Date) value).clone();
+      copies.put(value, copy);
+    } else if (type.isArray()) {
+      int length = Array.getLength(value);
+      copy = Array.newInstance(type.getComponentType(), length);
+      copies.put(value, copy);
+      if (type.getComponentType().isPrimitive()) {
+        System.arraycopy(value, 0, copy, 0, length);
+      } else {
+        Object[] source = (Object[]) value;
+        Object[] target = (Object[]) copy;
+        for (int i = 0; i < length; i++) {
+          target[i] = copy(source[i], copies);
+        }
+      }
+    } else if (type == ArrayList.class || type == LinkedList.class || type == HashSet.class
+        || type == LinkedHashSet.class) {
+      Collection<?> source = (Collection<?>) value;
+      Collection<Object> target = newCollection(type, source.size());
+      copies.put(value, target);
+      for (Object element : source) {
+        target.add(copy(element, copies));
+      }
+      copy = target;
+    } else if (type == HashMap.class || type == LinkedHashMap.class) {
+      Map<?, ?> source = (Map<?, ?>) value;
+      Map<Object, Object> target = type == HashMap.class ? new HashMap<>(capacity(source.size()))
+          : new LinkedHashMap<>(capacity(source.size()));
+      copies.put(value, target);
+      for (Map.Entry<?, ?> entry : source.entrySet()) {
+        target.put(copy(entry.getKey(), copies), copy(entry.getValue(), copies));
+      }
+      copy = target;
+    } else if (isBean(type)) {
+      BeanProperties properties = BeanProperties.forClass(type, reflectorFactory, beanProperties);
+      copy = properties.newInstance();
+      copies.put(value, copy);
+      for (int i = 0; i < properties.size(); i++) {
+        properties.set(copy, i, copy(properties.get(value, i), copies));
+      }
+    } else if (value instanceof Serializable) {
+      copy = JavaCacheSerializer.deserialize(JavaCacheSerializer.serialize((Serializable) value));
+      copies.put(value, copy);
+    } else {
+      throw new CacheException("SharedCache failed to make a copy of a non-serializable object: " + value);
+    }
+    return copy;
+  }
+
+  private static boolean isImmutable(Class<?> type) {
+    return type == String.class || type == Integer.class || type == Long.class || type == Boolean.class
+        || type == Short.class || type == Byte.class || type == Double.class || type == Float.class
+        || type == Character.class || type == BigDecimal.class || type == BigInteger.class || type.isEnum()
+        || type.getName().startsWith("java.time.");
+  }
+
+  private static boolean isCloneable(Class<?> type) {
+    return type == Date.class || type == java.sql.Date.class || type == java.sql.Time.class
+        || type == java.sql.Timestamp.class;
+  }
+
+  private static Collection<Object> newCollection(Class<?> type, int size) {
+    if (type == ArrayList.class) {
+      return new ArrayList<>(size);
+    } else if (type == LinkedList.class) {
+      return new LinkedList<>();
+    } else if (type == HashSet.class) {
+      return new HashSet<>(capacity(size));
+    }
+    return new LinkedHashSet<>(capacity(size));
+  }
+
+  private boolean isBean(Class<?> type) {
+    return beanTypes.computeIfAbsent(type, t -> BeanProperties.isBean(t, reflectorFactory));
+  }
+
+  private static int capacity(int size) {
+    return size < 3 ? size + 1 : (int) (size / 0.75f + 1.0f);
+  }
+
+}
@@ -0,0 +1,177 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.lang.ref.WeakReference;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Background maintenance task of a {@link PooledDataSource}.
+ * <p>
+ * Retires idle connections that exceeded the maximum lifetime or the idle timeout, validates
+ * idle connections before they would have to be pinged at checkout, and keeps the configured
+ * minimum number of idle connections open.
+ *
+ * @since 3.5.2
+ */
+class PoolHousekeeper implements Runnable {
+
+  private static final Log log = LogFactory.getLog(PoolHousekeeper.class);
+
+  // the data source is weakly referenced so that an unused pool can still be collected
+  private final WeakReference<PooledDataSource> dataSourceRef;
+  private final ScheduledExecutorService executor;
+  private final long period;
+  private final AtomicBoolean refillPending = new AtomicBoolean();
+  private volatile boolean stopped;
+
+  PoolHousekeeper(PooledDataSource dataSource, long period) {
+    this.dataSourceRef = new WeakReference<>(dataSource);
+    this.period = period;
+    this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "mybatis-pool-housekeeper");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  void start() {
+    executor.scheduleWithFixedDelay(this, period, period, TimeUnit.MILLISECONDS);
+    requestRefill();
+  }
+
+  void stop() {
+    stopped = true;
+    executor.shutdownNow();
+  }
+
+  /**
+   * Asynchronously opens connections until the minimum number of idle connections is reached.
+   */
+  void requestRefill() {
+    if (refillPending.compareAndSet(false, true)) {
+      try {
+        executor.execute(() -> {
+          refillPending.set(false);
+          PooledDataSource dataSource = dataSourceRef.get();
+          if (dataSource != null) {
+            fillPool(dataSource);
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        refillPending.set(false);
+      }
+    }
+  }
+
+  @Override
+  public void run() {
+    PooledDataSource dataSource = dataSourceRef.get();
+    if (dataSource == null) {
+      executor.shutdown();
+      return;
+    }
+    try {
+      retireConnections(dataSource);
+      validateConnections(dataSource);
+      fillPool(dataSource);
+    } catch (RuntimeException e) {
+      // an exception would suppress all subsequent runs
+      log.warn("Pool housekeeping failed: " + e.getMessage());
+    }
+  }
+
+  private void retireConnections(PooledDataSource dataSource) {
+    final int maxLifetime = dataSource.getPoolMaxLifetime();
+    final int idleTimeout = dataSource.getPoolIdleTimeout();
+    if (maxLifetime <= 0 && idleTimeout <= 0) {
+      return;
+    }
+    final int[] evictable = { dataSource.getPoolState().getIdleConnectionCount() - dataSource.getPoolMinimumIdleConnections() };
+    List<PooledConnection> retired = dataSource.takeIdleConnections(conn -> {
+      if (maxLifetime > 0 && conn.getAge() > maxLifetime) {
+        return true;
+      }
+      if (idleTimeout > 0 && evictable[0] > 0 && conn.getTimeElapsedSinceLastUse() > idleTimeout) {
+        evictable[0]--;
+        return true;
+      }
+      return false;
+    }, Integer.MAX_VALUE);
+    for (PooledConnection conn : retired) {
+      if (log.isDebugEnabled()) {
+        log.debug("Retiring connection " + conn.getRealHashCode() + " (age " + conn.getAge() + " ms).");
+      }
+      dataSource.discardIdleConnection(conn);
+    }
+  }
+
+  private void validateConnections(PooledDataSource dataSource) {
+    if (!dataSource.isPoolPingEnabled() || dataSource.getPoolPingConnectionsNotUsedFor() < 0) {
+      return;
+    }
+    // validate every connection that would otherwise need a ping at checkout before the next run
+    final long threshold = dataSource.getPoolPingConnectionsNotUsedFor() - period;
+    // one connection at a time, so that checkouts still find the other idle connections
+    int remaining = dataSource.getPoolState().getIdleConnectionCount();
+    while (!stopped && remaining-- > 0) {
+      List<PooledConnection> stale = dataSource.takeIdleConnections(conn -> conn.getTimeElapsedSinceLastValidation() > threshold, 1);
+      if (stale.isEmpty()) {
+        return;
+      }
+      PooledConnection conn = stale.get(0);
+      if (dataSource.validateConnection(conn)) {
+        dataSource.returnIdleConnection(conn);
+      } else {
+        dataSource.getPoolState().badConnectionCountAdder.increment();
+        dataSource.discardIdleConnection(conn);
+      }
+    }
+  }
+
+  private void fillPool(PooledDataSource dataSource) {
+    PoolState state = dataSource.getPoolState();
+    while (!stopped && state.getIdleConnectionCount() < dataSource.getPoolMinimumIdleConnections()
+        && dataSource.reserveConnectionSlot()) {
+      PooledConnection conn;
+      try {
+        conn = dataSource.openConnection();
+      } catch (SQLException e) {
+        dataSource.releaseConnectionSlot();
+        log.warn("Could not open a connection to refill the pool: " + e.getMessage());
+        return;
+      }
+      if (stopped) {
+        // the pool was closed while the connection was opened
+        dataSource.discardIdleConnection(conn);
+        return;
+      }
+      if (!dataSource.returnIdleConnection(conn)) {
+        return;
+      }
+    }
+  }
+
+}
@@ -0,0 +1,60 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+/**
+ * Receives connection pool events of a {@link PooledDataSource}.
+ * <p>
+ * Listeners are called on the thread that checks out, returns or opens the connection,
+ * so implementations must be fast and must not throw.
+ *
+ * @since 3.5.2
+ * @see PooledDataSource#addPoolListener(PoolListener)
+ */
+public interface PoolListener {
+
+  /**
+   * Called when a physical connection was opened.
+   *
+   * @param creationTime the time spent opening the connection in microseconds
+   */
+  default void connectionCreated(long creationTime) {
+  }
+
+  /**
+   * Called when a connection was checked out.
+   *
+   * @param waitTime the time the caller waited for the connection in microseconds
+   */
+  default void connectionCheckedOut(long waitTime) {
+  }
+
+  /**
+   * Called when a connection was returned to the pool.
+   *
+   * @param holdTime the time the connection was checked out in microseconds
+   */
+  default void connectionReturned(long holdTime) {
+  }
+
+  /**
+   * Called each time a caller gave up waiting poolTimeToWait milliseconds without getting a connection.
+   * The caller then tries again, so this event signals pool starvation.
+   */
+  default void connectionWaitTimedOut() {
+  }
+
+}
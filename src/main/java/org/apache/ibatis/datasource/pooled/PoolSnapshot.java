@@ -0,0 +1,120 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+/**
+ * An immutable copy of the statistics and latency histograms of a {@link PoolState}.
+ *
+ * @since 3.5.2
+ * @see PoolState#snapshot()
+ */
+public class PoolSnapshot {
+
+  private final int activeConnectionCount;
+  private final int idleConnectionCount;
+  private final long requestCount;
+  private final long hadToWaitCount;
+  private final long badConnectionCount;
+  private final long claimedOverdueConnectionCount;
+  private final long preparedStatementHitCount;
+  private final long preparedStatementMissCount;
+  private final LatencyHistogram.Snapshot checkoutTime;
+  private final LatencyHistogram.Snapshot holdTime;
+  private final LatencyHistogram.Snapshot creationTime;
+
+  PoolSnapshot(PoolState state) {
+    this.activeConnectionCount = state.getActiveConnectionCount();
+    this.idleConnectionCount = state.getIdleConnectionCount();
+    this.requestCount = state.getRequestCount();
+    this.hadToWaitCount = state.getHadToWaitCount();
+    this.badConnectionCount = state.getBadConnectionCount();
+    this.claimedOverdueConnectionCount = state.getClaimedOverdueConnectionCount();
+    this.preparedStatementHitCount = state.getPreparedStatementHitCount();
+    this.preparedStatementMissCount = state.getPreparedStatementMissCount();
+    this.checkoutTime = state.checkoutTimeHistogram.snapshot();
+    this.holdTime = state.holdTimeHistogram.snapshot();
+    this.creationTime = state.creationTimeHistogram.snapshot();
+  }
+
+  public int getActiveConnectionCount() {
+    return activeConnectionCount;
+  }
+
+  public int getIdleConnectionCount() {
+    return idleConnectionCount;
+  }
+
+  public long getRequestCount() {
+    return requestCount;
+  }
+
+  public long getHadToWaitCount() {
+    return hadToWaitCount;
+  }
+
+  public long getBadConnectionCount() {
+    return badConnectionCount;
+  }
+
+  public long getClaimedOverdueConnectionCount() {
+    return claimedOverdueConnectionCount;
+  }
+
+  public long getPreparedStatementHitCount() {
+    return preparedStatementHitCount;
+  }
+
+  public long getPreparedStatementMissCount() {
+    return preparedStatementMissCount;
+  }
+
+  /**
+   * Returns the time callers waited to check out a connection, in microseconds.
+   *
+   * @return the checkout time histogram
+   */
+  public LatencyHistogram.Snapshot getCheckoutTime() {
+    return checkoutTime;
+  }
+
+  /**
+   * Returns the time connections were held before being returned, in microseconds.
+   *
+   * @return the hold time histogram
+   */
+  public LatencyHistogram.Snapshot getHoldTime() {
+    return holdTime;
+  }
+
+  /**
+   * Returns the time spent opening physical connections, in microseconds.
+   *
+   * @return the creation time histogram
+   */
+  public LatencyHistogram.Snapshot getCreationTime() {
+    return creationTime;
+  }
+
+  @Override
+  public String toString() {
+    return "PoolSnapshot[active=" + activeConnectionCount + ", idle=" + idleConnectionCount
+        + ", requests=" + requestCount + ", hadToWait=" + hadToWaitCount + ", bad=" + badConnectionCount
+        + ", claimedOverdue=" + claimedOverdueConnectionCount + ", preparedStatementHits=" + preparedStatementHitCount
+        + ", preparedStatementMisses=" + preparedStatementMissCount + ", checkoutTime={" + checkoutTime
+        + "}, holdTime={" + holdTime + "}, creationTime={" + creationTime + "}]";
+  }
+
+}
@@ -1,5 +1,5 @@
 /**
- *    Copyright 2009-2018 the original author or authors.
+ *    Copyright 2009-2026 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -15,8 +15,15 @@
  */
 package org.apache.ibatis.datasource.pooled;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * @author Clinton Begin
@@ -28,6 +35,8 @@ public class PoolState {
   protected final List<PooledConnection> idleConnections = new ArrayList<>();
   //活动连接数
   protected final List<PooledConnection> activeConnections = new ArrayList<>();
+  // connections opened or maintained outside of a checkout, guarded by this state
+  protected int reservedConnectionCount;
   protected long requestCount = 0;
   protected long accumulatedRequestTime = 0;
   protected long accumulatedCheckoutTime = 0;
@@ -36,55 +45,125 @@ public class PoolState {
   protected long accumulatedWaitTime = 0;
   protected long hadToWaitCount = 0;
   protected long badConnectionCount = 0;
+  // the pool counts in these adders without locking, the getters add them to the fields above,
+  // which are kept for subclasses and only hold what those add themselves
+  final LongAdder requestCountAdder = new LongAdder();
+  final LongAdder accumulatedRequestTimeAdder = new LongAdder();
+  final LongAdder accumulatedCheckoutTimeAdder = new LongAdder();
+  final LongAdder claimedOverdueConnectionCountAdder = new LongAdder();
+  final LongAdder accumulatedCheckoutTimeOfOverdueConnectionsAdder = new LongAdder();
+  final LongAdder accumulatedWaitTimeAdder = new LongAdder();
+  final LongAdder hadToWaitCountAdder = new LongAdder();
+  final LongAdder badConnectionCountAdder = new LongAdder();
+  protected final LongAdder preparedStatementHitCount = new LongAdder();
+  protected final LongAdder preparedStatementMissCount = new LongAdder();
+  protected final LatencyHistogram checkoutTimeHistogram = new LatencyHistogram();
+  protected final LatencyHistogram holdTimeHistogram = new LatencyHistogram();
+  protected final LatencyHistogram creationTimeHistogram = new LatencyHistogram();
+
+  // Structures used when concurrent checkout is enabled (see PooledDataSource#setPoolConcurrentCheckoutEnabled)
+  protected final ConcurrentLinkedDeque<PooledConnection> idleConnectionBag = new ConcurrentLinkedDeque<>();
+  protected final Set<PooledConnection> activeConnectionBag = ConcurrentHashMap.newKeySet();
+  protected final AtomicInteger idleConnectionBagCount = new AtomicInteger();
+  protected final AtomicInteger claimedIdleConnectionBagCount = new AtomicInteger();
+  protected final AtomicInteger activeConnectionBagCount = new AtomicInteger();
+  protected final AtomicInteger waitingThreadCount = new AtomicInteger();
+  protected final SynchronousQueue<PooledConnection> handoffQueue = new SynchronousQueue<>(true);
+  protected final ThreadLocal<WeakReference<PooledConnection>> lastUsedConnection = new ThreadLocal<>();
 
   public PoolState(PooledDataSource dataSource) {
     this.dataSource = dataSource;
   }
 
-  public synchronized long getRequestCount() {
-    return requestCount;
+  public long getRequestCount() {
+    return requestCount + requestCountAdder.sum();
   }
 
-  public synchronized long getAverageRequestTime() {
-    return requestCount == 0 ? 0 : accumulatedRequestTime / requestCount;
+  public long getAverageRequestTime() {
+    long count = getRequestCount();
+    return count == 0 ? 0 : (accumulatedRequestTime + accumulatedRequestTimeAdder.sum()) / count;
   }
 
-  public synchronized long getAverageWaitTime() {
-    return hadToWaitCount == 0 ? 0 : accumulatedWaitTime / hadToWaitCount;
+  public long getAverageWaitTime() {
+    long count = getHadToWaitCount();
+    return count == 0 ? 0 : (accumulatedWaitTime + accumulatedWaitTimeAdder.sum()) / count;
 
   }
 
-  public synchronized long getHadToWaitCount() {
-    return hadToWaitCount;
+  public long getHadToWaitCount() {
+    return hadToWaitCount + hadToWaitCountAdder.sum();
   }
 
-  public synchronized long getBadConnectionCount() {
-    return badConnectionCount;
+  public long getBadConnectionCount() {
+    return badConnectionCount + badConnectionCountAdder.sum();
   }
 
-  public synchronized long getClaimedOverdueConnectionCount() {
-    return claimedOverdueConnectionCount;
+  /**
+   * Returns the number of prepared statements reused from the statement cache of a connection.
+   *
+   * @since 3.5.2
+   * @see PooledDataSource#setPoolPreparedStatements(boolean)
+   */
+  public long getPreparedStatementHitCount() {
+    return preparedStatementHitCount.sum();
   }
 
-  public synchronized long getAverageOverdueCheckoutTime() {
-    return claimedOverdueConnectionCount == 0 ? 0 : accumulatedCheckoutTimeOfOverdueConnections / claimedOverdueConnectionCount;
+  /**
+   * Returns the number of prepared statements that were not found in the statement cache of a connection.
+   *
+   * @since 3.5.2
+   * @see PooledDataSource#setPoolPreparedStatements(boolean)
+   */
+  public long getPreparedStatementMissCount() {
+    return preparedStatementMissCount.sum();
   }
 
-  public synchronized long getAverageCheckoutTime() {
-    return requestCount == 0 ? 0 : accumulatedCheckoutTime / requestCount;
+  public long getClaimedOverdueConnectionCount() {
+    return claimedOverdueConnectionCount + claimedOverdueConnectionCountAdder.sum();
   }
 
+  public long getAverageOverdueCheckoutTime() {
+    long count = getClaimedOverdueConnectionCount();
+    return count == 0 ? 0
+        : (accumulatedCheckoutTimeOfOverdueConnections + accumulatedCheckoutTimeOfOverdueConnectionsAdder.sum()) / count;
+  }
+
+  public long getAverageCheckoutTime() {
+    long count = getRequestCount();
+    return count == 0 ? 0 : (accumulatedCheckoutTime + accumulatedCheckoutTimeAdder.sum()) / count;
+  }
+
+
+  /**
+   * Takes a copy of the pool statistics, including the checkout, hold and creation time histograms.
+   *
+   * @return the snapshot
+   * @since 3.5.2
+   */
+  public PoolSnapshot snapshot() {
+    return new PoolSnapshot(this);
+  }
 
-  public synchronized int getIdleConnectionCount() {
-    return idleConnections.size();
+  public int getIdleConnectionCount() {
+    if (dataSource.isPoolConcurrentCheckoutEnabled()) {
+      return idleConnectionBagCount.get();
+    }
+    synchronized (this) {
+      return idleConnections.size();
+    }
   }
 
-  public synchronized int getActiveConnectionCount() {
-    return activeConnections.size();
+  public int getActiveConnectionCount() {
+    if (dataSource.isPoolConcurrentCheckoutEnabled()) {
+      return activeConnectionBagCount.get();
+    }
+    synchronized (this) {
+      return activeConnections.size();
+    }
   }
 
   @Override
-  public synchronized String toString() {
+  public String toString() {
     StringBuilder builder = new StringBuilder();
     builder.append("\n===CONFINGURATION==============================================");
     builder.append("\n jdbcDriver                     ").append(dataSource.getDriver());
@@ -98,6 +177,13 @@ public class PoolState {
     builder.append("\n poolPingEnabled                ").append(dataSource.poolPingEnabled);
     builder.append("\n poolPingQuery                  ").append(dataSource.poolPingQuery);
     builder.append("\n poolPingConnectionsNotUsedFor  ").append(dataSource.poolPingConnectionsNotUsedFor);
+    builder.append("\n poolConcurrentCheckoutEnabled  ").append(dataSource.poolConcurrentCheckoutEnabled);
+    builder.append("\n poolMinIdleConnections         ").append(dataSource.poolMinimumIdleConnections);
+    builder.append("\n poolMaxLifetime                ").append(dataSource.poolMaxLifetime);
+    builder.append("\n poolIdleTimeout                ").append(dataSource.poolIdleTimeout);
+    builder.append("\n poolHousekeepingPeriod         ").append(dataSource.poolHousekeepingPeriod);
+    builder.append("\n poolPreparedStatements         ").append(dataSource.poolPreparedStatements);
+    builder.append("\n maxOpenPreparedStatements      ").append(dataSource.maxOpenPreparedStatements);
     builder.append("\n ---STATUS-----------------------------------------------------");
     builder.append("\n activeConnections              ").append(getActiveConnectionCount());
     builder.append("\n idleConnections                ").append(getIdleConnectionCount());
@@ -109,6 +195,11 @@ public class PoolState {
     builder.append("\n hadToWait                      ").append(getHadToWaitCount());
     builder.append("\n averageWaitTime                ").append(getAverageWaitTime());
     builder.append("\n badConnectionCount             ").append(getBadConnectionCount());
+    builder.append("\n preparedStatementHits          ").append(getPreparedStatementHitCount());
+    builder.append("\n preparedStatementMisses        ").append(getPreparedStatementMissCount());
+    builder.append("\n checkoutTimeMicros             ").append(checkoutTimeHistogram.snapshot());
+    builder.append("\n holdTimeMicros                 ").append(holdTimeHistogram.snapshot());
+    builder.append("\n creationTimeMicros             ").append(creationTimeHistogram.snapshot());
     builder.append("\n===============================================================");
     return builder.toString();
   }
@@ -1,5 +1,5 @@
 /**
- *    Copyright 2009-2019 the original author or authors.
+ *    Copyright 2009-2026 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -20,6 +20,7 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import org.apache.ibatis.reflection.ExceptionUtil;
 
@@ -29,17 +30,29 @@ import org.apache.ibatis.reflection.ExceptionUtil;
 class PooledConnection implements InvocationHandler {
 
   private static final String CLOSE = "close";
+  private static final String PREPARE_STATEMENT = "prepareStatement";
   private static final Class<?>[] IFACES = new Class<?>[] { Connection.class };
 
+  static final int STATE_NOT_IN_USE = 0;
+  static final int STATE_IN_USE = 1;
+  static final int STATE_REMOVED = -1;
+
+  private static final AtomicIntegerFieldUpdater<PooledConnection> STATE_UPDATER =
+      AtomicIntegerFieldUpdater.newUpdater(PooledConnection.class, "bagState");
+
   private final int hashCode;
   private final PooledDataSource dataSource;
   private final Connection realConnection;
   private final Connection proxyConnection;
   private long checkoutTimestamp;
+  private long checkoutNanoTime;
   private long createdTimestamp;
   private long lastUsedTimestamp;
+  private long lastValidatedTimestamp;
   private int connectionTypeCode;
   private boolean valid;
+  private PreparedStatementCache preparedStatementCache;
+  private volatile int bagState = STATE_NOT_IN_USE;
 
   /**
    * Constructor for SimplePooledConnection that uses the Connection and PooledDataSource passed in.
@@ -64,6 +77,15 @@ class PooledConnection implements InvocationHandler {
     valid = false;
   }
 
+  /**
+   * Method to see if the connection was invalidated, without validating it against the database.
+   *
+   * @return True if the connection was invalidated
+   */
+  boolean isInvalidated() {
+    return !valid;
+  }
+
   /**
    * Method to see if the connection is usable.
    *
@@ -73,6 +95,26 @@ class PooledConnection implements InvocationHandler {
     return valid && realConnection != null && dataSource.pingConnection(this);
   }
 
+  /**
+   * Atomically moves this connection from one concurrent pool state to another.
+   *
+   * @param expect - the expected current state
+   * @param update - the new state
+   * @return True if the state was changed
+   */
+  boolean compareAndSetState(int expect, int update) {
+    return STATE_UPDATER.compareAndSet(this, expect, update);
+  }
+
+  /**
+   * Getter for the concurrent pool state of this connection.
+   *
+   * @return The state
+   */
+  int getState() {
+    return bagState;
+  }
+
   /**
    * Getter for the *real* connection that this wraps.
    *
@@ -163,6 +205,24 @@ class PooledConnection implements InvocationHandler {
     return System.currentTimeMillis() - lastUsedTimestamp;
   }
 
+  /**
+   * Setter for the time that the connection was last validated with the ping query.
+   *
+   * @param lastValidatedTimestamp - the timestamp
+   */
+  public void setLastValidatedTimestamp(long lastValidatedTimestamp) {
+    this.lastValidatedTimestamp = lastValidatedTimestamp;
+  }
+
+  /**
+   * Getter for the time since this connection was last used or validated, whichever is more recent.
+   *
+   * @return - the time since the last use or validation
+   */
+  public long getTimeElapsedSinceLastValidation() {
+    return System.currentTimeMillis() - Math.max(lastUsedTimestamp, lastValidatedTimestamp);
+  }
+
   /**
    * Getter for the age of the connection.
    *
@@ -190,6 +250,24 @@ class PooledConnection implements InvocationHandler {
     this.checkoutTimestamp = timestamp;
   }
 
+  /**
+   * Getter for the {@link System#nanoTime()} value at which this connection was checked out.
+   *
+   * @return the nano time
+   */
+  public long getCheckoutNanoTime() {
+    return checkoutNanoTime;
+  }
+
+  /**
+   * Setter for the {@link System#nanoTime()} value at which this connection was checked out.
+   *
+   * @param checkoutNanoTime the nano time
+   */
+  public void setCheckoutNanoTime(long checkoutNanoTime) {
+    this.checkoutNanoTime = checkoutNanoTime;
+  }
+
   /**
    * Getter for the time that this connection has been checked out.
    *
@@ -199,6 +277,24 @@ class PooledConnection implements InvocationHandler {
     return System.currentTimeMillis() - checkoutTimestamp;
   }
 
+  /**
+   * Getter for the prepared statements cached on the real connection.
+   *
+   * @return the cache, or null if no statement was prepared through it
+   */
+  PreparedStatementCache getPreparedStatementCache() {
+    return preparedStatementCache;
+  }
+
+  /**
+   * Setter for the prepared statements cached on the real connection, handed over when the connection is wrapped again.
+   *
+   * @param preparedStatementCache - the cache
+   */
+  void setPreparedStatementCache(PreparedStatementCache preparedStatementCache) {
+    this.preparedStatementCache = preparedStatementCache;
+  }
+
   @Override
   public int hashCode() {
     return hashCode;
@@ -241,6 +337,14 @@ class PooledConnection implements InvocationHandler {
         // issue #579 toString() should never fail
         // throw an SQLException instead of a Runtime
         checkConnection();
+        if (dataSource.poolPreparedStatements
+            && PREPARE_STATEMENT.hashCode() == methodName.hashCode() && PREPARE_STATEMENT.equals(methodName)) {
+          if (preparedStatementCache == null) {
+            preparedStatementCache = new PreparedStatementCache(realConnection, dataSource.getPoolState(),
+                dataSource.maxOpenPreparedStatements);
+          }
+          return preparedStatementCache.prepareStatement(this, method, args);
+        }
       }
       return method.invoke(realConnection, args);
     } catch (Throwable t) {
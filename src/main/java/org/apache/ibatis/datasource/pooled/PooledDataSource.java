@@ -1,5 +1,5 @@
 /**
- *    Copyright 2009-2019 the original author or authors.
+ *    Copyright 2009-2026 the original author or authors.
  *
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
@@ -21,13 +21,21 @@ import org.apache.ibatis.logging.LogFactory;
 
 import javax.sql.DataSource;
 import java.io.PrintWriter;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.logging.Logger;
 
 /**
@@ -41,6 +49,12 @@ public class PooledDataSource implements DataSource {
 
   private static final Log log = LogFactory.getLog(PooledDataSource.class);
 
+  /**
+   * The maximum time in milliseconds a waiting thread polls for a handed off connection before
+   * it looks for an idle connection again.
+   */
+  private static final long HANDOFF_POLL_INTERVAL = 10;
+
   private final PoolState state = new PoolState(this);
 
   private final UnpooledDataSource dataSource;
@@ -54,6 +68,16 @@ public class PooledDataSource implements DataSource {
   protected String poolPingQuery = "NO PING QUERY SET";
   protected boolean poolPingEnabled;
   protected int poolPingConnectionsNotUsedFor;
+  protected boolean poolConcurrentCheckoutEnabled;
+  protected int poolMinimumIdleConnections;
+  protected int poolMaxLifetime;
+  protected int poolIdleTimeout;
+  protected int poolHousekeepingPeriod = 30000;
+  protected boolean poolPreparedStatements;
+  protected int maxOpenPreparedStatements = 50;
+
+  private volatile PoolHousekeeper housekeeper;
+  private final List<PoolListener> listeners = new CopyOnWriteArrayList<>();
 
   private int expectedConnectionTypeCode;
 
@@ -253,6 +277,106 @@ public class PooledDataSource implements DataSource {
     forceCloseAll();
   }
 
+  /**
+   * Determines if connections are checked out and returned without locking the whole pool.
+   * When enabled, idle connections are kept in a lock-free bag with a per-thread
+   * last-used connection, and waiting threads are handed returned connections directly.
+   *
+   * @param poolConcurrentCheckoutEnabled True to use the concurrent checkout mode
+   * @since 3.5.2
+   */
+  public void setPoolConcurrentCheckoutEnabled(boolean poolConcurrentCheckoutEnabled) {
+    forceCloseAll();
+    this.poolConcurrentCheckoutEnabled = poolConcurrentCheckoutEnabled;
+  }
+
+  /**
+   * The minimum number of idle connections the background housekeeper keeps open.
+   *
+   * @param poolMinimumIdleConnections The minimum number of idle connections
+   * @since 3.5.2
+   */
+  public void setPoolMinimumIdleConnections(int poolMinimumIdleConnections) {
+    this.poolMinimumIdleConnections = poolMinimumIdleConnections;
+    stopHousekeeper();
+  }
+
+  /**
+   * The maximum time in milliseconds a connection is kept open. Older connections are closed
+   * when returned to the pool or by the background housekeeper. 0 means no limit.
+   *
+   * @param poolMaxLifetime The maximum lifetime
+   * @since 3.5.2
+   */
+  public void setPoolMaxLifetime(int poolMaxLifetime) {
+    this.poolMaxLifetime = poolMaxLifetime;
+    stopHousekeeper();
+  }
+
+  /**
+   * The time in milliseconds after which the background housekeeper closes an unused idle
+   * connection, as long as more than the minimum number of idle connections are open. 0 means never.
+   *
+   * @param poolIdleTimeout The idle timeout
+   * @since 3.5.2
+   */
+  public void setPoolIdleTimeout(int poolIdleTimeout) {
+    this.poolIdleTimeout = poolIdleTimeout;
+    stopHousekeeper();
+  }
+
+  /**
+   * The delay in milliseconds between two runs of the background housekeeper.
+   *
+   * @param poolHousekeepingPeriod The housekeeping period
+   * @since 3.5.2
+   */
+  public void setPoolHousekeepingPeriod(int poolHousekeepingPeriod) {
+    this.poolHousekeepingPeriod = poolHousekeepingPeriod;
+    stopHousekeeper();
+  }
+
+  /**
+   * Determines if the prepared statements of a connection are kept open when closed, so that preparing the same
+   * statement again on that connection reuses them, even after the connection was returned to the pool.
+   *
+   * @param poolPreparedStatements True to cache prepared statements
+   * @since 3.5.2
+   */
+  public void setPoolPreparedStatements(boolean poolPreparedStatements) {
+    forceCloseAll();
+    this.poolPreparedStatements = poolPreparedStatements;
+  }
+
+  /**
+   * The maximum number of closed prepared statements kept open per connection. When exceeded, the least recently
+   * used statement is closed.
+   *
+   * @param maxOpenPreparedStatements The maximum number of cached statements per connection
+   * @since 3.5.2
+   */
+  public void setMaxOpenPreparedStatements(int maxOpenPreparedStatements) {
+    forceCloseAll();
+    this.maxOpenPreparedStatements = maxOpenPreparedStatements;
+  }
+
+  /**
+   * Registers a listener that is notified of connection checkouts, returns and creations.
+   *
+   * @param listener the listener
+   * @since 3.5.2
+   */
+  public void addPoolListener(PoolListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public void removePoolListener(PoolListener listener) {
+    listeners.remove(listener);
+  }
+
   public String getDriver() {
     return dataSource.getDriver();
   }
@@ -321,37 +445,90 @@ public class PooledDataSource implements DataSource {
   }
 
   /**
-   * Closes all active and idle connections in the pool.
+   * @since 3.5.2
+   */
+  public boolean isPoolConcurrentCheckoutEnabled() {
+    return poolConcurrentCheckoutEnabled;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public int getPoolMinimumIdleConnections() {
+    return poolMinimumIdleConnections;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public int getPoolMaxLifetime() {
+    return poolMaxLifetime;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public int getPoolIdleTimeout() {
+    return poolIdleTimeout;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public int getPoolHousekeepingPeriod() {
+    return poolHousekeepingPeriod;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public boolean isPoolPreparedStatements() {
+    return poolPreparedStatements;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public int getMaxOpenPreparedStatements() {
+    return maxOpenPreparedStatements;
+  }
+
+  /**
+   * Stops the background housekeeper and closes all active and idle connections in the pool.
+   * The pool is opened again by the next checkout.
+   *
+   * @since 3.5.2
+   */
+  public void close() {
+    forceCloseAll();
+  }
+
+  /**
+   * Closes all active and idle connections in the pool, and stops the background housekeeper
+   * until the next checkout.
    */
   public void forceCloseAll() {
+    stopHousekeeper();
     synchronized (state) {
       expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
       for (int i = state.activeConnections.size(); i > 0; i--) {
-        try {
-          PooledConnection conn = state.activeConnections.remove(i - 1);
-          conn.invalidate();
-
-          Connection realConn = conn.getRealConnection();
-          if (!realConn.getAutoCommit()) {
-            realConn.rollback();
-          }
-          realConn.close();
-        } catch (Exception e) {
-          // ignore
-        }
+        closeConnection(state.activeConnections.remove(i - 1));
       }
       for (int i = state.idleConnections.size(); i > 0; i--) {
-        try {
-          PooledConnection conn = state.idleConnections.remove(i - 1);
-          conn.invalidate();
-
-          Connection realConn = conn.getRealConnection();
-          if (!realConn.getAutoCommit()) {
-            realConn.rollback();
-          }
-          realConn.close();
-        } catch (Exception e) {
-          // ignore
+        closeConnection(state.idleConnections.remove(i - 1));
+      }
+      for (PooledConnection conn : state.activeConnectionBag) {
+        if (conn.compareAndSetState(PooledConnection.STATE_IN_USE, PooledConnection.STATE_REMOVED)) {
+          state.activeConnectionBag.remove(conn);
+          state.activeConnectionBagCount.decrementAndGet();
+          closeConnection(conn);
+        }
+      }
+      PooledConnection conn;
+      while ((conn = state.idleConnectionBag.pollFirst()) != null) {
+        if (conn.compareAndSetState(PooledConnection.STATE_NOT_IN_USE, PooledConnection.STATE_REMOVED)) {
+          state.idleConnectionBagCount.decrementAndGet();
+          closeConnection(conn);
         }
       }
     }
@@ -360,15 +537,223 @@ public class PooledDataSource implements DataSource {
     }
   }
 
+  void closeConnection(PooledConnection conn) {
+    try {
+      conn.invalidate();
+
+      Connection realConn = conn.getRealConnection();
+      if (!realConn.getAutoCommit()) {
+        realConn.rollback();
+      }
+      realConn.close();
+    } catch (Exception e) {
+      // ignore
+    }
+  }
+
   public PoolState getPoolState() {
     return state;
   }
 
+  /**
+   * Starts the background housekeeper on first use when min-idle, max-lifetime or idle-timeout is configured.
+   */
+  private void startHousekeeperIfNeeded() {
+    if (housekeeper == null && (poolMinimumIdleConnections > 0 || poolMaxLifetime > 0 || poolIdleTimeout > 0)) {
+      synchronized (this) {
+        if (housekeeper == null) {
+          PoolHousekeeper newHousekeeper = new PoolHousekeeper(this, poolHousekeepingPeriod);
+          newHousekeeper.start();
+          housekeeper = newHousekeeper;
+        }
+      }
+    }
+  }
+
+  private synchronized void stopHousekeeper() {
+    if (housekeeper != null) {
+      housekeeper.stop();
+      housekeeper = null;
+    }
+  }
+
+  private void requestRefillIfNeeded() {
+    PoolHousekeeper current = housekeeper;
+    if (current != null && state.getIdleConnectionCount() < poolMinimumIdleConnections) {
+      current.requestRefill();
+    }
+  }
+
+  /**
+   * Notifies the listeners, which must be done without holding the pool. A failing listener is logged,
+   * so that it cannot leak the connection being checked out or returned.
+   */
+  private void fireEvent(Consumer<PoolListener> event) {
+    for (PoolListener listener : listeners) {
+      try {
+        event.accept(listener);
+      } catch (RuntimeException e) {
+        log.warn("Pool listener " + listener + " failed: " + e);
+      }
+    }
+  }
+
+  private void fireConnectionWaitTimedOut() {
+    fireEvent(PoolListener::connectionWaitTimedOut);
+  }
+
+  private void fireConnectionCreated(long creationTime) {
+    state.creationTimeHistogram.record(creationTime);
+    fireEvent(listener -> listener.connectionCreated(creationTime));
+  }
+
+  private boolean isExpired(PooledConnection conn) {
+    return poolMaxLifetime > 0 && conn.getAge() > poolMaxLifetime;
+  }
+
+  /**
+   * Reserves the slot of a connection to be opened outside of a checkout, if the pool holds fewer
+   * than the maximum number of active connections. A reserved slot counts as an active connection
+   * until it is released by {@link #returnIdleConnection(PooledConnection)},
+   * {@link #discardIdleConnection(PooledConnection)} or {@link #releaseConnectionSlot()}.
+   *
+   * @return True if a slot was reserved
+   */
+  boolean reserveConnectionSlot() {
+    if (poolConcurrentCheckoutEnabled) {
+      for (;;) {
+        int count = state.activeConnectionBagCount.get();
+        if (count + state.idleConnectionBagCount.get() >= poolMaximumActiveConnections) {
+          return false;
+        }
+        if (state.activeConnectionBagCount.compareAndSet(count, count + 1)) {
+          return true;
+        }
+      }
+    }
+    synchronized (state) {
+      if (state.idleConnections.size() + state.activeConnections.size() + state.reservedConnectionCount >= poolMaximumActiveConnections) {
+        return false;
+      }
+      state.reservedConnectionCount++;
+      return true;
+    }
+  }
+
+  void releaseConnectionSlot() {
+    if (poolConcurrentCheckoutEnabled) {
+      state.activeConnectionBagCount.decrementAndGet();
+    } else {
+      synchronized (state) {
+        state.reservedConnectionCount--;
+        state.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Removes at most {@code limit} idle connections accepted by the filter from the pool, so they can be maintained
+   * without holding the pool. Each of them keeps a reserved slot until it is handed back with
+   * {@link #returnIdleConnection(PooledConnection)} or closed with {@link #discardIdleConnection(PooledConnection)}.
+   */
+  List<PooledConnection> takeIdleConnections(Predicate<PooledConnection> filter, int limit) {
+    List<PooledConnection> taken = new ArrayList<>();
+    if (poolConcurrentCheckoutEnabled) {
+      for (PooledConnection conn : state.idleConnectionBag) {
+        if (taken.size() >= limit) {
+          break;
+        }
+        if (conn.getState() == PooledConnection.STATE_NOT_IN_USE && filter.test(conn)
+            && conn.compareAndSetState(PooledConnection.STATE_NOT_IN_USE, PooledConnection.STATE_IN_USE)) {
+          state.activeConnectionBagCount.incrementAndGet();
+          state.idleConnectionBagCount.decrementAndGet();
+          state.idleConnectionBag.remove(conn);
+          taken.add(conn);
+        }
+      }
+    } else {
+      synchronized (state) {
+        for (Iterator<PooledConnection> it = state.idleConnections.iterator(); it.hasNext() && taken.size() < limit;) {
+          PooledConnection conn = it.next();
+          if (filter.test(conn)) {
+            it.remove();
+            state.reservedConnectionCount++;
+            taken.add(conn);
+          }
+        }
+      }
+    }
+    return taken;
+  }
+
+  /**
+   * Adds a connection holding a reserved slot to the idle connections, or closes it when the pool
+   * is full or the connection no longer matches the pool configuration, and releases the slot.
+   *
+   * @return True if the connection was added to the pool
+   */
+  boolean returnIdleConnection(PooledConnection conn) {
+    boolean added = false;
+    if (conn.getConnectionTypeCode() == expectedConnectionTypeCode && !isExpired(conn)) {
+      if (poolConcurrentCheckoutEnabled) {
+        conn.compareAndSetState(conn.getState(), PooledConnection.STATE_NOT_IN_USE);
+        added = offerIdleConnection(conn);
+      } else {
+        synchronized (state) {
+          if (state.idleConnections.size() < poolMaximumIdleConnections) {
+            state.idleConnections.add(conn);
+            state.reservedConnectionCount--;
+            state.notifyAll();
+            added = true;
+          }
+        }
+      }
+    }
+    if (!added) {
+      discardIdleConnection(conn);
+    }
+    return added;
+  }
+
+  /**
+   * Closes a connection holding a reserved slot and releases the slot.
+   */
+  void discardIdleConnection(PooledConnection conn) {
+    closeConnection(conn);
+    releaseConnectionSlot();
+  }
+
+  /**
+   * Opens a new physical connection that is not yet part of the pool.
+   */
+  PooledConnection openConnection() throws SQLException {
+    long start = System.nanoTime();
+    PooledConnection conn = newConnection();
+    fireConnectionCreated((System.nanoTime() - start) / 1000);
+    return conn;
+  }
+
+  private PooledConnection newConnection() throws SQLException {
+    PooledConnection conn = new PooledConnection(dataSource.getConnection(), this);
+    conn.setConnectionTypeCode(expectedConnectionTypeCode);
+    if (log.isDebugEnabled()) {
+      log.debug("Created connection " + conn.getRealHashCode() + ".");
+    }
+    return conn;
+  }
+
   private int assembleConnectionTypeCode(String url, String username, String password) {
     return ("" + url + username + password).hashCode();
   }
 
   protected void pushConnection(PooledConnection conn) throws SQLException {
+    long holdTime = (System.nanoTime() - conn.getCheckoutNanoTime()) / 1000;
+    state.holdTimeHistogram.record(holdTime);
+    fireEvent(listener -> listener.connectionReturned(holdTime));
+    if (poolConcurrentCheckoutEnabled) {
+      pushConnectionConcurrently(conn);
+      return;
+    }
 
     synchronized (state) {
       state.activeConnections.remove(conn);
@@ -379,8 +764,9 @@ public class PooledDataSource implements DataSource {
         // 当所有的连接被占满后，Mybatis为了保持一定的空闲连接，会不断获取新的连接，
         // 然后这些新连接被占用后，就会再去new PooledConnection，
         // 结果就是超过了mysql设置的最大连接数，然后数据库返回该错误
-        if (state.idleConnections.size() < poolMaximumIdleConnections && conn.getConnectionTypeCode() == expectedConnectionTypeCode) {
-          state.accumulatedCheckoutTime += conn.getCheckoutTime();
+        if (state.idleConnections.size() < poolMaximumIdleConnections && conn.getConnectionTypeCode() == expectedConnectionTypeCode
+            && !isExpired(conn)) {
+          state.accumulatedCheckoutTimeAdder.add(conn.getCheckoutTime());
           if (!conn.getRealConnection().getAutoCommit()) {
             conn.getRealConnection().rollback();
           }
@@ -388,13 +774,15 @@ public class PooledDataSource implements DataSource {
           state.idleConnections.add(newConn);
           newConn.setCreatedTimestamp(conn.getCreatedTimestamp());
           newConn.setLastUsedTimestamp(conn.getLastUsedTimestamp());
+          newConn.setConnectionTypeCode(conn.getConnectionTypeCode());
+          newConn.setPreparedStatementCache(conn.getPreparedStatementCache());
           conn.invalidate();
           if (log.isDebugEnabled()) {
             log.debug("Returned connection " + newConn.getRealHashCode() + " to pool.");
           }
           state.notifyAll();
         } else {
-          state.accumulatedCheckoutTime += conn.getCheckoutTime();
+          state.accumulatedCheckoutTimeAdder.add(conn.getCheckoutTime());
           if (!conn.getRealConnection().getAutoCommit()) {
             conn.getRealConnection().rollback();
           }
@@ -408,12 +796,25 @@ public class PooledDataSource implements DataSource {
         if (log.isDebugEnabled()) {
           log.debug("A bad connection (" + conn.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
         }
-        state.badConnectionCount++;
+        state.badConnectionCountAdder.increment();
       }
     }
   }
 
   private PooledConnection popConnection(String username, String password) throws SQLException {
+    startHousekeeperIfNeeded();
+    long start = System.nanoTime();
+    PooledConnection conn = poolConcurrentCheckoutEnabled
+        ? popConnectionConcurrently(username, password) : popConnectionSynchronously(username, password);
+    conn.setCheckoutNanoTime(System.nanoTime());
+    long checkoutTime = (conn.getCheckoutNanoTime() - start) / 1000;
+    state.checkoutTimeHistogram.record(checkoutTime);
+    fireEvent(listener -> listener.connectionCheckedOut(checkoutTime));
+    requestRefillIfNeeded();
+    return conn;
+  }
+
+  private PooledConnection popConnectionSynchronously(String username, String password) throws SQLException {
     boolean countedWait = false;
     PooledConnection conn = null;
     long t = System.currentTimeMillis();
@@ -421,6 +822,9 @@ public class PooledDataSource implements DataSource {
 
     //没有后期到连接J就一直循环
     while (conn == null) {
+      // listeners are notified once the pool is no longer held
+      long creationTime = -1;
+      boolean waitTimedOut = false;
       synchronized (state) {
         ///idleConnections  可用连接
         if (!state.idleConnections.isEmpty()) {
@@ -433,21 +837,21 @@ public class PooledDataSource implements DataSource {
         } else {
           // Pool does not have available connection 池没有可用的连接
           //
-          if (state.activeConnections.size() < poolMaximumActiveConnections) {
+          if (state.activeConnections.size() + state.reservedConnectionCount < poolMaximumActiveConnections) {
             // Can create new connection：可以创建新的连接
-            conn = new PooledConnection(dataSource.getConnection(), this);
-            if (log.isDebugEnabled()) {
-              log.debug("Created connection " + conn.getRealHashCode() + ".");
-            }
+            long start = System.nanoTime();
+            conn = newConnection();
+            creationTime = (System.nanoTime() - start) / 1000;
           } else {
             // Cannot create new connection：无法创建新连接
-            PooledConnection oldestActiveConnection = state.activeConnections.get(0);
-            long longestCheckoutTime = oldestActiveConnection.getCheckoutTime();
-            if (longestCheckoutTime > poolMaximumCheckoutTime) {
+            // the slots may all be reserved by the housekeeper, which hands them back shortly
+            PooledConnection oldestActiveConnection = state.activeConnections.isEmpty() ? null : state.activeConnections.get(0);
+            long longestCheckoutTime = oldestActiveConnection == null ? 0 : oldestActiveConnection.getCheckoutTime();
+            if (oldestActiveConnection != null && longestCheckoutTime > poolMaximumCheckoutTime) {
               // Can claim overdue connection：可以索赔过期的连接
-              state.claimedOverdueConnectionCount++;
-              state.accumulatedCheckoutTimeOfOverdueConnections += longestCheckoutTime;
-              state.accumulatedCheckoutTime += longestCheckoutTime;
+              state.claimedOverdueConnectionCountAdder.increment();
+              state.accumulatedCheckoutTimeOfOverdueConnectionsAdder.add(longestCheckoutTime);
+              state.accumulatedCheckoutTimeAdder.add(longestCheckoutTime);
               //过期删除
               state.activeConnections.remove(oldestActiveConnection);
               if (!oldestActiveConnection.getRealConnection().getAutoCommit()) {
@@ -469,6 +873,7 @@ public class PooledDataSource implements DataSource {
               conn = new PooledConnection(oldestActiveConnection.getRealConnection(), this);
               conn.setCreatedTimestamp(oldestActiveConnection.getCreatedTimestamp());
               conn.setLastUsedTimestamp(oldestActiveConnection.getLastUsedTimestamp());
+              conn.setPreparedStatementCache(oldestActiveConnection.getPreparedStatementCache());
               oldestActiveConnection.invalidate();//将老的连接变成无效
               if (log.isDebugEnabled()) {
                 log.debug("Claimed overdue connection " + conn.getRealHashCode() + ".");
@@ -477,7 +882,7 @@ public class PooledDataSource implements DataSource {
               // Must wait ：必须等待
               try {
                 if (!countedWait) {
-                  state.hadToWaitCount++;
+                  state.hadToWaitCountAdder.increment();
                   countedWait = true;
                 }
                 if (log.isDebugEnabled()) {
@@ -485,7 +890,9 @@ public class PooledDataSource implements DataSource {
                 }
                 long wt = System.currentTimeMillis();
                 state.wait(poolTimeToWait);
-                state.accumulatedWaitTime += System.currentTimeMillis() - wt;
+                long waited = System.currentTimeMillis() - wt;
+                state.accumulatedWaitTimeAdder.add(waited);
+                waitTimedOut = waited >= poolTimeToWait;
               } catch (InterruptedException e) {
                 break;
               }
@@ -503,13 +910,13 @@ public class PooledDataSource implements DataSource {
             conn.setLastUsedTimestamp(System.currentTimeMillis());
             //添加到活动链表中
             state.activeConnections.add(conn);
-            state.requestCount++;
-            state.accumulatedRequestTime += System.currentTimeMillis() - t;
+            state.requestCountAdder.increment();
+            state.accumulatedRequestTimeAdder.add(System.currentTimeMillis() - t);
           } else {
             if (log.isDebugEnabled()) {
               log.debug("A bad connection (" + conn.getRealHashCode() + ") was returned from the pool, getting another connection.");
             }
-            state.badConnectionCount++;
+            state.badConnectionCountAdder.increment();
             localBadConnectionCount++;
             conn = null;
             if (localBadConnectionCount > (poolMaximumIdleConnections + poolMaximumLocalBadConnectionTolerance)) {
@@ -521,7 +928,182 @@ public class PooledDataSource implements DataSource {
           }
         }
       }
+      if (creationTime >= 0) {
+        fireConnectionCreated(creationTime);
+      }
+      if (waitTimedOut) {
+        fireConnectionWaitTimedOut();
+      }
+    }
+
+    if (conn == null) {
+      if (log.isDebugEnabled()) {
+        log.debug("PooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
+      }
+      throw new SQLException("PooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
+    }
+
+    return conn;
+  }
+
+  private void pushConnectionConcurrently(PooledConnection conn) throws SQLException {
+    if (!conn.compareAndSetState(PooledConnection.STATE_IN_USE, PooledConnection.STATE_REMOVED)) {
+      // already claimed as overdue or closed by forceCloseAll()
+      if (log.isDebugEnabled()) {
+        log.debug("A bad connection (" + conn.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
+      }
+      state.badConnectionCountAdder.increment();
+      return;
+    }
+    state.activeConnectionBag.remove(conn);
+    // the slot is released once the connection is idle or closed, so that a refill cannot take it meanwhile
+    boolean slotHeld = true;
+    try {
+      if (conn.isValid()) {
+        state.accumulatedCheckoutTimeAdder.add(conn.getCheckoutTime());
+        if (!conn.getRealConnection().getAutoCommit()) {
+          conn.getRealConnection().rollback();
+        }
+        if (conn.getConnectionTypeCode() == expectedConnectionTypeCode && !isExpired(conn)) {
+          PooledConnection newConn = new PooledConnection(conn.getRealConnection(), this);
+          newConn.setCreatedTimestamp(conn.getCreatedTimestamp());
+          newConn.setLastUsedTimestamp(conn.getLastUsedTimestamp());
+          newConn.setConnectionTypeCode(conn.getConnectionTypeCode());
+          newConn.setPreparedStatementCache(conn.getPreparedStatementCache());
+          conn.invalidate();
+          if (offerIdleConnection(newConn)) {
+            slotHeld = false;
+            if (log.isDebugEnabled()) {
+              log.debug("Returned connection " + newConn.getRealHashCode() + " to pool.");
+            }
+            return;
+          }
+        }
+        conn.getRealConnection().close();
+        if (log.isDebugEnabled()) {
+          log.debug("Closed connection " + conn.getRealHashCode() + ".");
+        }
+        conn.invalidate();
+      } else {
+        if (log.isDebugEnabled()) {
+          log.debug("A bad connection (" + conn.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
+        }
+        state.badConnectionCountAdder.increment();
+      }
+    } finally {
+      if (slotHeld) {
+        state.activeConnectionBagCount.decrementAndGet();
+      }
+    }
+  }
+
+
+  /**
+   * Hands an unclaimed connection holding an active slot off to a waiting thread, which takes over
+   * the slot, or adds it to the idle connections and releases the slot.
+   *
+   * @return False if the pool already holds the maximum number of idle connections, the slot is then still held
+   */
+  private boolean offerIdleConnection(PooledConnection conn) {
+    if (state.waitingThreadCount.get() > 0 && state.handoffQueue.offer(conn)) {
+      return true;
+    }
+    if (state.idleConnectionBagCount.incrementAndGet() <= poolMaximumIdleConnections) {
+      state.idleConnectionBag.addLast(conn);
+      state.lastUsedConnection.set(new WeakReference<>(conn));
+      state.activeConnectionBagCount.decrementAndGet();
+      return true;
+    }
+    state.idleConnectionBagCount.decrementAndGet();
+    return false;
+  }
+
+  private PooledConnection popConnectionConcurrently(String username, String password) throws SQLException {
+    boolean countedWait = false;
+    long waitStart = 0;
+    PooledConnection conn = null;
+    long t = System.currentTimeMillis();
+    int localBadConnectionCount = 0;
 
+    while (conn == null) {
+      conn = claimIdleConnection();
+      if (conn != null) {
+        if (log.isDebugEnabled()) {
+          log.debug("Checked out connection " + conn.getRealHashCode() + " from pool.");
+        }
+      } else if (reserveActiveConnection()) {
+        try {
+          conn = openConnection();
+        } catch (SQLException e) {
+          state.activeConnectionBagCount.decrementAndGet();
+          throw e;
+        }
+      } else {
+        conn = claimOverdueConnection();
+        if (conn == null) {
+          // Must wait
+          if (!countedWait) {
+            state.hadToWaitCountAdder.increment();
+            countedWait = true;
+          }
+          if (waitStart == 0) {
+            waitStart = System.currentTimeMillis();
+            if (log.isDebugEnabled()) {
+              log.debug("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
+            }
+          }
+          long wt = System.currentTimeMillis();
+          state.waitingThreadCount.incrementAndGet();
+          try {
+            // a connection returned before this thread was registered as a waiter went to the idle connections,
+            // and one returned before it polls the handoff queue is found by the next attempt
+            conn = claimIdleConnection();
+            if (conn == null) {
+              conn = state.handoffQueue.poll(Math.min(poolTimeToWait, HANDOFF_POLL_INTERVAL), TimeUnit.MILLISECONDS);
+            }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            break;
+          } finally {
+            state.waitingThreadCount.decrementAndGet();
+          }
+          state.accumulatedWaitTimeAdder.add(System.currentTimeMillis() - wt);
+          if (conn == null) {
+            if (System.currentTimeMillis() - waitStart >= poolTimeToWait) {
+              fireConnectionWaitTimedOut();
+              waitStart = 0;
+            }
+            continue;
+          }
+        }
+      }
+      // ping to server and check the connection is valid or not
+      if (conn.isValid()) {
+        if (!conn.getRealConnection().getAutoCommit()) {
+          conn.getRealConnection().rollback();
+        }
+        conn.setConnectionTypeCode(assembleConnectionTypeCode(dataSource.getUrl(), username, password));
+        conn.setCheckoutTimestamp(System.currentTimeMillis());
+        conn.setLastUsedTimestamp(System.currentTimeMillis());
+        conn.compareAndSetState(conn.getState(), PooledConnection.STATE_IN_USE);
+        state.activeConnectionBag.add(conn);
+        state.requestCountAdder.increment();
+        state.accumulatedRequestTimeAdder.add(System.currentTimeMillis() - t);
+      } else {
+        if (log.isDebugEnabled()) {
+          log.debug("A bad connection (" + conn.getRealHashCode() + ") was returned from the pool, getting another connection.");
+        }
+        state.activeConnectionBagCount.decrementAndGet();
+        state.badConnectionCountAdder.increment();
+        localBadConnectionCount++;
+        conn = null;
+        if (localBadConnectionCount > (poolMaximumIdleConnections + poolMaximumLocalBadConnectionTolerance)) {
+          if (log.isDebugEnabled()) {
+            log.debug("PooledDataSource: Could not get a good connection to the database.");
+          }
+          throw new SQLException("PooledDataSource: Could not get a good connection to the database.");
+        }
+      }
     }
 
     if (conn == null) {
@@ -534,6 +1116,90 @@ public class PooledDataSource implements DataSource {
     return conn;
   }
 
+  /**
+   * Claims an idle connection and its active slot, preferring the one last returned by the current thread.
+   * Connections are claimed by a state transition, so an entry taken through the
+   * thread-local shortcut is left in the bag and skipped when another thread polls it.
+   * Such entries are purged once more than the maximum number of idle connections were
+   * claimed that way, which keeps the shortcut free of a linear search through the bag.
+   */
+  private PooledConnection claimIdleConnection() {
+    WeakReference<PooledConnection> ref = state.lastUsedConnection.get();
+    if (ref != null) {
+      state.lastUsedConnection.remove();
+      PooledConnection conn = ref.get();
+      if (conn != null && conn.compareAndSetState(PooledConnection.STATE_NOT_IN_USE, PooledConnection.STATE_IN_USE)) {
+        state.activeConnectionBagCount.incrementAndGet();
+        state.idleConnectionBagCount.decrementAndGet();
+        if (state.claimedIdleConnectionBagCount.incrementAndGet() > poolMaximumIdleConnections) {
+          // purge the entries left in the bag by connections claimed here
+          state.claimedIdleConnectionBagCount.set(0);
+          state.idleConnectionBag.removeIf(c -> c.getState() != PooledConnection.STATE_NOT_IN_USE);
+        }
+        return conn;
+      }
+    }
+    PooledConnection conn;
+    while ((conn = state.idleConnectionBag.pollFirst()) != null) {
+      if (conn.compareAndSetState(PooledConnection.STATE_NOT_IN_USE, PooledConnection.STATE_IN_USE)) {
+        state.activeConnectionBagCount.incrementAndGet();
+        state.idleConnectionBagCount.decrementAndGet();
+        return conn;
+      }
+    }
+    return null;
+  }
+
+  private boolean reserveActiveConnection() {
+    for (;;) {
+      int count = state.activeConnectionBagCount.get();
+      if (count >= poolMaximumActiveConnections) {
+        return false;
+      }
+      if (state.activeConnectionBagCount.compareAndSet(count, count + 1)) {
+        return true;
+      }
+    }
+  }
+
+  private PooledConnection claimOverdueConnection() throws SQLException {
+    PooledConnection oldestActiveConnection = null;
+    for (PooledConnection candidate : state.activeConnectionBag) {
+      if (oldestActiveConnection == null || candidate.getCheckoutTimestamp() < oldestActiveConnection.getCheckoutTimestamp()) {
+        oldestActiveConnection = candidate;
+      }
+    }
+    if (oldestActiveConnection == null) {
+      return null;
+    }
+    long longestCheckoutTime = oldestActiveConnection.getCheckoutTime();
+    if (longestCheckoutTime <= poolMaximumCheckoutTime
+        || !oldestActiveConnection.compareAndSetState(PooledConnection.STATE_IN_USE, PooledConnection.STATE_REMOVED)) {
+      return null;
+    }
+    // Can claim overdue connection
+    state.claimedOverdueConnectionCountAdder.increment();
+    state.accumulatedCheckoutTimeOfOverdueConnectionsAdder.add(longestCheckoutTime);
+    state.accumulatedCheckoutTimeAdder.add(longestCheckoutTime);
+    state.activeConnectionBag.remove(oldestActiveConnection);
+    if (!oldestActiveConnection.getRealConnection().getAutoCommit()) {
+      try {
+        oldestActiveConnection.getRealConnection().rollback();
+      } catch (SQLException e) {
+        log.debug("Bad connection. Could not roll back");
+      }
+    }
+    PooledConnection conn = new PooledConnection(oldestActiveConnection.getRealConnection(), this);
+    conn.setCreatedTimestamp(oldestActiveConnection.getCreatedTimestamp());
+    conn.setLastUsedTimestamp(oldestActiveConnection.getLastUsedTimestamp());
+    conn.setPreparedStatementCache(oldestActiveConnection.getPreparedStatementCache());
+    oldestActiveConnection.invalidate();
+    if (log.isDebugEnabled()) {
+      log.debug("Claimed overdue connection " + conn.getRealHashCode() + ".");
+    }
+    return conn;
+  }
+
   /**
    * Method to check to see if a connection is still usable
    *
@@ -541,6 +1207,28 @@ public class PooledDataSource implements DataSource {
    * @return True if the connection is still usable
    */
   protected boolean pingConnection(PooledConnection conn) {
+    if (poolPingEnabled && poolPingConnectionsNotUsedFor >= 0
+        && conn.getTimeElapsedSinceLastValidation() > poolPingConnectionsNotUsedFor) {
+      return validateConnection(conn);
+    }
+    try {
+      return !conn.getRealConnection().isClosed();
+    } catch (SQLException e) {
+      if (log.isDebugEnabled()) {
+        log.debug("Connection " + conn.getRealHashCode() + " is BAD: " + e.getMessage());
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Checks that a connection is open and, if the ping is enabled, runs the ping query
+   * regardless of when the connection was last used.
+   *
+   * @param conn - the connection to check
+   * @return True if the connection is still usable
+   */
+  boolean validateConnection(PooledConnection conn) {
     boolean result = true;
 
     try {
@@ -554,33 +1242,32 @@ public class PooledDataSource implements DataSource {
 
     if (result) {
       if (poolPingEnabled) {
-        if (poolPingConnectionsNotUsedFor >= 0 && conn.getTimeElapsedSinceLastUse() > poolPingConnectionsNotUsedFor) {
+        try {
+          if (log.isDebugEnabled()) {
+            log.debug("Testing connection " + conn.getRealHashCode() + " ...");
+          }
+          Connection realConn = conn.getRealConnection();
+          try (Statement statement = realConn.createStatement()) {
+            statement.executeQuery(poolPingQuery).close();
+          }
+          if (!realConn.getAutoCommit()) {
+            realConn.rollback();
+          }
+          result = true;
+          conn.setLastValidatedTimestamp(System.currentTimeMillis());
+          if (log.isDebugEnabled()) {
+            log.debug("Connection " + conn.getRealHashCode() + " is GOOD!");
+          }
+        } catch (Exception e) {
+          log.warn("Execution of ping query '" + poolPingQuery + "' failed: " + e.getMessage());
           try {
-            if (log.isDebugEnabled()) {
-              log.debug("Testing connection " + conn.getRealHashCode() + " ...");
-            }
-            Connection realConn = conn.getRealConnection();
-            try (Statement statement = realConn.createStatement()) {
-              statement.executeQuery(poolPingQuery).close();
-            }
-            if (!realConn.getAutoCommit()) {
-              realConn.rollback();
-            }
-            result = true;
-            if (log.isDebugEnabled()) {
-              log.debug("Connection " + conn.getRealHashCode() + " is GOOD!");
-            }
-          } catch (Exception e) {
-            log.warn("Execution of ping query '" + poolPingQuery + "' failed: " + e.getMessage());
-            try {
-              conn.getRealConnection().close();
-            } catch (Exception e2) {
-              //ignore
-            }
-            result = false;
-            if (log.isDebugEnabled()) {
-              log.debug("Connection " + conn.getRealHashCode() + " is BAD: " + e.getMessage());
-            }
+            conn.getRealConnection().close();
+          } catch (Exception e2) {
+            //ignore
+          }
+          result = false;
+          if (log.isDebugEnabled()) {
+            log.debug("Connection " + conn.getRealHashCode() + " is BAD: " + e.getMessage());
           }
         }
       }
@@ -605,6 +1292,7 @@ public class PooledDataSource implements DataSource {
   }
 
   protected void finalize() throws Throwable {
+    stopHousekeeper();
     forceCloseAll();
     super.finalize();
   }
@@ -0,0 +1,171 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.reflection.ExceptionUtil;
+
+/**
+ * The statement handed out by a {@link PreparedStatementCache}. Closing it closes the result sets it returned,
+ * clears the parameters and batch, restores the statement options changed since it was handed out and returns the
+ * real statement to the cache.
+ *
+ * @since 3.5.2
+ */
+class PooledPreparedStatement implements InvocationHandler {
+
+  private static final String CLOSE = "close";
+
+  /**
+   * The getters of the options a statement can be reset to, by setter.
+   */
+  private static final Map<Method, Method> OPTION_GETTERS;
+
+  static {
+    Map<Method, Method> getters = new HashMap<>();
+    for (Method setter : Statement.class.getMethods()) {
+      String name = setter.getName();
+      if (name.startsWith("set") && setter.getParameterCount() == 1) {
+        for (String prefix : new String[] { "get", "is" }) {
+          try {
+            getters.put(setter, Statement.class.getMethod(prefix + name.substring(3)));
+          } catch (NoSuchMethodException e) {
+            // try the next prefix
+          }
+        }
+      }
+    }
+    OPTION_GETTERS = Collections.unmodifiableMap(getters);
+  }
+
+  private final PreparedStatementCache cache;
+  private final PooledConnection owner;
+  private final CacheKey key;
+  private final PreparedStatement realStatement;
+  private final Map<Method, Object> changedOptions = new LinkedHashMap<>();
+  private final Set<ResultSet> resultSets = Collections.newSetFromMap(new IdentityHashMap<>());
+  private boolean batched;
+  private boolean reusable = true;
+  private boolean closed;
+
+  PooledPreparedStatement(PreparedStatementCache cache, PooledConnection owner, CacheKey key, PreparedStatement realStatement) {
+    this.cache = cache;
+    this.owner = owner;
+    this.key = key;
+    this.realStatement = realStatement;
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+    String methodName = method.getName();
+    if (CLOSE.hashCode() == methodName.hashCode() && CLOSE.equals(methodName)) {
+      close();
+      return null;
+    }
+    if (Object.class.equals(method.getDeclaringClass())) {
+      if ("equals".equals(methodName)) {
+        return proxy == args[0];
+      } else if ("hashCode".equals(methodName)) {
+        return System.identityHashCode(proxy);
+      }
+    } else if ("isClosed".equals(methodName)) {
+      return closed;
+    } else if (closed) {
+      throw new SQLException("Error accessing PooledPreparedStatement. Statement is closed.");
+    } else if ("getConnection".equals(methodName)) {
+      return owner.getProxyConnection();
+    } else if ("addBatch".equals(methodName)) {
+      // addBatch() is declared by PreparedStatement and addBatch(String) by Statement
+      batched = true;
+    } else if (Statement.class.equals(method.getDeclaringClass())) {
+      beforeStatementCall(method);
+    }
+    try {
+      Object result = method.invoke(realStatement, args);
+      if (result instanceof ResultSet) {
+        addResultSet((ResultSet) result);
+      }
+      return result;
+    } catch (Throwable t) {
+      throw ExceptionUtil.unwrapThrowable(t);
+    }
+  }
+
+  private void addResultSet(ResultSet resultSet) throws SQLException {
+    // only the result sets still open are kept, a statement has few of them at a time
+    Iterator<ResultSet> iterator = resultSets.iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next().isClosed()) {
+        iterator.remove();
+      }
+    }
+    resultSets.add(resultSet);
+  }
+
+  private void beforeStatementCall(Method method) throws Exception {
+    if ("closeOnCompletion".equals(method.getName())) {
+      reusable = false;
+    } else if (method.getName().startsWith("set")) {
+      Method getter = OPTION_GETTERS.get(method);
+      if (getter == null) {
+        reusable = false;
+      } else if (!changedOptions.containsKey(method)) {
+        changedOptions.put(method, getter.invoke(realStatement));
+      }
+    }
+  }
+
+  private void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    if (!reusable || owner.isInvalidated()) {
+      cache.closeStatement(realStatement);
+      return;
+    }
+    try {
+      for (ResultSet resultSet : resultSets) {
+        resultSet.close();
+      }
+      realStatement.clearParameters();
+      if (batched) {
+        realStatement.clearBatch();
+      }
+      for (Map.Entry<Method, Object> option : changedOptions.entrySet()) {
+        option.getKey().invoke(realStatement, option.getValue());
+      }
+      cache.returnStatement(key, realStatement);
+    } catch (Exception e) {
+      cache.closeStatement(realStatement);
+    }
+  }
+
+}
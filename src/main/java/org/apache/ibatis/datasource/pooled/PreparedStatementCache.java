@@ -0,0 +1,111 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.reflection.ExceptionUtil;
+
+/**
+ * The prepared statements kept open on a physical connection of the pool. Statements are handed out as
+ * {@link PooledPreparedStatement} proxies that return the real statement to this cache when closed.
+ * When more than the maximum number of statements are idle, the least recently used one is closed.
+ *
+ * @since 3.5.2
+ */
+class PreparedStatementCache {
+
+  private static final Class<?>[] IFACES = new Class<?>[] { PreparedStatement.class };
+
+  private final Connection realConnection;
+  private final PoolState state;
+  private final Map<CacheKey, PreparedStatement> idleStatements;
+
+  PreparedStatementCache(Connection realConnection, PoolState state, final int maxOpenStatements) {
+    this.realConnection = realConnection;
+    this.state = state;
+    this.idleStatements = new LinkedHashMap<CacheKey, PreparedStatement>(16, .75F, true) {
+      private static final long serialVersionUID = 3185862541287393471L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<CacheKey, PreparedStatement> eldest) {
+        boolean tooBig = size() > maxOpenStatements;
+        if (tooBig) {
+          closeStatement(eldest.getValue());
+        }
+        return tooBig;
+      }
+    };
+  }
+
+  /**
+   * Returns an idle statement prepared by the same method with the same arguments, or prepares a new one.
+   *
+   * @param owner - the pooled connection the statement is prepared on
+   * @param method - one of the {@code prepareStatement} methods of {@link Connection}
+   * @param args - the arguments of the method
+   * @return a proxy returning the statement to this cache when closed
+   */
+  PreparedStatement prepareStatement(PooledConnection owner, Method method, Object[] args) throws Throwable {
+    CacheKey key = new CacheKey(args);
+    PreparedStatement statement;
+    synchronized (this) {
+      statement = idleStatements.remove(key);
+    }
+    if (statement != null) {
+      state.preparedStatementHitCount.increment();
+    } else {
+      state.preparedStatementMissCount.increment();
+      try {
+        statement = (PreparedStatement) method.invoke(realConnection, args);
+      } catch (Throwable t) {
+        throw ExceptionUtil.unwrapThrowable(t);
+      }
+    }
+    PooledPreparedStatement handler = new PooledPreparedStatement(this, owner, key, statement);
+    return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), IFACES, handler);
+  }
+
+  /**
+   * Keeps a statement no longer used for a later call with the same key, or closes it when another statement
+   * is already kept for that key.
+   */
+  void returnStatement(CacheKey key, PreparedStatement statement) {
+    PreparedStatement replaced;
+    synchronized (this) {
+      replaced = idleStatements.putIfAbsent(key, statement);
+    }
+    if (replaced != null) {
+      closeStatement(statement);
+    }
+  }
+
+  void closeStatement(PreparedStatement statement) {
+    try {
+      statement.close();
+    } catch (SQLException e) {
+      // ignore
+    }
+  }
+
+}
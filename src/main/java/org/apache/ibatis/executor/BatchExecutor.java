@@ -17,11 +17,18 @@ package org.apache.ibatis.executor;
 
 import java.sql.BatchUpdateException;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
@@ -30,6 +37,8 @@ import org.apache.ibatis.executor.keygen.NoKeyGenerator;
 import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
@@ -42,10 +51,20 @@ public class BatchExecutor extends BaseExecutor {
 
   public static final int BATCH_UPDATE_RETURN_VALUE = Integer.MIN_VALUE + 1002;
 
+  private static final Pattern TARGET_TABLE_PATTERN = Pattern.compile(
+      "^\\s*(?:insert\\s+into|update|delete\\s+from|merge\\s+into)\\s+([\\w.$\"`\\[\\]]+)", Pattern.CASE_INSENSITIVE);
+
   private final List<Statement> statementList = new ArrayList<>();
   private final List<BatchResult> batchResultList = new ArrayList<>();
+  private final List<String> tableList = new ArrayList<>();
+  private final List<MultiRowInsert> multiRowInsertList = new ArrayList<>();
+  private final Map<String, Integer> tableRanks = new HashMap<>();
+  // the update counts of the batches flushed on reaching the batch size or bytes while no batch result handler is set
+  private final List<BatchResult> autoFlushedResults = new ArrayList<>();
   private String currentSql;
   private MappedStatement currentStatement;
+  private int pendingCount;
+  private long pendingBytes;
 
   public BatchExecutor(Configuration configuration, Transaction transaction) {
     super(configuration, transaction);
@@ -58,26 +77,174 @@ public class BatchExecutor extends BaseExecutor {
     final BoundSql boundSql = handler.getBoundSql();
     final String sql = boundSql.getSql();
     final Statement stmt;
-    if (sql.equals(currentSql) && ms.equals(currentStatement)) {
-      int last = statementList.size() - 1;
-      stmt = statementList.get(last);
-      applyTransactionTimeout(stmt);
-      handler.parameterize(stmt);//fix Issues 322
-      BatchResult batchResult = batchResultList.get(last);
+    final int index = sql.equals(currentSql) && ms.equals(currentStatement) ? statementList.size() - 1 : findEarlierBatch(ms, sql);
+    final MultiRowInsert multiRowInsert;
+    if (index >= 0) {
+      stmt = statementList.get(index);
+      multiRowInsert = multiRowInsertList.get(index);
+      if (multiRowInsert == null) {
+        applyTransactionTimeout(stmt);
+        handler.parameterize(stmt);//fix Issues 322
+      }
+      BatchResult batchResult = batchResultList.get(index);
       batchResult.addParameterObject(parameterObject);
     } else {
-      Connection connection = getConnection(ms.getStatementLog());
-      stmt = handler.prepare(connection, transaction.getTimeout());
-      handler.parameterize(stmt);    //fix Issues 322
+      multiRowInsert = configuration.isMultiRowInsertEnabled() ? MultiRowInsert.of(ms, boundSql) : null;
+      if (multiRowInsert == null) {
+        Connection connection = getConnection(ms.getStatementLog());
+        stmt = handler.prepare(connection, transaction.getTimeout());
+        handler.parameterize(stmt);    //fix Issues 322
+      } else {
+        // prepared when flushed
+        stmt = null;
+      }
       currentSql = sql;
       currentStatement = ms;
       statementList.add(stmt);
+      multiRowInsertList.add(multiRowInsert);
       batchResultList.add(new BatchResult(ms, sql, parameterObject));
+      final String table = getTargetTable(sql);
+      tableList.add(table);
+      if (table != null) {
+        tableRanks.putIfAbsent(table, tableRanks.size());
+      }
+    }
+    if (multiRowInsert == null) {
+      handler.batch(stmt);
+    } else {
+      multiRowInsert.addRow(handler, getConnection(ms.getStatementLog()));
+    }
+    pendingCount++;
+    if (configuration.getBatchBytes() > 0) {
+      pendingBytes += estimateParameterBytes(boundSql);
+    }
+    if ((configuration.getBatchSize() > 0 && pendingCount >= configuration.getBatchSize())
+        || (configuration.getBatchBytes() > 0 && pendingBytes >= configuration.getBatchBytes())) {
+      // the executor keeps no reference to the parameters: the results go to the batch result handler, or else
+      // only their update counts are returned by the next flushStatements()
+      List<BatchResult> results = flushStatements();
+      if (configuration.getBatchResultHandler() == null) {
+        for (BatchResult result : results) {
+          BatchResult updateCounts = new BatchResult(result.getMappedStatement(), result.getSql());
+          updateCounts.setUpdateCounts(result.getUpdateCounts());
+          autoFlushedResults.add(updateCounts);
+        }
+      }
     }
-    handler.batch(stmt);
     return BATCH_UPDATE_RETURN_VALUE;
   }
 
+  // a rough size of the parameter values held by the driver until the batch is executed
+  private long estimateParameterBytes(BoundSql boundSql) {
+    final Object parameterObject = boundSql.getParameterObject();
+    MetaObject metaObject = null;
+    long bytes = 0;
+    for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
+      final String property = parameterMapping.getProperty();
+      final Object value;
+      if (boundSql.hasAdditionalParameter(property)) {
+        value = boundSql.getAdditionalParameter(property);
+      } else if (parameterObject == null) {
+        value = null;
+      } else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameterObject.getClass())) {
+        value = parameterObject;
+      } else {
+        if (metaObject == null) {
+          metaObject = configuration.newMetaObject(parameterObject);
+        }
+        value = metaObject.getValue(property);
+      }
+      if (value instanceof CharSequence) {
+        bytes += 2L * ((CharSequence) value).length();
+      } else if (value instanceof byte[]) {
+        bytes += ((byte[]) value).length;
+      } else {
+        bytes += 8;
+      }
+    }
+    return bytes;
+  }
+
+  private void executeMultiRowInsert(MultiRowInsert multiRowInsert, BatchResult batchResult) throws SQLException {
+    final MappedStatement ms = batchResult.getMappedStatement();
+    final List<Object> parameterObjects = batchResult.getParameterObjects();
+    final int rowCount = multiRowInsert.size();
+    final int rowsPerStatement = multiRowInsert.getRowsPerStatement(configuration.getMultiRowInsertMaxParameters());
+    final int[] updateCounts = new int[rowCount];
+    for (int start = 0; start < rowCount; start += rowsPerStatement) {
+      final int end = Math.min(start + rowsPerStatement, rowCount);
+      final BoundSql boundSql = new BoundSql(configuration, multiRowInsert.getSql(end - start),
+          multiRowInsert.getParameterMappings(), parameterObjects.get(start));
+      final StatementHandler handler = configuration.newStatementHandler(this, ms, parameterObjects.get(start), RowBounds.DEFAULT, null, boundSql);
+      Statement stmt = null;
+      try {
+        stmt = handler.prepare(getConnection(ms.getStatementLog()), transaction.getTimeout());
+        multiRowInsert.parameterize((PreparedStatement) stmt, start, end);
+        final int updateCount = ((PreparedStatement) stmt).executeUpdate();
+        // the update count of each row is only known when all of them were inserted
+        Arrays.fill(updateCounts, start, end, updateCount == end - start ? 1 : Statement.SUCCESS_NO_INFO);
+        if (Jdbc3KeyGenerator.class.equals(ms.getKeyGenerator().getClass())) {
+          ((Jdbc3KeyGenerator) ms.getKeyGenerator()).processBatch(ms, stmt, parameterObjects.subList(start, end));
+        }
+      } catch (BatchUpdateException e) {
+        throw e;
+      } catch (SQLException e) {
+        throw new BatchUpdateException(e.getMessage(), e.getSQLState(), e.getErrorCode(), Arrays.copyOf(updateCounts, start), e);
+      } finally {
+        closeStatement(stmt);
+      }
+    }
+    batchResult.setUpdateCounts(updateCounts);
+  }
+
+  /*
+   * With batch reordering, a statement joins an earlier batch of the same sql when it only has to move ahead of batches
+   * of other tables that come after its own table in the dependency order: the order of batchTableOrder, or else
+   * the order in which the tables were first written in this batch. The statements of a table keep their order.
+   */
+  private int findEarlierBatch(MappedStatement ms, String sql) {
+    if (!configuration.isBatchReorderingEnabled()) {
+      return -1;
+    }
+    final String table = getTargetTable(sql);
+    final int rank = getTableRank(table);
+    if (rank < 0) {
+      return -1;
+    }
+    for (int i = batchResultList.size() - 1; i >= 0; i--) {
+      final BatchResult batchResult = batchResultList.get(i);
+      if (sql.equals(batchResult.getSql()) && ms.equals(batchResult.getMappedStatement())) {
+        return i;
+      }
+      final String skippedTable = tableList.get(i);
+      if (table.equals(skippedTable) || getTableRank(skippedTable) <= rank) {
+        return -1;
+      }
+    }
+    return -1;
+  }
+
+  private int getTableRank(String table) {
+    if (table == null) {
+      return -1;
+    }
+    final List<String> tableOrder = configuration.getBatchTableOrder();
+    if (tableOrder.isEmpty()) {
+      return tableRanks.getOrDefault(table, -1);
+    }
+    for (int i = 0; i < tableOrder.size(); i++) {
+      if (table.equalsIgnoreCase(tableOrder.get(i).trim())) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static String getTargetTable(String sql) {
+    final Matcher matcher = TARGET_TABLE_PATTERN.matcher(sql);
+    return matcher.find() ? matcher.group(1).toLowerCase(Locale.ENGLISH) : null;
+  }
+
   @Override
   public <E> List<E> doQuery(MappedStatement ms, Object parameterObject, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql)
       throws SQLException {
@@ -110,29 +277,37 @@ public class BatchExecutor extends BaseExecutor {
   @Override
   public List<BatchResult> doFlushStatements(boolean isRollback) throws SQLException {
     try {
-      List<BatchResult> results = new ArrayList<>();
+      List<BatchResult> results = new ArrayList<>(autoFlushedResults);
+      autoFlushedResults.clear();
       if (isRollback) {
         return Collections.emptyList();
       }
       for (int i = 0, n = statementList.size(); i < n; i++) {
         Statement stmt = statementList.get(i);
-        applyTransactionTimeout(stmt);
         BatchResult batchResult = batchResultList.get(i);
         try {
-          batchResult.setUpdateCounts(stmt.executeBatch());
-          MappedStatement ms = batchResult.getMappedStatement();
-          List<Object> parameterObjects = batchResult.getParameterObjects();
-          KeyGenerator keyGenerator = ms.getKeyGenerator();
-          if (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())) {
-            Jdbc3KeyGenerator jdbc3KeyGenerator = (Jdbc3KeyGenerator) keyGenerator;
-            jdbc3KeyGenerator.processBatch(ms, stmt, parameterObjects);
-          } else if (!NoKeyGenerator.class.equals(keyGenerator.getClass())) { //issue #141
-            for (Object parameter : parameterObjects) {
-              keyGenerator.processAfter(this, ms, stmt, parameter);
+          if (multiRowInsertList.get(i) != null) {
+            executeMultiRowInsert(multiRowInsertList.get(i), batchResult);
+          } else {
+            applyTransactionTimeout(stmt);
+            batchResult.setUpdateCounts(stmt.executeBatch());
+            MappedStatement ms = batchResult.getMappedStatement();
+            List<Object> parameterObjects = batchResult.getParameterObjects();
+            KeyGenerator keyGenerator = ms.getKeyGenerator();
+            if (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())) {
+              Jdbc3KeyGenerator jdbc3KeyGenerator = (Jdbc3KeyGenerator) keyGenerator;
+              jdbc3KeyGenerator.processBatch(ms, stmt, parameterObjects);
+            } else if (!NoKeyGenerator.class.equals(keyGenerator.getClass())) { //issue #141
+              for (Object parameter : parameterObjects) {
+                keyGenerator.processAfter(this, ms, stmt, parameter);
+              }
             }
+            // Close statement to close cursor #1109
+            closeStatement(stmt);
+          }
+          if (configuration.getBatchResultHandler() != null) {
+            configuration.getBatchResultHandler().handleBatchResult(batchResult);
           }
-          // Close statement to close cursor #1109
-          closeStatement(stmt);
         } catch (BatchUpdateException e) {
           StringBuilder message = new StringBuilder();
           message.append(batchResult.getMappedStatement().getId())
@@ -157,6 +332,11 @@ public class BatchExecutor extends BaseExecutor {
       currentSql = null;
       statementList.clear();
       batchResultList.clear();
+      tableList.clear();
+      tableRanks.clear();
+      multiRowInsertList.clear();
+      pendingCount = 0;
+      pendingBytes = 0;
     }
   }
 
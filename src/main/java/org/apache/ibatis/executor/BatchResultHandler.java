@@ -0,0 +1,31 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+/**
+ * Receives the batches of a {@link BatchExecutor} as soon as they are executed, including those flushed
+ * automatically on reaching the {@code batchSize} or {@code batchBytes} of the configuration.
+ *
+ * @since 3.5.2
+ */
+public interface BatchResultHandler {
+
+  /**
+   * @param batchResult the executed batch, with its update counts; generated keys are set on its parameter objects
+   */
+  void handleBatchResult(BatchResult batchResult);
+
+}
@@ -0,0 +1,197 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
+import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.reflection.ExceptionUtil;
+
+/**
+ * The rows of batched executions of a single row {@code INSERT ... VALUES (...)} statement, to be executed as
+ * {@code INSERT ... VALUES (...), (...), ...} statements.
+ *
+ * @since 3.5.2
+ */
+class MultiRowInsert {
+
+  private static final Pattern INSERT_PATTERN = Pattern.compile(
+      "^\\s*insert\\s+into\\s+[\\w.$\"`\\[\\]]+\\s*(?:\\([^()?']*\\)\\s*)?values\\s*(?=\\()", Pattern.CASE_INSENSITIVE);
+
+  private final String prefix;
+  private final String valuesRow;
+  private final int parametersPerRow;
+  private final List<RecordedRow> rows = new ArrayList<>();
+  private List<ParameterMapping> parameterMappings;
+
+  private MultiRowInsert(String prefix, String valuesRow, int parametersPerRow) {
+    this.prefix = prefix;
+    this.valuesRow = valuesRow;
+    this.parametersPerRow = parametersPerRow;
+  }
+
+  /**
+   * Returns the multi row insert for the statement, or {@code null} when it is not a single row insert with only
+   * parameters of its row and generated keys that can be read for several rows at once.
+   */
+  static MultiRowInsert of(MappedStatement ms, BoundSql boundSql) {
+    final Class<?> keyGeneratorType = ms.getKeyGenerator().getClass();
+    if (ms.getStatementType() != StatementType.PREPARED
+        || (!NoKeyGenerator.class.equals(keyGeneratorType) && !Jdbc3KeyGenerator.class.equals(keyGeneratorType))) {
+      return null;
+    }
+    final String sql = boundSql.getSql();
+    final Matcher matcher = INSERT_PATTERN.matcher(sql);
+    if (!matcher.lookingAt()) {
+      return null;
+    }
+    final int start = matcher.end();
+    int depth = 0;
+    int parameters = 0;
+    boolean quoted = false;
+    for (int i = start; i < sql.length(); i++) {
+      final char c = sql.charAt(i);
+      if (c == '\'') {
+        quoted = !quoted;
+      } else if (quoted) {
+        continue;
+      } else if (c == '?') {
+        parameters++;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')' && --depth == 0) {
+        // the row must end the statement
+        if (!sql.substring(i + 1).trim().isEmpty() || parameters != boundSql.getParameterMappings().size()) {
+          return null;
+        }
+        return new MultiRowInsert(sql.substring(0, start), sql.substring(start, i + 1), parameters);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Adds a row with the parameters its statement handler sets now, as the parameter object may be modified and
+   * executed again before the rows are flushed.
+   */
+  void addRow(StatementHandler handler, Connection connection) throws SQLException {
+    final RecordedRow row = new RecordedRow(connection);
+    handler.parameterize((PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+        new Class<?>[] { PreparedStatement.class }, row));
+    if (parameterMappings == null) {
+      parameterMappings = handler.getBoundSql().getParameterMappings();
+    }
+    rows.add(row);
+  }
+
+  int size() {
+    return rows.size();
+  }
+
+  List<ParameterMapping> getParameterMappings() {
+    return parameterMappings;
+  }
+
+  /**
+   * Returns the number of rows of each statement, so that it has at most {@code maxParameters} parameters.
+   */
+  int getRowsPerStatement(int maxParameters) {
+    return parametersPerRow == 0 ? Math.max(maxParameters, 1) : Math.max(maxParameters / parametersPerRow, 1);
+  }
+
+  String getSql(int rowCount) {
+    final StringBuilder sql = new StringBuilder(prefix.length() + rowCount * (valuesRow.length() + 2));
+    sql.append(prefix).append(valuesRow);
+    for (int i = 1; i < rowCount; i++) {
+      sql.append(", ").append(valuesRow);
+    }
+    return sql.toString();
+  }
+
+  /**
+   * Sets the recorded parameters of the rows {@code from} (inclusive) to {@code to} (exclusive) on the multi row
+   * statement.
+   */
+  void parameterize(PreparedStatement statement, int from, int to) throws SQLException {
+    for (int i = from; i < to; i++) {
+      rows.get(i).replay(statement, (i - from) * parametersPerRow);
+    }
+  }
+
+  // records the parameters set on the statement of a row, to set them at their position in the multi row statement
+  private static class RecordedRow implements InvocationHandler {
+
+    private final Connection connection;
+    private final List<Method> setters = new ArrayList<>();
+    private final List<Object[]> arguments = new ArrayList<>();
+
+    private RecordedRow(Connection connection) {
+      this.connection = connection;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      if (PreparedStatement.class.equals(method.getDeclaringClass()) && method.getName().startsWith("set")
+          && args != null && args.length > 1 && args[0] instanceof Integer) {
+        setters.add(method);
+        arguments.add(args);
+        return null;
+      }
+      if (Object.class.equals(method.getDeclaringClass())) {
+        return method.invoke(this, args);
+      }
+      if ("getConnection".equals(method.getName()) && method.getParameterCount() == 0) {
+        // e.g. to create arrays or lobs
+        return connection;
+      }
+      throw new SQLFeatureNotSupportedException("Cannot call " + method.getName()
+          + " while recording the parameters of a multi row insert");
+    }
+
+    void replay(PreparedStatement statement, int offset) throws SQLException {
+      for (int i = 0; i < setters.size(); i++) {
+        final Object[] args = arguments.get(i).clone();
+        args[0] = (Integer) args[0] + offset;
+        try {
+          setters.get(i).invoke(statement, args);
+        } catch (Exception e) {
+          final Throwable cause = ExceptionUtil.unwrapThrowable(e);
+          if (cause instanceof SQLException) {
+            throw (SQLException) cause;
+          }
+          throw new ExecutorException("Error setting a parameter of a multi row insert.  Cause: " + cause, cause);
+        }
+      }
+    }
+  }
+
+}
@@ -18,14 +18,19 @@ package org.apache.ibatis.executor;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.statement.StatementHandler;
-import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.session.Configuration;
@@ -34,37 +39,84 @@ import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.transaction.Transaction;
 
 /**
+ * Keeps the statements it prepares open for reuse until the statements are flushed. At most
+ * {@link Configuration#getReuseStatementCacheSize()} statements are kept, the least recently used one being closed
+ * when a new statement exceeds the limit. A statement is not closed while it executes, for instance while the rows of
+ * its result set run nested selects, so more statements stay open while the nesting is deeper than the limit. The
+ * statement of a cursor is taken out of reuse, so that neither another query nor the limit can close the result set
+ * of the open cursor; it is closed with the cursor.
+ *
  * @author Clinton Begin
  */
 public class ReuseExecutor extends BaseExecutor {
 
-  private final Map<String, Statement> statementMap = new HashMap<>();
+  private final Map<CacheKey, Statement> statementMap;
+  private final List<Statement> cursorStatements = new ArrayList<>();
+  private final Set<Statement> executingStatements = Collections.newSetFromMap(new IdentityHashMap<>());
+  private Connection statementConnection;
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
 
   public ReuseExecutor(Configuration configuration, Transaction transaction) {
     super(configuration, transaction);
+    final int size = configuration.getReuseStatementCacheSize();
+    this.statementMap = new LinkedHashMap<CacheKey, Statement>(16, .75F, true) {
+      private static final long serialVersionUID = -1937432016384720158L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<CacheKey, Statement> eldest) {
+        if (size <= 0 || size() <= size) {
+          return false;
+        }
+        // close the least recently used statements that are not executing, the newest one is about to be executed
+        Iterator<Statement> iterator = values().iterator();
+        for (int i = size() - 1; i > 0 && size() > size; i--) {
+          Statement stmt = iterator.next();
+          if (!executingStatements.contains(stmt)) {
+            iterator.remove();
+            closeStatement(stmt);
+            evictionCount++;
+          }
+        }
+        return false;
+      }
+    };
   }
 
   @Override
   public int doUpdate(MappedStatement ms, Object parameter) throws SQLException {
     Configuration configuration = ms.getConfiguration();
     StatementHandler handler = configuration.newStatementHandler(this, ms, parameter, RowBounds.DEFAULT, null, null);
-    Statement stmt = prepareStatement(handler, ms.getStatementLog());
-    return handler.update(stmt);
+    Statement stmt = prepareStatement(ms, handler, true);
+    executingStatements.add(stmt);
+    try {
+      return handler.update(stmt);
+    } finally {
+      executingStatements.remove(stmt);
+    }
   }
 
   @Override
   public <E> List<E> doQuery(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) throws SQLException {
     Configuration configuration = ms.getConfiguration();
     StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, resultHandler, boundSql);
-    Statement stmt = prepareStatement(handler, ms.getStatementLog());
-    return handler.query(stmt, resultHandler);
+    Statement stmt = prepareStatement(ms, handler, true);
+    executingStatements.add(stmt);
+    try {
+      return handler.query(stmt, resultHandler);
+    } finally {
+      executingStatements.remove(stmt);
+    }
   }
 
   @Override
   protected <E> Cursor<E> doQueryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds, BoundSql boundSql) throws SQLException {
     Configuration configuration = ms.getConfiguration();
     StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, null, boundSql);
-    Statement stmt = prepareStatement(handler, ms.getStatementLog());
+    Statement stmt = prepareStatement(ms, handler, false);
+    stmt.closeOnCompletion();
+    cursorStatements.add(stmt);
     return handler.queryCursor(stmt);
   }
 
@@ -74,39 +126,76 @@ public class ReuseExecutor extends BaseExecutor {
       closeStatement(stmt);
     }
     statementMap.clear();
+    for (Statement stmt : cursorStatements) {
+      closeStatement(stmt);
+    }
+    cursorStatements.clear();
+    statementConnection = null;
     return Collections.emptyList();
   }
 
-  private Statement prepareStatement(StatementHandler handler, Log statementLog) throws SQLException {
+  /**
+   * Returns the number of statements that were reused.
+   *
+   * @since 3.5.2
+   */
+  public long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * Returns the number of statements that were prepared because no open statement could be reused.
+   *
+   * @since 3.5.2
+   */
+  public long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * Returns the number of statements that were closed to keep the number of open statements within the limit.
+   *
+   * @since 3.5.2
+   */
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  private Statement prepareStatement(MappedStatement ms, StatementHandler handler, boolean reusable) throws SQLException {
     Statement stmt;
-    BoundSql boundSql = handler.getBoundSql();
-    String sql = boundSql.getSql();
-    if (hasStatementFor(sql)) {
-      stmt = getStatement(sql);
+    CacheKey key = createStatementKey(ms, handler.getBoundSql());
+    if (transaction.getConnection() != statementConnection) {
+      // statements prepared on another connection cannot be reused
+      doFlushStatements(false);
+      statementConnection = transaction.getConnection();
+    }
+    stmt = reusable ? statementMap.get(key) : statementMap.remove(key);
+    if (stmt != null) {
+      hitCount++;
       applyTransactionTimeout(stmt);
     } else {
-      Connection connection = getConnection(statementLog);
+      missCount++;
+      Connection connection = getConnection(ms.getStatementLog());
       stmt = handler.prepare(connection, transaction.getTimeout());
-      putStatement(sql, stmt);
+      if (reusable) {
+        statementMap.put(key, stmt);
+      }
     }
     handler.parameterize(stmt);
     return stmt;
   }
 
-  private boolean hasStatementFor(String sql) {
-    try {
-      return statementMap.keySet().contains(sql) && !statementMap.get(sql).getConnection().isClosed();
-    } catch (SQLException e) {
-      return false;
+  private CacheKey createStatementKey(MappedStatement ms, BoundSql boundSql) {
+    CacheKey key = new CacheKey();
+    key.update(boundSql.getSql());
+    key.update(ms.getStatementType());
+    key.update(ms.getResultSetType());
+    key.update(ms.getFetchSize());
+    if (ms.getKeyGenerator() instanceof Jdbc3KeyGenerator) {
+      key.update(Jdbc3KeyGenerator.class);
+      key.update(ms.getKeyColumns());
     }
-  }
-
-  private Statement getStatement(String s) {
-    return statementMap.get(s);
-  }
-
-  private void putStatement(String sql, Statement stmt) {
-    statementMap.put(sql, stmt);
+    return key;
   }
 
 }
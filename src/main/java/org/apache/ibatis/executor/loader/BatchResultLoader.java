@@ -0,0 +1,199 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.loader;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ibatis.binding.MapperMethod.ParamMap;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.MetaClass;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Loads the result of a nested select that declares a {@code foreignColumn} together with the results of other rows
+ * of the same mapping. The nested select receives a list of keys (as {@code list} or {@code collection}) and returns
+ * the rows of all of them; each row is handed to the loader of the key in its foreign column.
+ *
+ * @since 3.5.2
+ */
+public class BatchResultLoader extends ResultLoader {
+
+  private final Batch batch;
+  private final Object key;
+
+  /**
+   * @param parameterObject the parameter holding only {@code key}, see {@link #keysParameter(Collection)}
+   */
+  public BatchResultLoader(Configuration config, Executor executor, MappedStatement mappedStatement, Object parameterObject, Object key,
+      Class<?> targetType, CacheKey cacheKey, BoundSql boundSql, Batch batch) {
+    super(config, executor, mappedStatement, parameterObject, targetType, cacheKey, boundSql);
+    this.key = key;
+    this.batch = batch;
+    batch.add(this);
+  }
+
+  @Override
+  public Object loadResult() throws SQLException {
+    // always synchronizes on the batch, as the loader may have been loaded with a sibling on another thread
+    batch.load(this);
+    return resultObject;
+  }
+
+  public boolean isLoaded() {
+    return loaded;
+  }
+
+  private void setResult(List<Object> list) {
+    resultObject = resultExtractor.extractObjectFromList(list, targetType);
+    loaded = true;
+  }
+
+  /**
+   * Creates the parameter of a nested select declaring a {@code foreignColumn}.
+   */
+  public static Object keysParameter(Collection<Object> keys) {
+    final List<Object> list = new ArrayList<>(keys);
+    final ParamMap<Object> parameter = new ParamMap<>();
+    parameter.put("collection", list);
+    parameter.put("list", list);
+    return parameter;
+  }
+
+  /**
+   * The loaders of a nested select mapping that have not been loaded yet.
+   */
+  public static class Batch {
+
+    private final Configuration configuration;
+    private final MappedStatement mappedStatement;
+    private final String foreignColumn;
+    private final int batchSize;
+    private final Set<BatchResultLoader> pending = new LinkedHashSet<>();
+    private String foreignProperty;
+
+    public Batch(Configuration configuration, MappedStatement mappedStatement, String foreignColumn, int batchSize) {
+      this.configuration = configuration;
+      this.mappedStatement = mappedStatement;
+      this.foreignColumn = foreignColumn;
+      this.batchSize = Math.max(batchSize, 1);
+    }
+
+    public synchronized int getPendingCount() {
+      return pending.size();
+    }
+
+    private synchronized void add(BatchResultLoader loader) {
+      pending.add(loader);
+    }
+
+    // loads the given loader together with the loaders added after it, up to the batch size
+    private synchronized void load(BatchResultLoader first) throws SQLException {
+      if (first.loaded) {
+        return;
+      }
+      final List<BatchResultLoader> loaders = new ArrayList<>();
+      loaders.add(first);
+      pending.remove(first);
+      final Map<Object, Object> keys = new LinkedHashMap<>();
+      keys.put(normalizeKey(first.key), first.key);
+      for (Iterator<BatchResultLoader> iterator = pending.iterator(); iterator.hasNext() && keys.size() < batchSize; ) {
+        final BatchResultLoader loader = iterator.next();
+        iterator.remove();
+        loaders.add(loader);
+        keys.putIfAbsent(normalizeKey(loader.key), loader.key);
+      }
+      final Object parameterObject = keysParameter(keys.values());
+      final List<Object> rows = first.selectList(parameterObject, null, mappedStatement.getBoundSql(parameterObject));
+      final Map<Object, List<Object>> rowsByKey = new HashMap<>();
+      for (Object row : rows) {
+        rowsByKey.computeIfAbsent(normalizeKey(getForeignKey(row)), k -> new ArrayList<>()).add(row);
+      }
+      for (BatchResultLoader loader : loaders) {
+        // every loader gets its own list, as a collection property may be modified
+        loader.setResult(new ArrayList<>(rowsByKey.getOrDefault(normalizeKey(loader.key), Collections.emptyList())));
+      }
+    }
+
+    private Object getForeignKey(Object row) {
+      if (row == null) {
+        return null;
+      }
+      if (row instanceof Map) {
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) row).entrySet()) {
+          if (foreignColumn.equalsIgnoreCase(String.valueOf(entry.getKey()))) {
+            return entry.getValue();
+          }
+        }
+        return null;
+      }
+      if (foreignProperty == null) {
+        foreignProperty = findForeignProperty(row.getClass());
+      }
+      final MetaObject metaObject = configuration.newMetaObject(row);
+      return metaObject.getValue(foreignProperty);
+    }
+
+    private String findForeignProperty(Class<?> rowType) {
+      for (ResultMap resultMap : mappedStatement.getResultMaps()) {
+        for (ResultMapping resultMapping : resultMap.getResultMappings()) {
+          if (foreignColumn.equalsIgnoreCase(resultMapping.getColumn()) && resultMapping.getProperty() != null) {
+            return resultMapping.getProperty();
+          }
+        }
+      }
+      final String property = MetaClass.forClass(rowType, configuration.getReflectorFactory())
+        .findProperty(foreignColumn, configuration.isMapUnderscoreToCamelCase());
+      if (property == null) {
+        throw new ExecutorException("The foreignColumn '" + foreignColumn + "' of the nested select '" + mappedStatement.getId()
+          + "' is not mapped to a property of " + rowType + ".");
+      }
+      return property;
+    }
+
+    // the key columns of the parent and the foreign columns of the nested select may be read as different number types
+    private static Object normalizeKey(Object key) {
+      if (key instanceof Number) {
+        try {
+          return new BigDecimal(key.toString()).stripTrailingZeros();
+        } catch (NumberFormatException e) {
+          // NaN, the infinities and numbers without a decimal form only match keys of their own type
+          return key;
+        }
+      }
+      return key;
+    }
+
+  }
+
+}
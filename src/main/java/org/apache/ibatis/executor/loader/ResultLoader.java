@@ -39,6 +39,9 @@ import org.apache.ibatis.transaction.TransactionFactory;
  */
 public class ResultLoader {
 
+  // the executor of the parallel lazy load running on the current thread of the lazy loading pool, see ResultLoaderMap
+  static final ThreadLocal<Executor> PARALLEL_LOAD_EXECUTOR = new ThreadLocal<>();
+
   protected final Configuration configuration;
   protected final Executor executor;
   protected final MappedStatement mappedStatement;
@@ -73,20 +76,34 @@ public class ResultLoader {
   }
 
   private <E> List<E> selectList() throws SQLException {
+    return selectList(parameterObject, cacheKey, boundSql);
+  }
+
+  /**
+   * Runs the statement of this loader with another parameter, on the executor this loader would use.
+   *
+   * @param cacheKey the cache key of the parameter, or {@code null} to create it from the bound sql with that executor
+   * @since 3.5.2
+   */
+  protected <E> List<E> selectList(Object parameterObject, CacheKey cacheKey, BoundSql boundSql) throws SQLException {
     Executor localExecutor = executor;
     if (Thread.currentThread().getId() != this.creatorThreadId || localExecutor.isClosed()) {
-      localExecutor = newExecutor();
+      localExecutor = PARALLEL_LOAD_EXECUTOR.get();
+      if (localExecutor == null) {
+        localExecutor = newExecutor();
+      }
     }
     try {
-      return localExecutor.query(mappedStatement, parameterObject, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER, cacheKey, boundSql);
+      final CacheKey key = cacheKey != null || boundSql == null ? cacheKey : localExecutor.createCacheKey(mappedStatement, parameterObject, RowBounds.DEFAULT, boundSql);
+      return localExecutor.query(mappedStatement, parameterObject, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER, key, boundSql);
     } finally {
-      if (localExecutor != executor) {
+      if (localExecutor != executor && localExecutor != PARALLEL_LOAD_EXECUTOR.get()) {
         localExecutor.close(false);
       }
     }
   }
 
-  private Executor newExecutor() {
+  Executor newExecutor() {
     final Environment environment = configuration.getEnvironment();
     if (environment == null) {
       throw new ExecutorException("ResultLoader could not load lazily.  Environment was not configured.");
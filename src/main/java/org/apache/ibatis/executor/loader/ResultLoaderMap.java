@@ -22,15 +22,23 @@ import java.security.AccessController;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.BaseExecutor;
 import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
@@ -91,11 +99,129 @@ public class ResultLoaderMap {
   public void loadAll() throws SQLException {
     final Set<String> methodNameSet = loaderMap.keySet();
     String[] methodNames = methodNameSet.toArray(new String[methodNameSet.size()]);
+    if (methodNames.length > 1 && isParallelLoadingEnabled()) {
+      loadAllInParallel(methodNames);
+      return;
+    }
     for (String methodName : methodNames) {
       load(methodName);
     }
   }
 
+  private boolean isParallelLoadingEnabled() {
+    for (LoadPair pair : loaderMap.values()) {
+      if (pair.metaResultObject == null || pair.resultLoader == null || pair.serializationCheck == null) {
+        return false;
+      }
+    }
+    return loaderMap.values().iterator().next().resultLoader.configuration.isParallelLazyLoadingEnabled();
+  }
+
+  /*
+   * The first property is loaded on the calling thread with the executor of the session, the others are loaded
+   * in the lazy loading pool, where each load first acquires a connection of its own. The calling thread takes over
+   * every load that has not acquired its connection yet, so it never waits for a connection that it may hold itself,
+   * for instance when the data source has no connection left for the pool. The properties are set on the calling
+   * thread once all of them are loaded.
+   */
+  private void loadAllInParallel(String[] methodNames) throws SQLException {
+    final List<LoadPair> pairs = new ArrayList<>(methodNames.length);
+    for (String methodName : methodNames) {
+      pairs.add(loaderMap.remove(methodName));
+    }
+    final ExecutorService pool = pairs.get(0).resultLoader.configuration.getLazyLoadingPool();
+    final List<ParallelLoad> loads = new ArrayList<>(pairs.size() - 1);
+    final List<Future<Object>> futures = new ArrayList<>(pairs.size() - 1);
+    for (LoadPair pair : pairs.subList(1, pairs.size())) {
+      ParallelLoad load = new ParallelLoad(pair.resultLoader);
+      loads.add(load);
+      futures.add(pool.submit(load));
+    }
+    final Object[] results = new Object[pairs.size()];
+    Throwable failure = null;
+    try {
+      results[0] = pairs.get(0).resultLoader.loadResult();
+    } catch (SQLException | RuntimeException e) {
+      failure = e;
+    }
+    for (int i = 0; i < futures.size(); i++) {
+      try {
+        results[i + 1] = loads.get(i).takeOver() ? pairs.get(i + 1).resultLoader.loadResult() : futures.get(i).get();
+      } catch (SQLException | RuntimeException e) {
+        if (failure == null) {
+          failure = e;
+        }
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure = e.getCause();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        if (failure == null) {
+          failure = e;
+        }
+      }
+    }
+    if (failure instanceof SQLException) {
+      throw (SQLException) failure;
+    } else if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    } else if (failure != null) {
+      throw new ExecutorException("Error loading lazy properties " + Arrays.toString(methodNames) + ". Cause: " + failure, failure);
+    }
+    for (int i = 0; i < pairs.size(); i++) {
+      pairs.get(i).metaResultObject.setValue(pairs.get(i).property, results[i]);
+    }
+  }
+
+  /**
+   * Load of a lazy property in the lazy loading pool, which the calling thread takes over until the load has
+   * acquired a connection.
+   */
+  private static final class ParallelLoad implements Callable<Object> {
+
+    private static final int PENDING = 0;
+    private static final int CONNECTING = 1;
+    private static final int RUNNING = 2;
+    private static final int TAKEN_OVER = 3;
+
+    private final AtomicInteger state = new AtomicInteger(PENDING);
+    private final ResultLoader resultLoader;
+
+    private ParallelLoad(ResultLoader resultLoader) {
+      this.resultLoader = resultLoader;
+    }
+
+    @Override
+    public Object call() throws SQLException {
+      if (!state.compareAndSet(PENDING, CONNECTING)) {
+        return null;
+      }
+      final Executor executor = resultLoader.newExecutor();
+      try {
+        executor.getTransaction().getConnection();
+        if (!state.compareAndSet(CONNECTING, RUNNING)) {
+          return null;
+        }
+        ResultLoader.PARALLEL_LOAD_EXECUTOR.set(executor);
+        try {
+          return resultLoader.loadResult();
+        } finally {
+          ResultLoader.PARALLEL_LOAD_EXECUTOR.remove();
+        }
+      } finally {
+        executor.close(false);
+      }
+    }
+
+    /**
+     * Returns whether the calling thread has to load the property because the load has not acquired a connection.
+     */
+    private boolean takeOver() {
+      return state.compareAndSet(PENDING, TAKEN_OVER) || state.compareAndSet(CONNECTING, TAKEN_OVER);
+    }
+  }
+
   private static String getUppercaseFirstProperty(String property) {
     String[] parts = property.split("\\.");
     return parts[0].toUpperCase(Locale.ENGLISH);
@@ -0,0 +1,333 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.loader.javassist;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javassist.CannotCompileException;
+import javassist.ClassClassPath;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtField;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+import javassist.NotFoundException;
+import javassist.util.proxy.DefineClassHelper;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.loader.ProxyFactory;
+import org.apache.ibatis.executor.loader.ResultLoaderMap;
+import org.apache.ibatis.executor.loader.WriteReplaceInterface;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.property.PropertyCopier;
+import org.apache.ibatis.reflection.property.PropertyNamer;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Creates lazy loading proxies of a subclass generated once per result type, instead of dispatching every call
+ * through a method handler. Each getter, setter and trigger method of the generated class calls the lazy loader
+ * of the property it belongs to directly, so that calls on a lazy result cost about as much as on a plain bean.
+ * <p>
+ * The class depends on the {@code aggressiveLazyLoading} and {@code lazyLoadTriggerMethods} settings it was
+ * generated for; a class is generated again when they change. Serialized proxies are deserialized like those of the
+ * {@link JavassistProxyFactory}.
+ *
+ * @since 3.5.2
+ */
+public class GeneratedProxyFactory implements ProxyFactory {
+
+  private static final String FINALIZE_METHOD = "finalize";
+  private static final String WRITE_REPLACE_METHOD = "writeReplace";
+  private static final String STATE_FIELD = "lazyLoadingState";
+  private static final AtomicInteger proxyClassCounter = new AtomicInteger();
+
+  private final ConcurrentMap<ProxyClassKey, ProxyClass> proxyClasses = new ConcurrentHashMap<>();
+
+  public GeneratedProxyFactory() {
+    try {
+      Resources.classForName("javassist.ClassPool");
+    } catch (Throwable e) {
+      throw new IllegalStateException("Cannot enable lazy loading because Javassist is not available. Add Javassist to your classpath.", e);
+    }
+  }
+
+  @Override
+  public Object createProxy(Object target, ResultLoaderMap lazyLoader, Configuration configuration, ObjectFactory objectFactory, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
+    final Class<?> type = target.getClass();
+    final ProxyClassKey key = new ProxyClassKey(type, configuration.isAggressiveLazyLoading(), configuration.getLazyLoadTriggerMethods());
+    final ProxyClass proxyClass = proxyClasses.computeIfAbsent(key, GeneratedProxyFactory::generateProxyClass);
+    final Object enhanced = proxyClass.newInstance(constructorArgTypes, constructorArgs);
+    ((LazyLoadingProxy) enhanced).setLazyLoadingState(new LazyLoadingState(type, lazyLoader, objectFactory, constructorArgTypes, constructorArgs));
+    PropertyCopier.copyBeanProperties(type, target, enhanced);
+    return enhanced;
+  }
+
+  @Override
+  public void setProperties(Properties properties) {
+      // Not Implemented
+  }
+
+  private static ProxyClass generateProxyClass(ProxyClassKey key) {
+    final Class<?> type = key.type;
+    final ClassPool pool = new ClassPool(true);
+    pool.insertClassPath(new ClassClassPath(type));
+    pool.appendClassPath(new LoaderClassPath(GeneratedProxyFactory.class.getClassLoader()));
+    try {
+      final CtClass proxy = pool.makeClass(type.getName() + "$$LazyProxy$" + proxyClassCounter.incrementAndGet(), pool.get(type.getName()));
+      proxy.addInterface(pool.get(LazyLoadingProxy.class.getName()));
+      proxy.addField(CtField.make("private " + LazyLoadingState.class.getName() + " " + STATE_FIELD + ";", proxy));
+      proxy.addMethod(CtNewMethod.make("public void setLazyLoadingState(" + LazyLoadingState.class.getName() + " state) { "
+        + STATE_FIELD + " = state; }", proxy));
+      for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+        if (!Modifier.isPrivate(constructor.getModifiers())) {
+          proxy.addConstructor(CtNewConstructor.make(toCtClasses(pool, constructor.getParameterTypes()),
+            toCtClasses(pool, constructor.getExceptionTypes()), "{ super($$); }", proxy));
+        }
+      }
+      boolean writeReplaceFound = false;
+      for (Method method : getOverridableMethods(type)) {
+        final String body;
+        if (WRITE_REPLACE_METHOD.equals(method.getName()) && method.getParameterTypes().length == 0) {
+          body = "{ if (" + STATE_FIELD + " == null) { return super." + WRITE_REPLACE_METHOD + "(); } return ($r) "
+            + STATE_FIELD + ".writeReplace(this); }";
+          writeReplaceFound = true;
+        } else {
+          final String trigger = getTrigger(method.getName(), key);
+          if (trigger == null) {
+            continue;
+          }
+          final String call = "super." + method.getName() + "($$);";
+          body = "{ if (" + STATE_FIELD + " != null) { " + STATE_FIELD + "." + trigger + " } "
+            + (method.getReturnType() == void.class ? call : "return " + call) + " }";
+        }
+        proxy.addMethod(CtNewMethod.make(method.getModifiers() & (Modifier.PUBLIC | Modifier.PROTECTED),
+          pool.get(toJavaName(method.getReturnType())), method.getName(), toCtClasses(pool, method.getParameterTypes()),
+          toCtClasses(pool, method.getExceptionTypes()), body, proxy));
+      }
+      if (!writeReplaceFound) {
+        // ObjectOutputStream will call writeReplace of objects returned by writeReplace
+        proxy.addInterface(pool.get(WriteReplaceInterface.class.getName()));
+        proxy.addMethod(CtNewMethod.make("public Object " + WRITE_REPLACE_METHOD + "() { if (" + STATE_FIELD
+          + " == null) { return this; } return " + STATE_FIELD + ".writeReplace(this); }", proxy));
+      }
+      // defined like the classes of javassist.util.proxy.ProxyFactory, which also works on Java 9 and later
+      final Class<?> proxyClass = DefineClassHelper.toClass(proxy.getName(), type, type.getClassLoader(), type.getProtectionDomain(),
+        proxy.toBytecode());
+      proxy.detach();
+      return new ProxyClass(proxyClass);
+    } catch (NotFoundException | CannotCompileException | IOException e) {
+      throw new ExecutorException("Error creating lazy proxy class for " + type + ".  Cause: " + e, e);
+    }
+  }
+
+  // the call a method makes on the lazy loading state before the method of the proxied type, or null
+  private static String getTrigger(String methodName, ProxyClassKey key) {
+    if (FINALIZE_METHOD.equals(methodName)) {
+      return null;
+    } else if (key.aggressive || key.lazyLoadTriggerMethods.contains(methodName)) {
+      return "loadAll();";
+    } else if (PropertyNamer.isSetter(methodName)) {
+      return "remove(\"" + PropertyNamer.methodToProperty(methodName).toUpperCase(Locale.ENGLISH) + "\");";
+    } else if (PropertyNamer.isGetter(methodName)) {
+      return "load(\"" + PropertyNamer.methodToProperty(methodName).toUpperCase(Locale.ENGLISH) + "\");";
+    }
+    return null;
+  }
+
+  // the methods a subclass defined in the package and class loader of the type can override
+  private static Collection<Method> getOverridableMethods(Class<?> type) {
+    final Map<String, Method> methods = new LinkedHashMap<>();
+    for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+      final boolean samePackage = current.getClassLoader() == type.getClassLoader()
+        && Objects.equals(getPackageName(current), getPackageName(type));
+      for (Method method : current.getDeclaredMethods()) {
+        final int modifiers = method.getModifiers();
+        if (Modifier.isStatic(modifiers) || Modifier.isPrivate(modifiers) || method.isBridge() || method.isSynthetic()
+            || (!Modifier.isPublic(modifiers) && !Modifier.isProtected(modifiers) && !samePackage)) {
+          continue;
+        }
+        // the most specific declaration wins, a final one hides the method from the subclass
+        methods.putIfAbsent(method.getName() + Arrays.toString(method.getParameterTypes()), method);
+      }
+    }
+    methods.values().removeIf(method -> Modifier.isFinal(method.getModifiers()));
+    return methods.values();
+  }
+
+  private static String getPackageName(Class<?> type) {
+    final String name = type.getName();
+    final int dot = name.lastIndexOf('.');
+    return dot < 0 ? "" : name.substring(0, dot);
+  }
+
+  private static CtClass[] toCtClasses(ClassPool pool, Class<?>[] types) throws NotFoundException {
+    final CtClass[] ctClasses = new CtClass[types.length];
+    for (int i = 0; i < types.length; i++) {
+      ctClasses[i] = pool.get(toJavaName(types[i]));
+    }
+    return ctClasses;
+  }
+
+  private static String toJavaName(Class<?> type) {
+    return type.isArray() ? toJavaName(type.getComponentType()) + "[]" : type.getName();
+  }
+
+  /**
+   * Implemented by the generated proxy classes. Not meant to be used by applications.
+   */
+  public interface LazyLoadingProxy {
+
+    void setLazyLoadingState(LazyLoadingState state);
+
+  }
+
+  /**
+   * The lazy loader of a proxy, called by the methods of its generated class. Not meant to be used by applications.
+   */
+  public static class LazyLoadingState {
+
+    private final Class<?> type;
+    private final ResultLoaderMap lazyLoader;
+    private final ObjectFactory objectFactory;
+    private final List<Class<?>> constructorArgTypes;
+    private final List<Object> constructorArgs;
+
+    private LazyLoadingState(Class<?> type, ResultLoaderMap lazyLoader, ObjectFactory objectFactory, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
+      this.type = type;
+      this.lazyLoader = lazyLoader;
+      this.objectFactory = objectFactory;
+      this.constructorArgTypes = constructorArgTypes;
+      this.constructorArgs = constructorArgs;
+    }
+
+    public void load(String property) throws SQLException {
+      synchronized (lazyLoader) {
+        lazyLoader.load(property);
+      }
+    }
+
+    public void remove(String property) {
+      synchronized (lazyLoader) {
+        lazyLoader.remove(property);
+      }
+    }
+
+    public void loadAll() throws SQLException {
+      synchronized (lazyLoader) {
+        if (lazyLoader.size() > 0) {
+          lazyLoader.loadAll();
+        }
+      }
+    }
+
+    public Object writeReplace(Object enhanced) {
+      synchronized (lazyLoader) {
+        final Object original;
+        if (constructorArgTypes.isEmpty()) {
+          original = objectFactory.create(type);
+        } else {
+          original = objectFactory.create(type, constructorArgTypes, constructorArgs);
+        }
+        PropertyCopier.copyBeanProperties(type, enhanced, original);
+        if (lazyLoader.size() > 0) {
+          return new JavassistSerialStateHolder(original, lazyLoader.getProperties(), objectFactory, constructorArgTypes, constructorArgs);
+        } else {
+          return original;
+        }
+      }
+    }
+  }
+
+  private static class ProxyClass {
+
+    private final Class<?> type;
+    private final Constructor<?> defaultConstructor;
+
+    private ProxyClass(Class<?> type) {
+      this.type = type;
+      Constructor<?> constructor;
+      try {
+        constructor = type.getConstructor();
+      } catch (NoSuchMethodException e) {
+        constructor = null;
+      }
+      this.defaultConstructor = constructor;
+    }
+
+    private Object newInstance(List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
+      try {
+        if (constructorArgTypes.isEmpty() && defaultConstructor != null) {
+          return defaultConstructor.newInstance();
+        }
+        return type.getConstructor(constructorArgTypes.toArray(new Class<?>[0]))
+          .newInstance(constructorArgs.toArray(new Object[constructorArgs.size()]));
+      } catch (Exception e) {
+        throw new ExecutorException("Error creating lazy proxy.  Cause: " + e, e);
+      }
+    }
+  }
+
+  private static class ProxyClassKey {
+
+    private final Class<?> type;
+    private final boolean aggressive;
+    private final Set<String> lazyLoadTriggerMethods;
+    private final int hashCode;
+
+    private ProxyClassKey(Class<?> type, boolean aggressive, Set<String> lazyLoadTriggerMethods) {
+      this.type = type;
+      this.aggressive = aggressive;
+      this.lazyLoadTriggerMethods = lazyLoadTriggerMethods;
+      this.hashCode = Objects.hash(type, aggressive, lazyLoadTriggerMethods);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof ProxyClassKey)) {
+        return false;
+      }
+      final ProxyClassKey other = (ProxyClassKey) o;
+      return type == other.type && aggressive == other.aggressive && lazyLoadTriggerMethods.equals(other.lazyLoadTriggerMethods);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+}
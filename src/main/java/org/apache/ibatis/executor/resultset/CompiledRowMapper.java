@@ -0,0 +1,166 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.lang.reflect.Constructor;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.result.ResultMapException;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * Maps the rows of a simple result map (no nested mappings and no discriminator) from result sets with the same
+ * columns. The columns, type handlers, setters and constructor are resolved once, so each row is read by column index
+ * and written without a {@link org.apache.ibatis.reflection.MetaObject}.
+ *
+ * @since 3.5.2
+ * @see DefaultResultSetHandler
+ */
+final class CompiledRowMapper {
+
+  private final Class<?> type;
+  private final ObjectFactory objectFactory;
+  private final Constructor<?> constructor;
+  private final List<Class<?>> constructorArgTypes;
+  private final ResultMapping[] constructorMappings;
+  private final int[] constructorColumns;
+  private final PropertyColumn[] propertyColumns;
+  private final boolean returnInstanceForEmptyRow;
+
+  /**
+   * @param constructor the constructor to call directly, or {@code null} to create the objects with the object factory
+   */
+  CompiledRowMapper(Class<?> type, ObjectFactory objectFactory, Constructor<?> constructor,
+      List<Class<?>> constructorArgTypes, ResultMapping[] constructorMappings, int[] constructorColumns,
+      PropertyColumn[] propertyColumns, boolean returnInstanceForEmptyRow) {
+    this.type = type;
+    this.objectFactory = objectFactory;
+    this.constructor = constructor;
+    this.constructorArgTypes = constructorArgTypes;
+    this.constructorMappings = constructorMappings;
+    this.constructorColumns = constructorColumns;
+    this.propertyColumns = propertyColumns;
+    this.returnInstanceForEmptyRow = returnInstanceForEmptyRow;
+  }
+
+  Object map(ResultSet rs) throws SQLException {
+    return build(read(rs));
+  }
+
+  /**
+   * Reads the mapped columns of the current row with their type handlers, the constructor arguments first.
+   */
+  Object[] read(ResultSet rs) throws SQLException {
+    final Object[] values = new Object[constructorMappings.length + propertyColumns.length];
+    for (int i = 0; i < constructorMappings.length; i++) {
+      try {
+        values[i] = constructorMappings[i].getTypeHandler().getResult(rs, constructorColumns[i]);
+      } catch (ResultMapException | SQLException e) {
+        throw new ExecutorException("Could not process result for mapping: " + constructorMappings[i], e);
+      }
+    }
+    for (int i = 0; i < propertyColumns.length; i++) {
+      values[constructorMappings.length + i] = propertyColumns[i].typeHandler.getResult(rs, propertyColumns[i].index);
+    }
+    return values;
+  }
+
+  /**
+   * Creates the result object from the values {@link #read(ResultSet) read} from a row. Does not touch the result set,
+   * so rows can be built on another thread than the one reading them.
+   */
+  Object build(Object[] values) {
+    final Object rowValue;
+    boolean foundValues = false;
+    if (constructorMappings.length == 0) {
+      rowValue = instantiate(null);
+    } else {
+      final Object[] args = Arrays.copyOf(values, constructorMappings.length);
+      for (Object arg : args) {
+        foundValues = arg != null || foundValues;
+      }
+      if (!foundValues) {
+        return null;
+      }
+      rowValue = instantiate(args);
+    }
+    for (int i = 0; i < propertyColumns.length; i++) {
+      final PropertyColumn column = propertyColumns[i];
+      final Object value = values[constructorMappings.length + i];
+      if (value != null) {
+        foundValues = true;
+      }
+      if (value != null || column.callSetterOnNull) {
+        column.set(rowValue, value);
+      }
+    }
+    return foundValues || returnInstanceForEmptyRow ? rowValue : null;
+  }
+
+  private Object instantiate(Object[] args) {
+    if (constructor == null) {
+      return args == null ? objectFactory.create(type) : objectFactory.create(type, constructorArgTypes, Arrays.asList(args));
+    }
+    try {
+      return args == null ? constructor.newInstance() : constructor.newInstance(args);
+    } catch (Exception e) {
+      // same message as the DefaultObjectFactory
+      String argTypes = constructorArgTypes.stream().map(Class::getSimpleName).collect(Collectors.joining(","));
+      String argValues = args == null ? "" : Arrays.stream(args).map(String::valueOf).collect(Collectors.joining(","));
+      throw new ReflectionException("Error instantiating " + type + " with invalid types (" + argTypes + ") or values (" + argValues + "). Cause: " + e, e);
+    }
+  }
+
+  static final class PropertyColumn {
+    private final int index;
+    private final TypeHandler<?> typeHandler;
+    private final String property;
+    private final Invoker setter;
+    private final boolean callSetterOnNull;
+
+    PropertyColumn(int index, TypeHandler<?> typeHandler, String property, Invoker setter, boolean callSetterOnNull) {
+      this.index = index;
+      this.typeHandler = typeHandler;
+      this.property = property;
+      this.setter = setter;
+      this.callSetterOnNull = callSetterOnNull;
+    }
+
+    private void set(Object target, Object value) {
+      try {
+        try {
+          setter.invoke(target, new Object[] { value });
+        } catch (Throwable t) {
+          throw ExceptionUtil.unwrapThrowable(t);
+        }
+      } catch (Throwable t) {
+        // same message as the BeanWrapper
+        throw new ReflectionException("Could not set property '" + property + "' of '" + target.getClass() + "' with value '" + value + "' Cause: " + t.toString(), t);
+      }
+    }
+  }
+
+}
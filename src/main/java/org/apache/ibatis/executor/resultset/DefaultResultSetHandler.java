@@ -23,6 +23,7 @@ import org.apache.ibatis.cursor.defaults.DefaultCursor;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.loader.BatchResultLoader;
 import org.apache.ibatis.executor.loader.ResultLoader;
 import org.apache.ibatis.executor.loader.ResultLoaderMap;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
@@ -32,7 +33,9 @@ import org.apache.ibatis.executor.result.ResultMapException;
 import org.apache.ibatis.mapping.*;
 import org.apache.ibatis.reflection.MetaClass;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.Reflector;
 import org.apache.ibatis.reflection.ReflectorFactory;
+import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.*;
 import org.apache.ibatis.type.JdbcType;
@@ -40,11 +43,13 @@ import org.apache.ibatis.type.TypeHandler;
 import org.apache.ibatis.type.TypeHandlerRegistry;
 
 import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
 import java.sql.CallableStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * @author Clinton Begin
@@ -56,6 +61,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 
   private static final Object DEFERRED = new Object();
 
+  // rows read from the result set while the previous rows are built in parallel
+  private static final int PARALLEL_BATCH_SIZE = 1024;
+
   private final Executor executor;
   private final Configuration configuration;
   private final MappedStatement mappedStatement;
@@ -68,9 +76,14 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   private final ReflectorFactory reflectorFactory;
 
   // nested resultmaps
-  private final Map<CacheKey, Object> nestedResultObjects = new HashMap<>();
+  private final Map<RowKey, Object> nestedResultObjects = new HashMap<>();
+  // key columns of the nested result maps in the current result set, by result map id and column prefix
+  private final Map<String, Map<String, RowKey.Columns>> rowKeyColumns = new HashMap<>();
   private final Map<String, Object> ancestorObjects = new HashMap<>();
   private Object previousRowValue;
+  // ids of the last object of a resultOrdered statement, and whether they ascend (-1) or descend (1)
+  private Object[] previousRowIds;
+  private int rowIdOrder;
 
   // multiple resultsets
   private final Map<String, ResultMapping> nextResultMaps = new HashMap<>();
@@ -79,6 +92,21 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   // Cached Automappings
   private final Map<String, List<UnMappedColumnAutoMapping>> autoMappingsCache = new HashMap<>();
 
+  // result maps compiled for the current result set, or that cannot be compiled
+  private final Map<String, CompiledRowMapper> compiledRowMappers = new HashMap<>();
+  private final Set<String> uncompilableResultMaps = new HashSet<>();
+
+  // the result set the automatic mappings and compiled row mappers above were resolved for
+  private ResultSetWrapper mappedResultSet;
+  private final ResultMappingPlanCache planCache;
+  // a cursor maps one row at a time and stops the result context after each of them
+  private boolean cursorResults;
+
+  // batches of the nested selects declaring a foreign column, and the eager ones to set once their batch is loaded
+  private final Map<ResultMapping, BatchResultLoader.Batch> nestedSelectBatches = new IdentityHashMap<>();
+  private final List<DeferredNestedSelect> deferredNestedSelects = new ArrayList<>();
+  private boolean deferNestedSelects;
+
   // temporary marking flag that indicate using constructor mapping (use field to reduce memory usage)
   private boolean useConstructorMappings;
 
@@ -87,14 +115,28 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     public ResultMapping propertyMapping;
   }
 
-  private static class UnMappedColumnAutoMapping {
+  private static class DeferredNestedSelect {
+    private final MetaObject metaObject;
+    private final String property;
+    private final BatchResultLoader resultLoader;
+
+    private DeferredNestedSelect(MetaObject metaObject, String property, BatchResultLoader resultLoader) {
+      this.metaObject = metaObject;
+      this.property = property;
+      this.resultLoader = resultLoader;
+    }
+  }
+
+  static class UnMappedColumnAutoMapping {
     private final String column;
+    private final int columnIndex;
     private final String property;
     private final TypeHandler<?> typeHandler;
     private final boolean primitive;
 
-    public UnMappedColumnAutoMapping(String column, String property, TypeHandler<?> typeHandler, boolean primitive) {
+    public UnMappedColumnAutoMapping(String column, int columnIndex, String property, TypeHandler<?> typeHandler, boolean primitive) {
       this.column = column;
+      this.columnIndex = columnIndex;
       this.property = property;
       this.typeHandler = typeHandler;
       this.primitive = primitive;
@@ -113,6 +155,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     this.objectFactory = configuration.getObjectFactory();
     this.reflectorFactory = configuration.getReflectorFactory();
     this.resultHandler = resultHandler;
+    this.planCache = configuration.getResultMappingPlanCache();
+    planCache.checkTypeHandlers(typeHandlerRegistry);
   }
 
   //
@@ -166,6 +210,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     ErrorContext.instance().activity("handling results").object(mappedStatement.getId());
 
     final List<Object> multipleResults = new ArrayList<>();
+    // the results are not handed out before the end, so eager nested selects can wait for the rows of their batch
+    deferNestedSelects = resultHandler == null;
 
     int resultSetCount = 0;
     ResultSetWrapper rsw = getFirstResultSet(stmt);
@@ -196,6 +242,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       }
     }
 
+    loadDeferredNestedSelects();
     return collapseSingleResultList(multipleResults);
   }
 
@@ -214,6 +261,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
 
     ResultMap resultMap = resultMaps.get(0);
+    cursorResults = true;
     return new DefaultCursor<>(this, resultMap, rsw, rowBounds);
   }
 
@@ -304,6 +352,15 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   //
 
   public void handleRowValues(ResultSetWrapper rsw, ResultMap resultMap, ResultHandler<?> resultHandler, RowBounds rowBounds, ResultMapping parentMapping) throws SQLException {
+    if (rsw != mappedResultSet) {
+      // the columns of another result set may differ
+      autoMappingsCache.clear();
+      compiledRowMappers.clear();
+      rowKeyColumns.clear();
+      previousRowIds = null;
+      rowIdOrder = 0;
+      mappedResultSet = rsw;
+    }
     if (resultMap.hasNestedResultMaps()) {
       ensureNoRowBounds();
       checkResultHandler();
@@ -335,11 +392,170 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     //跳过offset   rowBounds:offset生效的地方
     skipRows(resultSet, rowBounds);
     //shouldProcessMoreRows  limit 获取数据设置
+    CompiledRowMapper rowMapper = getCompiledRowMapper(rsw, resultMap);
     while (shouldProcessMoreRows(resultContext, rowBounds) && !resultSet.isClosed() && resultSet.next()) {
       System.out.println(" rowBounds limit 循环次数 默认：MAX_VALUE");
-      ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(resultSet, resultMap, null);
-      Object rowValue = getRowValue(rsw, discriminatedResultMap, null);
+      Object rowValue;
+      if (rowMapper != null) {
+        rowValue = rowMapper.map(resultSet);
+      } else {
+        ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(resultSet, resultMap, null);
+        rowValue = getRowValue(rsw, discriminatedResultMap, null);
+        if (rowValue != null && configuration.isResultMapCompilationEnabled()) {
+          rowMapper = compileRowMapper(rsw, resultMap, rowValue);
+        }
+      }
       storeObject(resultHandler, resultContext, rowValue, parentMapping, resultSet);
+      if (rowMapper != null && parentMapping == null && !cursorResults && !resultContext.isStopped()
+          && configuration.isParallelRowMappingEnabled()) {
+        handleRowValuesInParallel(resultSet, rowMapper, resultHandler, resultContext, rowBounds);
+        break;
+      }
+    }
+  }
+
+  // the rows are read on this thread and built in the row mapping pool while the next batch is read, then handed to the
+  // result handler on this thread in the order of the result set
+  private void handleRowValuesInParallel(ResultSet resultSet, CompiledRowMapper rowMapper, ResultHandler<?> resultHandler,
+      DefaultResultContext<Object> resultContext, RowBounds rowBounds) throws SQLException {
+    final ForkJoinPool pool = configuration.getRowMappingPool();
+    RowBatch pending = null;
+    do {
+      final int maxRows = Math.min(PARALLEL_BATCH_SIZE, rowBounds.getLimit() - resultContext.getResultCount() - (pending == null ? 0 : pending.size()));
+      // the rows of a batch read after the result handler stopped would be lost
+      final RowBatch next = maxRows > 0 && !resultContext.isStopped() ? RowBatch.read(resultSet, rowMapper, maxRows) : null;
+      if (next != null) {
+        if (next.size() > RowBatch.CHUNK_SIZE) {
+          pool.execute(next);
+        } else {
+          next.invoke();
+        }
+      }
+      if (pending != null) {
+        pending.join();
+        for (int i = 0; i < pending.size() && !resultContext.isStopped(); i++) {
+          callResultHandler(resultHandler, resultContext, pending.get(i));
+        }
+      }
+      pending = next;
+    } while (pending != null && !resultContext.isStopped());
+  }
+
+  //
+  // COMPILED ROW MAPPERS
+  //
+
+  private CompiledRowMapper getCompiledRowMapper(ResultSetWrapper rsw, ResultMap resultMap) {
+    CompiledRowMapper rowMapper = compiledRowMappers.get(resultMap.getId());
+    if (rowMapper == null && configuration.isResultMapCompilationEnabled() && !uncompilableResultMaps.contains(resultMap.getId())) {
+      rowMapper = planCache.getRowMapper(new ResultMappingPlanCache.PlanKey(resultMap.getId(), null, resultMap.getType(), rsw));
+      if (rowMapper != null) {
+        compiledRowMappers.put(resultMap.getId(), rowMapper);
+      }
+    }
+    return rowMapper;
+  }
+
+  // compiled from the first row, which has been mapped as usual and so has already resolved the automatic mappings
+  private CompiledRowMapper compileRowMapper(ResultSetWrapper rsw, ResultMap resultMap, Object rowValue) throws SQLException {
+    if (uncompilableResultMaps.contains(resultMap.getId())) {
+      return null;
+    }
+    CompiledRowMapper rowMapper = newCompiledRowMapper(rsw, resultMap, rowValue);
+    if (rowMapper == null) {
+      uncompilableResultMaps.add(resultMap.getId());
+    } else {
+      compiledRowMappers.put(resultMap.getId(), rowMapper);
+      planCache.putRowMapper(new ResultMappingPlanCache.PlanKey(resultMap.getId(), null, resultMap.getType(), rsw), rowMapper);
+    }
+    return rowMapper;
+  }
+
+  private CompiledRowMapper newCompiledRowMapper(ResultSetWrapper rsw, ResultMap resultMap, Object rowValue) throws SQLException {
+    final Class<?> resultType = resultMap.getType();
+    if (resultMap.getDiscriminator() != null || resultMap.hasNestedResultMaps() || resultMap.hasNestedQueries()
+      || rowValue.getClass() != resultType || hasTypeHandlerForResultObject(rsw, resultType)
+      || configuration.getObjectWrapperFactory().hasWrapperFor(rowValue) || !configuration.isUseColumnLabel()) {
+      return null;
+    }
+    if (Map.class.isAssignableFrom(resultType) || objectFactory.isCollection(resultType)) {
+      return null;
+    }
+    final MetaClass metaType = MetaClass.forClass(resultType, reflectorFactory);
+    final List<ResultMapping> constructorMappings = resultMap.getConstructorResultMappings();
+    final List<Class<?>> constructorArgTypes = new ArrayList<>();
+    final int[] constructorColumns = new int[constructorMappings.size()];
+    for (int i = 0; i < constructorColumns.length; i++) {
+      final ResultMapping constructorMapping = constructorMappings.get(i);
+      constructorColumns[i] = rsw.getColumnIndex(constructorMapping.getColumn());
+      if (constructorMapping.getNestedResultMapId() != null || constructorColumns[i] < 0) {
+        return null;
+      }
+      constructorArgTypes.add(constructorMapping.getJavaType());
+    }
+    if (constructorMappings.isEmpty() && !metaType.hasDefaultConstructor()) {
+      // created with the constructor matching the columns
+      return null;
+    }
+    final List<CompiledRowMapper.PropertyColumn> propertyColumns = new ArrayList<>();
+    if (shouldApplyAutomaticMappings(resultMap, false)) {
+      final List<UnMappedColumnAutoMapping> autoMapping = autoMappingsCache.get(resultMap.getId() + ":" + null);
+      if (autoMapping == null) {
+        return null;
+      }
+      for (UnMappedColumnAutoMapping mapping : autoMapping) {
+        final CompiledRowMapper.PropertyColumn column = newPropertyColumn(rsw, metaType, mapping.column, mapping.property, mapping.typeHandler);
+        if (column == null) {
+          return null;
+        }
+        propertyColumns.add(column);
+      }
+    }
+    for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+      if (propertyMapping.isCompositeResult() || propertyMapping.getResultSet() != null) {
+        return null;
+      }
+      final String column = propertyMapping.getColumn();
+      if (propertyMapping.getProperty() == null || column == null || rsw.getColumnIndex(column) < 0) {
+        continue;
+      }
+      final CompiledRowMapper.PropertyColumn propertyColumn = newPropertyColumn(rsw, metaType, column, propertyMapping.getProperty(), propertyMapping.getTypeHandler());
+      if (propertyColumn == null) {
+        return null;
+      }
+      propertyColumns.add(propertyColumn);
+    }
+    return new CompiledRowMapper(resultType, objectFactory, findConstructor(resultType, constructorArgTypes), constructorArgTypes,
+      constructorMappings.toArray(new ResultMapping[0]), constructorColumns,
+      propertyColumns.toArray(new CompiledRowMapper.PropertyColumn[0]), configuration.isReturnInstanceForEmptyRow());
+  }
+
+  private CompiledRowMapper.PropertyColumn newPropertyColumn(ResultSetWrapper rsw, MetaClass metaType, String column, String property, TypeHandler<?> typeHandler) {
+    final int index = rsw.getColumnIndex(column);
+    // nested properties need a MetaObject to instantiate the intermediate objects
+    if (index < 0 || property.indexOf('.') >= 0 || property.indexOf('[') >= 0 || !metaType.hasSetter(property)) {
+      return null;
+    }
+    final boolean callSetterOnNull = configuration.isCallSettersOnNulls() && !metaType.getSetterType(property).isPrimitive();
+    return new CompiledRowMapper.PropertyColumn(index, typeHandler, property, metaType.getSetInvoker(property), callSetterOnNull);
+  }
+
+  // the constructor the DefaultObjectFactory would call, or null to call the object factory
+  private Constructor<?> findConstructor(Class<?> resultType, List<Class<?>> constructorArgTypes) {
+    if (objectFactory.getClass() != DefaultObjectFactory.class) {
+      return null;
+    }
+    try {
+      final Constructor<?> constructor = resultType.getDeclaredConstructor(constructorArgTypes.toArray(new Class<?>[0]));
+      if (!Modifier.isPublic(constructor.getModifiers()) || !Modifier.isPublic(resultType.getModifiers())) {
+        if (!Reflector.canControlMemberAccessible()) {
+          return null;
+        }
+        constructor.setAccessible(true);
+      }
+      return constructor;
+    } catch (NoSuchMethodException | SecurityException e) {
+      return null;
     }
   }
 
@@ -421,7 +637,6 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 
   private boolean applyPropertyMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, ResultLoaderMap lazyLoader, String columnPrefix)
     throws SQLException {
-    final List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
     boolean foundValues = false;
     final List<ResultMapping> propertyMappings = resultMap.getPropertyResultMappings();
     for (ResultMapping propertyMapping : propertyMappings) {
@@ -430,10 +645,12 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         // the user added a column attribute to a nested result map, ignore it
         column = null;
       }
+      // the mapped columns of the result set are the ones it has
+      final int columnIndex = column == null ? -1 : rsw.getColumnIndex(column);
       if (propertyMapping.isCompositeResult()
-        || (column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH)))
+        || columnIndex > 0
         || propertyMapping.getResultSet() != null) {
-        Object value = getPropertyMappingValue(rsw.getResultSet(), metaObject, propertyMapping, lazyLoader, columnPrefix);
+        Object value = getPropertyMappingValue(rsw.getResultSet(), metaObject, propertyMapping, lazyLoader, columnPrefix, columnIndex);
         // issue #541 make property optional
         final String property = propertyMapping.getProperty();
         if (property == null) {
@@ -454,13 +671,15 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return foundValues;
   }
 
-  private Object getPropertyMappingValue(ResultSet rs, MetaObject metaResultObject, ResultMapping propertyMapping, ResultLoaderMap lazyLoader, String columnPrefix)
-    throws SQLException {
+  private Object getPropertyMappingValue(ResultSet rs, MetaObject metaResultObject, ResultMapping propertyMapping, ResultLoaderMap lazyLoader, String columnPrefix,
+                                         int columnIndex) throws SQLException {
     if (propertyMapping.getNestedQueryId() != null) {
       return getNestedQueryMappingValue(rs, metaResultObject, propertyMapping, lazyLoader, columnPrefix);
     } else if (propertyMapping.getResultSet() != null) {
       addPendingChildRelation(rs, metaResultObject, propertyMapping);   // TODO is that OK?
       return DEFERRED;
+    } else if (columnIndex > 0) {
+      return propertyMapping.getTypeHandler().getResult(rs, columnIndex);
     } else {
       final TypeHandler<?> typeHandler = propertyMapping.getTypeHandler();
       final String column = prependPrefix(propertyMapping.getColumn(), columnPrefix);
@@ -471,8 +690,14 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   private List<UnMappedColumnAutoMapping> createAutomaticMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String columnPrefix) throws SQLException {
     final String mapKey = resultMap.getId() + ":" + columnPrefix;
     List<UnMappedColumnAutoMapping> autoMapping = autoMappingsCache.get(mapKey);
+    if (autoMapping != null) {
+      return autoMapping;
+    }
+    final ResultMappingPlanCache.PlanKey planKey = new ResultMappingPlanCache.PlanKey(resultMap.getId(), columnPrefix, metaObject.getOriginalObject().getClass(), rsw);
+    autoMapping = planCache.getAutoMappings(planKey);
     if (autoMapping == null) {
       autoMapping = new ArrayList<>();
+      boolean unknownColumns = false;
       final List<String> unmappedColumnNames = rsw.getUnmappedColumnNames(resultMap, columnPrefix);
       for (String columnName : unmappedColumnNames) {
         String propertyName = columnName;
@@ -493,18 +718,24 @@ public class DefaultResultSetHandler implements ResultSetHandler {
           final Class<?> propertyType = metaObject.getSetterType(property);
           if (typeHandlerRegistry.hasTypeHandler(propertyType, rsw.getJdbcType(columnName))) {
             final TypeHandler<?> typeHandler = rsw.getTypeHandler(propertyType, columnName);
-            autoMapping.add(new UnMappedColumnAutoMapping(columnName, property, typeHandler, propertyType.isPrimitive()));
+            autoMapping.add(new UnMappedColumnAutoMapping(columnName, rsw.getColumnIndex(columnName), property, typeHandler, propertyType.isPrimitive()));
           } else {
+            unknownColumns = true;
             configuration.getAutoMappingUnknownColumnBehavior()
               .doAction(mappedStatement, columnName, property, propertyType);
           }
         } else {
+          unknownColumns = true;
           configuration.getAutoMappingUnknownColumnBehavior()
             .doAction(mappedStatement, columnName, (property != null) ? property : propertyName, null);
         }
       }
-      autoMappingsCache.put(mapKey, autoMapping);
+      if (!unknownColumns) {
+        // otherwise they are reported on every query as usual
+        planCache.putAutoMappings(planKey, autoMapping);
+      }
     }
+    autoMappingsCache.put(mapKey, autoMapping);
     return autoMapping;
   }
 
@@ -514,7 +745,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     boolean foundValues = false;
     if (!autoMapping.isEmpty()) {
       for (UnMappedColumnAutoMapping mapping : autoMapping) {
-        final Object value = mapping.typeHandler.getResult(rsw.getResultSet(), mapping.column);
+        final Object value = mapping.typeHandler.getResult(rsw.getResultSet(), mapping.columnIndex);
         if (value != null) {
           foundValues = true;
         }
@@ -632,7 +863,11 @@ public class DefaultResultSetHandler implements ResultSetHandler {
           value = getRowValue(rsw, resultMap, getColumnPrefix(columnPrefix, constructorMapping));
         } else {
           final TypeHandler<?> typeHandler = constructorMapping.getTypeHandler();
-          value = typeHandler.getResult(rsw.getResultSet(), prependPrefix(column, columnPrefix));
+          final String prefixedColumn = prependPrefix(column, columnPrefix);
+          final int columnIndex = prefixedColumn == null ? -1 : rsw.getColumnIndex(prefixedColumn);
+          value = columnIndex > 0
+            ? typeHandler.getResult(rsw.getResultSet(), columnIndex)
+            : typeHandler.getResult(rsw.getResultSet(), prefixedColumn);
         }
       } catch (ResultMapException | SQLException e) {
         throw new ExecutorException("Could not process result for mapping: " + constructorMapping, e);
@@ -739,9 +974,11 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     final String property = propertyMapping.getProperty();
     final MappedStatement nestedQuery = configuration.getMappedStatement(nestedQueryId);
     final Class<?> nestedQueryParameterType = nestedQuery.getParameterMap().getType();
-    final Object nestedQueryParameterObject = prepareParameterForNestedQuery(rs, propertyMapping, nestedQueryParameterType, columnPrefix);
+    final Object nestedQueryKey = prepareParameterForNestedQuery(rs, propertyMapping, nestedQueryParameterType, columnPrefix);
     Object value = null;
-    if (nestedQueryParameterObject != null) {
+    if (nestedQueryKey != null) {
+      final boolean batched = propertyMapping.getForeignColumn() != null;
+      final Object nestedQueryParameterObject = batched ? BatchResultLoader.keysParameter(Collections.singletonList(nestedQueryKey)) : nestedQueryKey;
       final BoundSql nestedBoundSql = nestedQuery.getBoundSql(nestedQueryParameterObject);
       final CacheKey key = executor.createCacheKey(nestedQuery, nestedQueryParameterObject, RowBounds.DEFAULT, nestedBoundSql);
       final Class<?> targetType = propertyMapping.getJavaType();
@@ -749,10 +986,25 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         executor.deferLoad(nestedQuery, metaResultObject, property, key, targetType);
         value = DEFERRED;
       } else {
-        final ResultLoader resultLoader = new ResultLoader(configuration, executor, nestedQuery, nestedQueryParameterObject, targetType, key, nestedBoundSql);
+        final ResultLoader resultLoader;
+        final BatchResultLoader.Batch batch = batched ? getNestedSelectBatch(propertyMapping, nestedQuery) : null;
+        if (batched) {
+          resultLoader = new BatchResultLoader(configuration, executor, nestedQuery, nestedQueryParameterObject, nestedQueryKey, targetType, key,
+            nestedBoundSql, batch);
+        } else {
+          resultLoader = new ResultLoader(configuration, executor, nestedQuery, nestedQueryParameterObject, targetType, key, nestedBoundSql);
+        }
         if (propertyMapping.isLazy()) {
           lazyLoader.addLoader(property, metaResultObject, resultLoader);
           value = DEFERRED;
+        } else if (batched && deferNestedSelects) {
+          deferredNestedSelects.add(new DeferredNestedSelect(metaResultObject, property, (BatchResultLoader) resultLoader));
+          if (batch.getPendingCount() >= configuration.getNestedSelectBatchSize()) {
+            // loads the full batch, the other batches keep collecting keys
+            resultLoader.loadResult();
+            setDeferredNestedSelects();
+          }
+          value = DEFERRED;
         } else {
           value = resultLoader.loadResult();
         }
@@ -761,6 +1013,33 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return value;
   }
 
+  private BatchResultLoader.Batch getNestedSelectBatch(ResultMapping propertyMapping, MappedStatement nestedQuery) {
+    return nestedSelectBatches.computeIfAbsent(propertyMapping,
+      mapping -> new BatchResultLoader.Batch(configuration, nestedQuery, mapping.getForeignColumn(), configuration.getNestedSelectBatchSize()));
+  }
+
+  // loading the first deferred nested select of a batch loads the others with it
+  private void loadDeferredNestedSelects() throws SQLException {
+    for (DeferredNestedSelect deferred : deferredNestedSelects) {
+      deferred.resultLoader.loadResult();
+    }
+    setDeferredNestedSelects();
+  }
+
+  private void setDeferredNestedSelects() throws SQLException {
+    for (Iterator<DeferredNestedSelect> iterator = deferredNestedSelects.iterator(); iterator.hasNext(); ) {
+      final DeferredNestedSelect deferred = iterator.next();
+      if (deferred.resultLoader.isLoaded()) {
+        final Object value = deferred.resultLoader.loadResult();
+        if (value != null || (configuration.isCallSettersOnNulls() && !deferred.metaObject.getSetterType(deferred.property).isPrimitive())) {
+          deferred.metaObject.setValue(deferred.property, value);
+        }
+        iterator.remove();
+      }
+    }
+  }
+
+
   private Object prepareParameterForNestedQuery(ResultSet rs, ResultMapping resultMapping, Class<?> parameterType, String columnPrefix) throws SQLException {
     if (resultMapping.isCompositeResult()) {
       return prepareCompositeKeyParameter(rs, resultMapping, parameterType, columnPrefix);
@@ -854,7 +1133,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     Object rowValue = previousRowValue;
     while (shouldProcessMoreRows(resultContext, rowBounds) && !resultSet.isClosed() && resultSet.next()) {
       final ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(resultSet, resultMap, null);
-      final CacheKey rowKey = createRowKey(discriminatedResultMap, rsw, null);
+      final RowKey rowKey = createRowKey(discriminatedResultMap, rsw, null);
       Object partialObject = nestedResultObjects.get(rowKey);
       // issue #577 && #542
       if (mappedStatement.isResultOrdered()) {
@@ -862,6 +1141,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
           nestedResultObjects.clear();
           storeObject(resultHandler, resultContext, rowValue, parentMapping, resultSet);
         }
+        if (partialObject == null && configuration.getResultOrderViolationBehavior() != ResultOrderViolationBehavior.NONE) {
+          checkResultOrder(rsw, resultMap);
+        }
         rowValue = getRowValue(rsw, discriminatedResultMap, rowKey, null, partialObject);
       } else {
         rowValue = getRowValue(rsw, discriminatedResultMap, rowKey, null, partialObject);
@@ -878,11 +1160,55 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
   }
 
+  // objects already handed to the result handler are not merged with rows that follow, so the rows of an object must be
+  // contiguous; checked by the id columns, which the rows are expected to be ordered by
+  private void checkResultOrder(ResultSetWrapper rsw, ResultMap resultMap) throws SQLException {
+    final List<Object> ids = new ArrayList<>();
+    for (ResultMapping idMapping : resultMap.getIdResultMappings()) {
+      final int columnIndex = idMapping.getColumn() == null ? -1 : rsw.getColumnIndex(idMapping.getColumn());
+      if (idMapping.getFlags().contains(ResultFlag.ID) && idMapping.getNestedResultMapId() == null && columnIndex > 0) {
+        final Object id = idMapping.getTypeHandler().getResult(rsw.getResultSet(), columnIndex);
+        if (!(id instanceof Comparable)) {
+          previousRowIds = null;
+          return;
+        }
+        ids.add(id);
+      }
+    }
+    if (ids.isEmpty()) {
+      return;
+    }
+    final Object[] rowIds = ids.toArray();
+    if (previousRowIds != null) {
+      final int order = Integer.signum(compareRowIds(previousRowIds, rowIds));
+      if (rowIdOrder == 0) {
+        rowIdOrder = order;
+      } else if (order != 0 && order != rowIdOrder) {
+        configuration.getResultOrderViolationBehavior().doAction(mappedStatement, resultMap, previousRowIds, rowIds);
+      }
+    }
+    previousRowIds = rowIds;
+  }
+
+  @SuppressWarnings("unchecked")
+  private int compareRowIds(Object[] previousIds, Object[] ids) {
+    for (int i = 0; i < ids.length; i++) {
+      if (previousIds[i].getClass() != ids[i].getClass()) {
+        return 0;
+      }
+      final int order = ((Comparable<Object>) previousIds[i]).compareTo(ids[i]);
+      if (order != 0) {
+        return order;
+      }
+    }
+    return 0;
+  }
+
   //
   // GET VALUE FROM ROW FOR NESTED RESULT MAP
   //
 
-  private Object getRowValue(ResultSetWrapper rsw, ResultMap resultMap, CacheKey combinedKey, String columnPrefix, Object partialObject) throws SQLException {
+  private Object getRowValue(ResultSetWrapper rsw, ResultMap resultMap, RowKey combinedKey, String columnPrefix, Object partialObject) throws SQLException {
     final String resultMapId = resultMap.getId();
     Object rowValue = partialObject;
     if (rowValue != null) {
@@ -906,7 +1232,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         foundValues = lazyLoader.size() > 0 || foundValues;
         rowValue = foundValues || configuration.isReturnInstanceForEmptyRow() ? rowValue : null;
       }
-      if (combinedKey != CacheKey.NULL_CACHE_KEY) {
+      if (combinedKey != RowKey.NULL) {
         nestedResultObjects.put(combinedKey, rowValue);
       }
     }
@@ -921,7 +1247,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   // NESTED RESULT MAP (JOIN MAPPING)
   //
 
-  private boolean applyNestedResultMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String parentPrefix, CacheKey parentRowKey, boolean newObject) {
+  private boolean applyNestedResultMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String parentPrefix, RowKey parentRowKey, boolean newObject) {
     boolean foundValues = false;
     for (ResultMapping resultMapping : resultMap.getPropertyResultMappings()) {
       final String nestedResultMapId = resultMapping.getNestedResultMapId();
@@ -940,8 +1266,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
               continue;
             }
           }
-          final CacheKey rowKey = createRowKey(nestedResultMap, rsw, columnPrefix);
-          final CacheKey combinedKey = combineKeys(rowKey, parentRowKey);
+          final RowKey combinedKey = createRowKey(nestedResultMap, rsw, columnPrefix).combine(parentRowKey);
           Object rowValue = nestedResultObjects.get(combinedKey);
           boolean knownValue = rowValue != null;
           instantiateCollectionPropertyIfAppropriate(resultMapping, metaObject); // mandatory
@@ -1002,37 +1327,31 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   // UNIQUE RESULT KEY
   //
 
-  private CacheKey createRowKey(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix) throws SQLException {
-    final CacheKey cacheKey = new CacheKey();
-    cacheKey.update(resultMap.getId());
+  private RowKey createRowKey(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix) throws SQLException {
+    final Map<String, RowKey.Columns> columnsByPrefix = rowKeyColumns.computeIfAbsent(resultMap.getId(), id -> new HashMap<>());
+    final String prefixKey = columnPrefix == null ? "" : columnPrefix;
+    RowKey.Columns columns = columnsByPrefix.get(prefixKey);
+    if (columns == null) {
+      columns = createRowKeyColumns(resultMap, rsw, columnPrefix);
+      columnsByPrefix.put(prefixKey, columns);
+    }
+    return columns.read(rsw.getResultSet());
+  }
+
+  private RowKey.Columns createRowKeyColumns(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix) throws SQLException {
+    final List<Integer> columns = new ArrayList<>();
+    final List<TypeHandler<?>> typeHandlers = new ArrayList<>();
     List<ResultMapping> resultMappings = getResultMappingsForRowKey(resultMap);
     if (resultMappings.isEmpty()) {
       if (Map.class.isAssignableFrom(resultMap.getType())) {
-        createRowKeyForMap(rsw, cacheKey);
+        createRowKeyColumnsForMap(rsw, columns, typeHandlers);
       } else {
-        createRowKeyForUnmappedProperties(resultMap, rsw, cacheKey, columnPrefix);
-      }
-    } else {
-      createRowKeyForMappedProperties(resultMap, rsw, cacheKey, resultMappings, columnPrefix);
-    }
-    if (cacheKey.getUpdateCount() < 2) {
-      return CacheKey.NULL_CACHE_KEY;
-    }
-    return cacheKey;
-  }
-
-  private CacheKey combineKeys(CacheKey rowKey, CacheKey parentRowKey) {
-    if (rowKey.getUpdateCount() > 1 && parentRowKey.getUpdateCount() > 1) {
-      CacheKey combinedKey;
-      try {
-        combinedKey = rowKey.clone();
-      } catch (CloneNotSupportedException e) {
-        throw new ExecutorException("Error cloning cache key.  Cause: " + e, e);
+        createRowKeyColumnsForUnmappedProperties(resultMap, rsw, columns, typeHandlers, columnPrefix);
       }
-      combinedKey.update(parentRowKey);
-      return combinedKey;
+      return new RowKey.Columns(resultMap.getId(), columnPrefix, columns, typeHandlers, false);
     }
-    return CacheKey.NULL_CACHE_KEY;
+    createRowKeyColumnsForMappedProperties(resultMap, rsw, columns, typeHandlers, resultMappings, columnPrefix);
+    return new RowKey.Columns(resultMap.getId(), columnPrefix, columns, typeHandlers, configuration.isReturnInstanceForEmptyRow());
   }
 
   private List<ResultMapping> getResultMappingsForRowKey(ResultMap resultMap) {
@@ -1043,30 +1362,28 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return resultMappings;
   }
 
-  private void createRowKeyForMappedProperties(ResultMap resultMap, ResultSetWrapper rsw, CacheKey cacheKey, List<ResultMapping> resultMappings, String columnPrefix) throws SQLException {
+  private void createRowKeyColumnsForMappedProperties(ResultMap resultMap, ResultSetWrapper rsw, List<Integer> columns, List<TypeHandler<?>> typeHandlers,
+      List<ResultMapping> resultMappings, String columnPrefix) throws SQLException {
     for (ResultMapping resultMapping : resultMappings) {
       if (resultMapping.getNestedResultMapId() != null && resultMapping.getResultSet() == null) {
         // Issue #392
         final ResultMap nestedResultMap = configuration.getResultMap(resultMapping.getNestedResultMapId());
-        createRowKeyForMappedProperties(nestedResultMap, rsw, cacheKey, nestedResultMap.getConstructorResultMappings(),
+        createRowKeyColumnsForMappedProperties(nestedResultMap, rsw, columns, typeHandlers, nestedResultMap.getConstructorResultMappings(),
           prependPrefix(resultMapping.getColumnPrefix(), columnPrefix));
       } else if (resultMapping.getNestedQueryId() == null) {
         final String column = prependPrefix(resultMapping.getColumn(), columnPrefix);
-        final TypeHandler<?> th = resultMapping.getTypeHandler();
         List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
         // Issue #114
         if (column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH))) {
-          final Object value = th.getResult(rsw.getResultSet(), column);
-          if (value != null || configuration.isReturnInstanceForEmptyRow()) {
-            cacheKey.update(column);
-            cacheKey.update(value);
-          }
+          columns.add(rsw.getColumnIndex(column));
+          typeHandlers.add(resultMapping.getTypeHandler());
         }
       }
     }
   }
 
-  private void createRowKeyForUnmappedProperties(ResultMap resultMap, ResultSetWrapper rsw, CacheKey cacheKey, String columnPrefix) throws SQLException {
+  private void createRowKeyColumnsForUnmappedProperties(ResultMap resultMap, ResultSetWrapper rsw, List<Integer> columns, List<TypeHandler<?>> typeHandlers,
+      String columnPrefix) throws SQLException {
     final MetaClass metaType = MetaClass.forClass(resultMap.getType(), reflectorFactory);
     List<String> unmappedColumnNames = rsw.getUnmappedColumnNames(resultMap, columnPrefix);
     for (String column : unmappedColumnNames) {
@@ -1080,23 +1397,16 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         }
       }
       if (metaType.findProperty(property, configuration.isMapUnderscoreToCamelCase()) != null) {
-        String value = rsw.getResultSet().getString(column);
-        if (value != null) {
-          cacheKey.update(column);
-          cacheKey.update(value);
-        }
+        columns.add(rsw.getColumnIndex(column));
+        typeHandlers.add(null);
       }
     }
   }
 
-  private void createRowKeyForMap(ResultSetWrapper rsw, CacheKey cacheKey) throws SQLException {
-    List<String> columnNames = rsw.getColumnNames();
-    for (String columnName : columnNames) {
-      final String value = rsw.getResultSet().getString(columnName);
-      if (value != null) {
-        cacheKey.update(columnName);
-        cacheKey.update(value);
-      }
+  private void createRowKeyColumnsForMap(ResultSetWrapper rsw, List<Integer> columns, List<TypeHandler<?>> typeHandlers) {
+    for (String columnName : rsw.getColumnNames()) {
+      columns.add(rsw.getColumnIndex(columnName));
+      typeHandlers.add(null);
     }
   }
 
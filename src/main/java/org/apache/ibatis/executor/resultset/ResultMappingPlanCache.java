@@ -0,0 +1,133 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.type.TypeHandlerRegistry;
+
+/**
+ * Keeps the automatic mappings and the compiled row mappers resolved by the {@link DefaultResultSetHandler}, so that
+ * executing a statement again skips matching the columns to properties and type handlers. The plans are shared by all
+ * the statements of a {@link org.apache.ibatis.session.Configuration} and are keyed by result map, column prefix,
+ * result type and the names and types of the columns of the result set. The plans are dropped when a setting they
+ * depend on changes or when a type handler is registered.
+ *
+ * @since 3.5.2
+ */
+public class ResultMappingPlanCache {
+
+  // e.g. a statement selecting different columns on every call, beyond this new plans are resolved for every query
+  private static final int DEFAULT_MAX_PLANS = 1024;
+
+  private final int maxPlans;
+  private final Map<PlanKey, List<DefaultResultSetHandler.UnMappedColumnAutoMapping>> autoMappings = new ConcurrentHashMap<>();
+  private final Map<PlanKey, CompiledRowMapper> rowMappers = new ConcurrentHashMap<>();
+  // the registrations of the type handler registry the plans were resolved with
+  private volatile int typeHandlerRegistrations = -1;
+
+  public ResultMappingPlanCache() {
+    this(DEFAULT_MAX_PLANS);
+  }
+
+  public ResultMappingPlanCache(int maxPlans) {
+    this.maxPlans = maxPlans;
+  }
+
+  public int getSize() {
+    return autoMappings.size() + rowMappers.size();
+  }
+
+  public void clear() {
+    autoMappings.clear();
+    rowMappers.clear();
+  }
+
+  /**
+   * Drops the plans when type handlers have been registered since they were resolved.
+   */
+  void checkTypeHandlers(TypeHandlerRegistry typeHandlerRegistry) {
+    int registrations = typeHandlerRegistry.getRegistrationCount();
+    if (registrations != typeHandlerRegistrations) {
+      clear();
+      typeHandlerRegistrations = registrations;
+    }
+  }
+
+  List<DefaultResultSetHandler.UnMappedColumnAutoMapping> getAutoMappings(PlanKey key) {
+    return autoMappings.get(key);
+  }
+
+  void putAutoMappings(PlanKey key, List<DefaultResultSetHandler.UnMappedColumnAutoMapping> autoMapping) {
+    if (getSize() < maxPlans) {
+      autoMappings.put(key, autoMapping);
+    }
+  }
+
+  CompiledRowMapper getRowMapper(PlanKey key) {
+    return rowMappers.get(key);
+  }
+
+  void putRowMapper(PlanKey key, CompiledRowMapper rowMapper) {
+    if (getSize() < maxPlans) {
+      rowMappers.put(key, rowMapper);
+    }
+  }
+
+  static final class PlanKey {
+    private final String resultMapId;
+    private final String columnPrefix;
+    private final Class<?> type;
+    // the lists of the ResultSetWrapper, which are not modified once it is created
+    private final List<String> columnNames;
+    private final List<?> jdbcTypes;
+    private final List<String> classNames;
+    private final int hashCode;
+
+    PlanKey(String resultMapId, String columnPrefix, Class<?> type, ResultSetWrapper rsw) {
+      this.resultMapId = resultMapId;
+      this.columnPrefix = columnPrefix;
+      this.type = type;
+      this.columnNames = rsw.getColumnNames();
+      this.jdbcTypes = rsw.getJdbcTypes();
+      this.classNames = rsw.getClassNames();
+      this.hashCode = Objects.hash(resultMapId, columnPrefix, type, columnNames, jdbcTypes, classNames);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof PlanKey)) {
+        return false;
+      }
+      PlanKey other = (PlanKey) o;
+      return hashCode == other.hashCode && type == other.type && resultMapId.equals(other.resultMapId)
+          && Objects.equals(columnPrefix, other.columnPrefix) && columnNames.equals(other.columnNames)
+          && jdbcTypes.equals(other.jdbcTypes) && classNames.equals(other.classNames);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+}
@@ -48,6 +48,7 @@ public class ResultSetWrapper {
   private final Map<String, Map<Class<?>, TypeHandler<?>>> typeHandlerMap = new HashMap<>();
   private final Map<String, List<String>> mappedColumnNamesMap = new HashMap<>();
   private final Map<String, List<String>> unMappedColumnNamesMap = new HashMap<>();
+  private final Map<String, Integer> columnIndexMap = new HashMap<>();
 
   public ResultSetWrapper(ResultSet rs, Configuration configuration) throws SQLException {
     super();
@@ -87,6 +88,29 @@ public class ResultSetWrapper {
     return null;
   }
 
+  /**
+   * Returns the index of the first column with the given name, ignoring case like {@link ResultSet#findColumn}.
+   * Each name is resolved once per result set, so that the values can be read by index instead of having the driver
+   * look up the name for every row.
+   *
+   * @return the 1-based column index, or -1 if there is no such column
+   * @since 3.5.2
+   */
+  public int getColumnIndex(String columnName) {
+    Integer index = columnIndexMap.get(columnName);
+    if (index == null) {
+      index = -1;
+      for (int i = 0; i < columnNames.size(); i++) {
+        if (columnNames.get(i).equalsIgnoreCase(columnName)) {
+          index = i + 1;
+          break;
+        }
+      }
+      columnIndexMap.put(columnName, index);
+    }
+    return index;
+  }
+
   /**
    * Gets the type handler to use when reading the result set.
    * Tries to get from the TypeHandlerRegistry by searching for the property type.
@@ -0,0 +1,101 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Rows read from a result set by a {@link CompiledRowMapper} and built into result objects as a fork/join task, so that
+ * the thread reading the result set does not have to create and populate the objects.
+ *
+ * @since 3.5.2
+ * @see DefaultResultSetHandler
+ */
+final class RowBatch extends RecursiveAction {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Rows built by a single task. Smaller batches are built on the thread reading them.
+   */
+  static final int CHUNK_SIZE = 128;
+
+  private final transient CompiledRowMapper rowMapper;
+  // the values read from the rows, replaced by the objects built from them
+  private final Object[] rows;
+  private final RuntimeException[] failures;
+  private final int from;
+  private final int to;
+
+  private RowBatch(CompiledRowMapper rowMapper, Object[] rows, RuntimeException[] failures, int from, int to) {
+    this.rowMapper = rowMapper;
+    this.rows = rows;
+    this.failures = failures;
+    this.from = from;
+    this.to = to;
+  }
+
+  /**
+   * Reads up to {@code maxRows} rows following the current one.
+   *
+   * @return the rows read, or {@code null} if there are no more rows
+   */
+  static RowBatch read(ResultSet rs, CompiledRowMapper rowMapper, int maxRows) throws SQLException {
+    final Object[] rows = new Object[maxRows];
+    int size = 0;
+    while (size < maxRows && !rs.isClosed() && rs.next()) {
+      rows[size++] = rowMapper.read(rs);
+    }
+    return size == 0 ? null : new RowBatch(rowMapper, rows, new RuntimeException[size], 0, size);
+  }
+
+  int size() {
+    return to - from;
+  }
+
+  /**
+   * Returns an object built by this task, which must have completed.
+   *
+   * @throws RuntimeException the exception building that row failed with
+   */
+  Object get(int index) {
+    if (failures[index] != null) {
+      throw failures[index];
+    }
+    return rows[index];
+  }
+
+  @Override
+  protected void compute() {
+    if (size() > CHUNK_SIZE) {
+      final int middle = (from + to) >>> 1;
+      invokeAll(new RowBatch(rowMapper, rows, failures, from, middle), new RowBatch(rowMapper, rows, failures, middle, to));
+      return;
+    }
+    for (int i = from; i < to; i++) {
+      try {
+        rows[i] = rowMapper.build((Object[]) rows[i]);
+      } catch (RuntimeException e) {
+        // thrown when the row is handed to the result handler, after the rows before it
+        rows[i] = null;
+        failures[i] = e;
+      }
+    }
+  }
+
+}
@@ -0,0 +1,232 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.ibatis.reflection.ArrayUtil;
+import org.apache.ibatis.type.ByteTypeHandler;
+import org.apache.ibatis.type.IntegerTypeHandler;
+import org.apache.ibatis.type.LongTypeHandler;
+import org.apache.ibatis.type.ShortTypeHandler;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * Identifies the object a row maps to with a nested result map: the result map and the column prefix it is read with,
+ * the values of its key columns and, for nested objects, the key of the object they belong to. The values of integral
+ * key columns are kept unboxed, and combining a key with the key of its parent shares its values instead of copying
+ * them.
+ *
+ * @since 3.5.2
+ * @see DefaultResultSetHandler
+ */
+final class RowKey {
+
+  /**
+   * The key of rows without values in their key columns, which are never merged with other rows.
+   */
+  static final RowKey NULL = new RowKey(null, null, new long[0], 0L, new Object[0], null);
+
+  private static final byte OBJECT = 0;
+  private static final byte STRING = 1;
+  private static final byte INT = 2;
+  private static final byte LONG = 3;
+  private static final byte SHORT = 4;
+  private static final byte BYTE = 5;
+
+  private final String resultMapId;
+  private final String columnPrefix;
+  private final long[] primitiveValues;
+  // bit i is set when primitive value i is null
+  private final long primitiveNulls;
+  private final Object[] objectValues;
+  private final RowKey parent;
+  private final int hashCode;
+
+  private RowKey(String resultMapId, String columnPrefix, long[] primitiveValues, long primitiveNulls,
+      Object[] objectValues, RowKey parent) {
+    this.resultMapId = resultMapId;
+    this.columnPrefix = columnPrefix;
+    this.primitiveValues = primitiveValues;
+    this.primitiveNulls = primitiveNulls;
+    this.objectValues = objectValues;
+    this.parent = parent;
+    int hash = resultMapId == null ? 0 : resultMapId.hashCode();
+    hash = 31 * hash + (columnPrefix == null ? 0 : columnPrefix.hashCode());
+    for (long value : primitiveValues) {
+      hash = 31 * hash + Long.hashCode(value);
+    }
+    hash = 31 * hash + Long.hashCode(primitiveNulls);
+    for (Object value : objectValues) {
+      hash = 31 * hash + (value == null ? 0 : ArrayUtil.hashCode(value));
+    }
+    this.hashCode = parent == null ? hash : 31 * hash + parent.hashCode;
+  }
+
+  /**
+   * Returns the key of this row's object within the object of the parent key, or {@link #NULL} if either key is.
+   */
+  RowKey combine(RowKey parentKey) {
+    if (this == NULL || parentKey == NULL) {
+      return NULL;
+    }
+    return new RowKey(resultMapId, columnPrefix, primitiveValues, primitiveNulls, objectValues, parentKey);
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    if (this == object) {
+      return true;
+    }
+    if (!(object instanceof RowKey) || this == NULL || object == NULL) {
+      return false;
+    }
+    final RowKey that = (RowKey) object;
+    if (hashCode != that.hashCode || primitiveNulls != that.primitiveNulls || !resultMapId.equals(that.resultMapId)
+        || !Objects.equals(columnPrefix, that.columnPrefix) || !Arrays.equals(primitiveValues, that.primitiveValues)
+        || objectValues.length != that.objectValues.length) {
+      return false;
+    }
+    for (int i = 0; i < objectValues.length; i++) {
+      if (objectValues[i] != that.objectValues[i] && !ArrayUtil.equals(objectValues[i], that.objectValues[i])) {
+        return false;
+      }
+    }
+    return parent == null ? that.parent == null : parent.equals(that.parent);
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
+  @Override
+  public String toString() {
+    return resultMapId + (columnPrefix == null ? "" : "(" + columnPrefix + ")") + Arrays.toString(primitiveValues)
+        + Arrays.toString(objectValues) + (parent == null ? "" : " in " + parent);
+  }
+
+  /**
+   * The key columns of a result map in a result set, resolved once so that the keys of its rows are read by column
+   * index.
+   */
+  static final class Columns {
+
+    private final String resultMapId;
+    private final String columnPrefix;
+    private final int[] primitiveColumns;
+    private final byte[] primitiveTypes;
+    private final int[] objectColumns;
+    private final TypeHandler<?>[] objectTypeHandlers;
+    private final boolean keyOfNulls;
+
+    /**
+     * @param columnPrefix the prefix of the columns, which tells apart the same result map nested more than once
+     * @param typeHandlers the type handler reading each column, or {@code null} to read it as a string
+     * @param keyOfNulls whether a row whose key columns are all null still has a key
+     */
+    Columns(String resultMapId, String columnPrefix, List<Integer> columns, List<TypeHandler<?>> typeHandlers,
+        boolean keyOfNulls) {
+      this.resultMapId = resultMapId;
+      this.columnPrefix = columnPrefix;
+      this.keyOfNulls = keyOfNulls;
+      int primitives = 0;
+      final byte[] types = new byte[columns.size()];
+      for (int i = 0; i < types.length; i++) {
+        types[i] = typeOf(typeHandlers.get(i));
+        if (types[i] > STRING && primitives < Long.SIZE) {
+          primitives++;
+        } else if (types[i] > STRING) {
+          types[i] = OBJECT;
+        }
+      }
+      this.primitiveColumns = new int[primitives];
+      this.primitiveTypes = new byte[primitives];
+      this.objectColumns = new int[types.length - primitives];
+      this.objectTypeHandlers = new TypeHandler<?>[types.length - primitives];
+      for (int i = 0, p = 0, o = 0; i < types.length; i++) {
+        if (types[i] > STRING) {
+          primitiveColumns[p] = columns.get(i);
+          primitiveTypes[p++] = types[i];
+        } else {
+          objectColumns[o] = columns.get(i);
+          objectTypeHandlers[o++] = typeHandlers.get(i);
+        }
+      }
+    }
+
+    // only the type handlers of the core types, whose results are known to be read with these getters
+    private static byte typeOf(TypeHandler<?> typeHandler) {
+      if (typeHandler == null) {
+        return STRING;
+      }
+      final Class<?> type = typeHandler.getClass();
+      if (type == IntegerTypeHandler.class) {
+        return INT;
+      } else if (type == LongTypeHandler.class) {
+        return LONG;
+      } else if (type == ShortTypeHandler.class) {
+        return SHORT;
+      } else if (type == ByteTypeHandler.class) {
+        return BYTE;
+      }
+      return OBJECT;
+    }
+
+    RowKey read(ResultSet rs) throws SQLException {
+      boolean foundValues = false;
+      final long[] primitiveValues = new long[primitiveColumns.length];
+      long primitiveNulls = 0L;
+      for (int i = 0; i < primitiveValues.length; i++) {
+        primitiveValues[i] = readPrimitive(rs, primitiveColumns[i], primitiveTypes[i]);
+        if (rs.wasNull()) {
+          primitiveNulls |= 1L << i;
+        } else {
+          foundValues = true;
+        }
+      }
+      final Object[] objectValues = new Object[objectColumns.length];
+      for (int i = 0; i < objectValues.length; i++) {
+        final TypeHandler<?> typeHandler = objectTypeHandlers[i];
+        objectValues[i] = typeHandler == null ? rs.getString(objectColumns[i]) : typeHandler.getResult(rs, objectColumns[i]);
+        foundValues = objectValues[i] != null || foundValues;
+      }
+      if (!foundValues && !(keyOfNulls && (primitiveValues.length > 0 || objectValues.length > 0))) {
+        return NULL;
+      }
+      return new RowKey(resultMapId, columnPrefix, primitiveValues, primitiveNulls, objectValues, null);
+    }
+
+    private static long readPrimitive(ResultSet rs, int column, byte type) throws SQLException {
+      switch (type) {
+        case INT:
+          return rs.getInt(column);
+        case LONG:
+          return rs.getLong(column);
+        case SHORT:
+          return rs.getShort(column);
+        default:
+          return rs.getByte(column);
+      }
+    }
+
+  }
+
+}
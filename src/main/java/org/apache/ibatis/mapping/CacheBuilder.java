@@ -24,12 +24,15 @@ import java.util.Properties;
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheSerializer;
 import org.apache.ibatis.cache.decorators.BlockingCache;
 import org.apache.ibatis.cache.decorators.LoggingCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.ScheduledCache;
 import org.apache.ibatis.cache.decorators.SerializedCache;
 import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.impl.ConcurrentCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.SystemMetaObject;
@@ -44,6 +47,7 @@ public class CacheBuilder {
   private Integer size;
   private Long clearInterval;
   private boolean readWrite;
+  private Class<? extends CacheSerializer> serializer;
   private Properties properties;
   private boolean blocking;
 
@@ -79,6 +83,14 @@ public class CacheBuilder {
     return this;
   }
 
+  /**
+   * @since 3.5.2
+   */
+  public CacheBuilder serializer(Class<? extends CacheSerializer> serializer) {
+    this.serializer = serializer;
+    return this;
+  }
+
   public CacheBuilder blocking(boolean blocking) {
     this.blocking = blocking;
     return this;
@@ -100,6 +112,15 @@ public class CacheBuilder {
         setCacheProperties(cache);
       }
       cache = setStandardDecorators(cache);
+    } else if (ConcurrentCache.class.equals(cache.getClass())) {
+      // evicts on its own and is thread safe, so neither eviction decorators nor synchronization are applied
+      cache = setStandardDecorators(cache, false, true);
+    } else if (OffHeapCache.class.equals(cache.getClass())) {
+      // stores serialized copies, evicts on its own and is thread safe, so it only needs the serializer
+      if (serializer != null) {
+        ((OffHeapCache) cache).setSerializer(newSerializerInstance(serializer));
+      }
+      cache = setStandardDecorators(cache, false, false);
     } else if (!LoggingCache.class.isAssignableFrom(cache.getClass())) {
       cache = new LoggingCache(cache);
     }
@@ -116,6 +137,10 @@ public class CacheBuilder {
   }
 
   private Cache setStandardDecorators(Cache cache) {
+    return setStandardDecorators(cache, true, true);
+  }
+
+  private Cache setStandardDecorators(Cache cache, boolean synchronize, boolean copy) {
     try {
       MetaObject metaCache = SystemMetaObject.forObject(cache);
       if (size != null && metaCache.hasSetter("size")) {
@@ -125,13 +150,18 @@ public class CacheBuilder {
         cache = new ScheduledCache(cache);
         ((ScheduledCache) cache).setClearInterval(clearInterval);
       }
-      if (readWrite) {
-        cache = new SerializedCache(cache);
+      if (readWrite && copy) {
+        cache = serializer == null ? new SerializedCache(cache)
+            : new SerializedCache(cache, newSerializerInstance(serializer));
       }
       cache = new LoggingCache(cache);
-      cache = new SynchronizedCache(cache);
+      if (synchronize) {
+        cache = new SynchronizedCache(cache);
+      }
       if (blocking) {
         cache = new BlockingCache(cache);
+        // e.g. the timeout of the blocking cache
+        setCacheProperties(cache);
       }
       return cache;
     } catch (Exception e) {
@@ -204,6 +234,14 @@ public class CacheBuilder {
     }
   }
 
+  private CacheSerializer newSerializerInstance(Class<? extends CacheSerializer> serializerClass) {
+    try {
+      return serializerClass.getConstructor().newInstance();
+    } catch (Exception e) {
+      throw new CacheException("Could not instantiate cache serializer (" + serializerClass + "). Cause: " + e, e);
+    }
+  }
+
   private Cache newCacheDecoratorInstance(Class<? extends Cache> cacheClass, Cache base) {
     Constructor<? extends Cache> cacheConstructor = getCacheDecoratorConstructor(cacheClass);
     try {
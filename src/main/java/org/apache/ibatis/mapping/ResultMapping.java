@@ -154,6 +154,11 @@ public class ResultMapping {
       if (resultMapping.nestedResultMapId == null && resultMapping.column == null && resultMapping.composites.isEmpty()) {
         throw new IllegalStateException("Mapping is missing column attribute for property " + resultMapping.property);
       }
+      // a batched nested select matches the rows it loads by a single foreign column
+      if (resultMapping.nestedQueryId != null && resultMapping.resultSet == null && resultMapping.foreignColumn != null
+          && !resultMapping.composites.isEmpty()) {
+        throw new IllegalStateException("Cannot batch a nested select with a composite column in property " + resultMapping.property);
+      }
       if (resultMapping.getResultSet() != null) {
         int numColumns = 0;
         if (resultMapping.column != null) {
@@ -0,0 +1,137 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection.invoker;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Invokes a getter or a setter through a function generated with {@link LambdaMetafactory}. It is still a
+ * {@link MethodInvoker} so that the generic type of the method can be resolved as usual.
+ *
+ * @since 3.5.2
+ */
+public class LambdaMethodInvoker extends MethodInvoker {
+
+  private final Function<Object, Object> getter;
+  private final BiConsumer<Object, Object> setter;
+
+  private LambdaMethodInvoker(Method method, Function<Object, Object> getter, BiConsumer<Object, Object> setter) {
+    super(method);
+    this.getter = getter;
+    this.setter = setter;
+  }
+
+  /**
+   * Returns an invoker of the getter (no parameters) or setter (one parameter), or a {@link MethodInvoker} when no
+   * function can be generated for it, e.g. because the method is not public or its classes are not visible from the
+   * class loader of MyBatis.
+   */
+  @SuppressWarnings("unchecked")
+  public static Invoker forMethod(Method method) {
+    if (!isAccessible(method)) {
+      return new MethodInvoker(method);
+    }
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      MethodHandle handle = lookup.unreflect(method);
+      Class<?> declaringClass = method.getDeclaringClass();
+      if (method.getParameterTypes().length == 0) {
+        CallSite callSite = LambdaMetafactory.metafactory(lookup, "apply", MethodType.methodType(Function.class),
+            MethodType.methodType(Object.class, Object.class), handle,
+            MethodType.methodType(wrap(method.getReturnType()), declaringClass));
+        Function<Object, Object> getter = (Function<Object, Object>) callSite.getTarget().invokeWithArguments();
+        return new LambdaMethodInvoker(method, getter, null);
+      } else {
+        Class<?> parameterType = method.getParameterTypes()[0];
+        CallSite callSite = LambdaMetafactory.metafactory(lookup, "accept", MethodType.methodType(BiConsumer.class),
+            MethodType.methodType(void.class, Object.class, Object.class), handle,
+            MethodType.methodType(void.class, declaringClass, wrap(parameterType)));
+        BiConsumer<Object, Object> setter = (BiConsumer<Object, Object>) callSite.getTarget().invokeWithArguments();
+        return new LambdaMethodInvoker(method, null, setter);
+      }
+    } catch (Throwable t) {
+      return new MethodInvoker(method);
+    }
+  }
+
+  @Override
+  public Object invoke(Object target, Object[] args) throws InvocationTargetException {
+    try {
+      if (getter != null) {
+        return getter.apply(target);
+      }
+      setter.accept(target, args[0]);
+      return null;
+    } catch (Throwable t) {
+      // like Method.invoke
+      throw new InvocationTargetException(t);
+    }
+  }
+
+  private static boolean isAccessible(Method method) {
+    if (Modifier.isStatic(method.getModifiers()) || method.getParameterTypes().length > 1
+        || !Modifier.isPublic(method.getModifiers())) {
+      return false;
+    }
+    // the generated class links the classes of the method through the class loader of MyBatis, from outside their package
+    if (!isVisible(method.getDeclaringClass()) || !isVisible(method.getReturnType())) {
+      return false;
+    }
+    for (Class<?> parameterType : method.getParameterTypes()) {
+      if (!isVisible(parameterType)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns whether a function generated with {@link LambdaMetafactory} from the class loader of MyBatis can link the
+   * class: it must be public, as must all its enclosing classes, and that class loader must resolve it.
+   */
+  public static boolean isVisible(Class<?> type) {
+    while (type.isArray()) {
+      type = type.getComponentType();
+    }
+    if (type.isPrimitive()) {
+      return true;
+    }
+    for (Class<?> c = type; c != null; c = c.getDeclaringClass()) {
+      if (!Modifier.isPublic(c.getModifiers())) {
+        return false;
+      }
+    }
+    try {
+      return Class.forName(type.getName(), false, LambdaMethodInvoker.class.getClassLoader()) == type;
+    } catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
+  private static Class<?> wrap(Class<?> type) {
+    return MethodType.methodType(type).wrap().returnType();
+  }
+
+}
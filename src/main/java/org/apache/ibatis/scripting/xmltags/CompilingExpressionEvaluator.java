@@ -0,0 +1,444 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import ognl.OgnlOps;
+
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.ReflectorFactory;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * An {@link ExpressionEvaluator} that compiles the common expressions of dynamic SQL into a tree of Java objects the
+ * first time they are evaluated, and falls back to OGNL for everything else.
+ * <p>
+ * Compiled expressions are property paths (read with the getters resolved by the {@link Reflector}, or from maps),
+ * {@code null}, boolean, number and string literals, the comparisons {@code == != < > <= >=} (and their
+ * {@code eq neq lt gt lte gte} forms), {@code and or not && || !} and parentheses. Literals, comparisons and boolean
+ * operators have the same semantics as in OGNL. An expression is also evaluated with OGNL whenever a compiled one
+ * meets a value it does not handle, e.g. a property of a null value or of a collection.
+ *
+ * @since 3.5.2
+ */
+class CompilingExpressionEvaluator extends ExpressionEvaluator {
+
+  private static final Node NOT_COMPILED = bindings -> {
+    throw Fallback.INSTANCE;
+  };
+  private static final Set<String> RESERVED_WORDS = new HashSet<>(Arrays.asList("in", "instanceof", "new", "shl",
+      "shr", "ushr", "band", "bor", "xor", "bnot"));
+  private static final Set<String> MAP_PSEUDO_PROPERTIES = new HashSet<>(Arrays.asList("size", "isEmpty", "keys",
+      "keySet", "values"));
+
+  private final ReflectorFactory reflectorFactory;
+  private final ObjectWrapperFactory objectWrapperFactory;
+  private final Map<String, Node> compiledExpressions = new ConcurrentHashMap<>();
+
+  CompilingExpressionEvaluator(Configuration configuration) {
+    this.reflectorFactory = configuration.getReflectorFactory();
+    this.objectWrapperFactory = configuration.getObjectWrapperFactory();
+  }
+
+  @Override
+  protected Object getValue(String expression, Object parameterObject) {
+    if (parameterObject instanceof DynamicContext.ContextMap) {
+      Node node = compiledExpressions.computeIfAbsent(expression, this::compile);
+      try {
+        return node.getValue((Map<?, ?>) parameterObject);
+      } catch (RuntimeException e) {
+        // evaluated with OGNL below, which also reports the errors
+      }
+    }
+    return super.getValue(expression, parameterObject);
+  }
+
+  private Node compile(String expression) {
+    List<String> tokens = tokenize(expression);
+    if (tokens == null) {
+      return NOT_COMPILED;
+    }
+    Parser parser = new Parser(tokens);
+    Node node = parser.parseOr();
+    return node != null && parser.atEnd() ? node : NOT_COMPILED;
+  }
+
+  /**
+   * Splits the expression into identifiers, literals and operators, or returns null when it contains anything else.
+   */
+  private static List<String> tokenize(String expression) {
+    List<String> tokens = new ArrayList<>();
+    int i = 0;
+    int length = expression.length();
+    while (i < length) {
+      char c = expression.charAt(i);
+      if (Character.isWhitespace(c)) {
+        i++;
+      } else if (Character.isJavaIdentifierStart(c)) {
+        int start = i;
+        while (i < length && (Character.isJavaIdentifierPart(expression.charAt(i)) || expression.charAt(i) == '.')) {
+          i++;
+        }
+        tokens.add(expression.substring(start, i));
+      } else if (Character.isDigit(c)) {
+        int start = i;
+        while (i < length && (Character.isDigit(expression.charAt(i)) || expression.charAt(i) == '.')) {
+          i++;
+        }
+        if (i < length && Character.isJavaIdentifierPart(expression.charAt(i))) {
+          // e.g. the suffixes of long and big decimal literals
+          return null;
+        }
+        tokens.add(expression.substring(start, i));
+      } else if (c == '\'' || c == '"') {
+        int end = expression.indexOf(c, i + 1);
+        if (end < 0 || expression.indexOf('\\', i + 1) >= 0 && expression.indexOf('\\', i + 1) < end) {
+          return null;
+        }
+        tokens.add(expression.substring(i, end + 1));
+        i = end + 1;
+      } else if (c == '(' || c == ')') {
+        tokens.add(String.valueOf(c));
+        i++;
+      } else if ("=!<>&|".indexOf(c) >= 0) {
+        int start = i;
+        while (i < length && "=!<>&|".indexOf(expression.charAt(i)) >= 0) {
+          i++;
+        }
+        tokens.add(expression.substring(start, i));
+      } else {
+        return null;
+      }
+    }
+    return tokens;
+  }
+
+  /**
+   * A compiled expression, or a part of it.
+   */
+  @FunctionalInterface
+  private interface Node {
+    Object getValue(Map<?, ?> bindings);
+  }
+
+  /**
+   * Thrown when a compiled expression has to be evaluated with OGNL instead.
+   */
+  private static final class Fallback extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+    private static final Fallback INSTANCE = new Fallback();
+
+    private Fallback() {
+      super(null, null, false, false);
+    }
+  }
+
+  private final class Parser {
+    private final List<String> tokens;
+    private int position;
+
+    Parser(List<String> tokens) {
+      this.tokens = tokens;
+    }
+
+    boolean atEnd() {
+      return position == tokens.size();
+    }
+
+    private String peek() {
+      return atEnd() ? null : tokens.get(position);
+    }
+
+    private boolean accept(String... alternatives) {
+      String token = peek();
+      for (String alternative : alternatives) {
+        if (alternative.equals(token)) {
+          position++;
+          return true;
+        }
+      }
+      return false;
+    }
+
+    Node parseOr() {
+      Node left = parseAnd();
+      while (left != null && accept("or", "||")) {
+        Node l = left;
+        Node r = parseAnd();
+        if (r == null) {
+          return null;
+        }
+        left = bindings -> {
+          Object value = l.getValue(bindings);
+          return OgnlOps.booleanValue(value) ? value : r.getValue(bindings);
+        };
+      }
+      return left;
+    }
+
+    private Node parseAnd() {
+      Node left = parseComparison();
+      while (left != null && accept("and", "&&")) {
+        Node l = left;
+        Node r = parseComparison();
+        if (r == null) {
+          return null;
+        }
+        left = bindings -> {
+          Object value = l.getValue(bindings);
+          return OgnlOps.booleanValue(value) ? r.getValue(bindings) : value;
+        };
+      }
+      return left;
+    }
+
+    private Node parseComparison() {
+      Node left = parseUnary();
+      if (left == null) {
+        return null;
+      }
+      String operator = peek();
+      if (operator == null) {
+        return left;
+      }
+      if (accept("==", "eq")) {
+        Node right = parseUnary();
+        return right == null ? null : bindings -> OgnlOps.equal(left.getValue(bindings), right.getValue(bindings));
+      } else if (accept("!=", "neq")) {
+        Node right = parseUnary();
+        return right == null ? null : bindings -> !OgnlOps.equal(left.getValue(bindings), right.getValue(bindings));
+      } else if (accept("<", "lt")) {
+        Node right = parseUnary();
+        return right == null ? null : bindings -> OgnlOps.less(left.getValue(bindings), right.getValue(bindings));
+      } else if (accept(">", "gt")) {
+        Node right = parseUnary();
+        return right == null ? null : bindings -> OgnlOps.greater(left.getValue(bindings), right.getValue(bindings));
+      } else if (accept("<=", "lte")) {
+        Node right = parseUnary();
+        return right == null ? null : bindings -> !OgnlOps.greater(left.getValue(bindings), right.getValue(bindings));
+      } else if (accept(">=", "gte")) {
+        Node right = parseUnary();
+        return right == null ? null : bindings -> !OgnlOps.less(left.getValue(bindings), right.getValue(bindings));
+      }
+      return left;
+    }
+
+    private Node parseUnary() {
+      if (accept("not", "!")) {
+        Node operand = parseUnary();
+        return operand == null ? null : bindings -> !OgnlOps.booleanValue(operand.getValue(bindings));
+      }
+      return parsePrimary();
+    }
+
+    private Node parsePrimary() {
+      String token = peek();
+      if (token == null) {
+        return null;
+      }
+      position++;
+      char first = token.charAt(0);
+      if (token.equals("(")) {
+        Node node = parseOr();
+        return node != null && accept(")") ? node : null;
+      } else if (first == '\'' || first == '"') {
+        String text = token.substring(1, token.length() - 1);
+        // as in OGNL a single quoted character is a char
+        Object literal = first == '\'' && text.length() == 1 ? (Object) text.charAt(0) : text;
+        return bindings -> literal;
+      } else if (Character.isDigit(first)) {
+        Object literal = parseNumber(token);
+        return literal == null ? null : bindings -> literal;
+      } else if (Character.isJavaIdentifierStart(first)) {
+        return parseIdentifier(token);
+      }
+      return null;
+    }
+
+    private Object parseNumber(String token) {
+      try {
+        return token.indexOf('.') >= 0 ? (Object) Double.valueOf(token) : (Object) Integer.valueOf(token);
+      } catch (NumberFormatException e) {
+        return null;
+      }
+    }
+
+    private Node parseIdentifier(String token) {
+      switch (token) {
+        case "null":
+          return bindings -> null;
+        case "true":
+          return bindings -> Boolean.TRUE;
+        case "false":
+          return bindings -> Boolean.FALSE;
+        default:
+          break;
+      }
+      String[] names = token.split("\\.", -1);
+      for (String name : names) {
+        if (name.isEmpty() || RESERVED_WORDS.contains(name) || isOperatorWord(name)) {
+          return null;
+        }
+      }
+      Node node = new RootNode(names[0]);
+      for (int i = 1; i < names.length; i++) {
+        node = new PropertyNode(node, names[i]);
+      }
+      return node;
+    }
+
+    private boolean isOperatorWord(String name) {
+      switch (name) {
+        case "and":
+        case "or":
+        case "not":
+        case "eq":
+        case "neq":
+        case "lt":
+        case "gt":
+        case "lte":
+        case "gte":
+          return true;
+        default:
+          return false;
+      }
+    }
+  }
+
+  /**
+   * Reads a binding, or else a property of the parameter object, in the same way as
+   * {@link DynamicContext.ContextAccessor}.
+   */
+  private final class RootNode implements Node {
+    private final String name;
+    private final Getter getter;
+
+    RootNode(String name) {
+      this.name = name;
+      this.getter = new Getter(name);
+    }
+
+    @Override
+    public Object getValue(Map<?, ?> bindings) {
+      if (bindings.containsKey(name)) {
+        return bindings.get(name);
+      }
+      Object parameterObject = bindings.get(DynamicContext.PARAMETER_OBJECT_KEY);
+      if (parameterObject == null) {
+        return null;
+      }
+      if (parameterObject instanceof Map) {
+        return ((Map<?, ?>) parameterObject).get(name);
+      }
+      if (objectWrapperFactory.hasWrapperFor(parameterObject)) {
+        // read through the custom wrapper of the parameter's MetaObject
+        throw Fallback.INSTANCE;
+      }
+      return getter.invoke(parameterObject);
+    }
+  }
+
+  /**
+   * Reads a property of the value of another node.
+   */
+  private final class PropertyNode implements Node {
+    private final Node target;
+    private final String name;
+    private final Getter getter;
+
+    PropertyNode(Node target, String name) {
+      this.target = target;
+      this.name = name;
+      this.getter = new Getter(name);
+    }
+
+    @Override
+    public Object getValue(Map<?, ?> bindings) {
+      Object value = target.getValue(bindings);
+      if (value == null) {
+        throw Fallback.INSTANCE;
+      }
+      if (value instanceof Map) {
+        if (MAP_PSEUDO_PROPERTIES.contains(name)) {
+          throw Fallback.INSTANCE;
+        }
+        return ((Map<?, ?>) value).get(name);
+      }
+      return getter.invoke(value);
+    }
+  }
+
+  /**
+   * Invokes the getter of a bean property, remembering the getter of the last type it met.
+   */
+  private final class Getter {
+    private final String name;
+    private volatile ResolvedGetter lastGetter;
+
+    Getter(String name) {
+      this.name = name;
+    }
+
+    Object invoke(Object bean) {
+      ResolvedGetter getter = lastGetter;
+      if (getter == null || getter.type != bean.getClass()) {
+        getter = resolve(bean.getClass());
+        lastGetter = getter;
+      }
+      if (getter.invoker == null) {
+        throw Fallback.INSTANCE;
+      }
+      try {
+        return getter.invoker.invoke(bean, null);
+      } catch (Exception e) {
+        throw Fallback.INSTANCE;
+      }
+    }
+
+    private ResolvedGetter resolve(Class<?> type) {
+      Invoker invoker = null;
+      if (!type.isArray() && !Collection.class.isAssignableFrom(type) && !Iterator.class.isAssignableFrom(type)) {
+        Reflector reflector = reflectorFactory.findForClass(type);
+        if (reflector.hasGetter(name)) {
+          invoker = reflector.getGetInvoker(name);
+        }
+      }
+      return new ResolvedGetter(type, invoker);
+    }
+  }
+
+  private static final class ResolvedGetter {
+    private final Class<?> type;
+    private final Invoker invoker;
+
+    ResolvedGetter(Class<?> type, Invoker invoker) {
+      this.type = type;
+      this.invoker = invoker;
+    }
+  }
+
+}
@@ -23,7 +23,6 @@ import org.apache.ibatis.session.Configuration;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.StringJoiner;
 
 /**
  * @author Clinton Begin
@@ -38,10 +37,23 @@ public class DynamicContext {
   }
 
   private final ContextMap bindings;
-  private final StringJoiner sqlBuilder = new StringJoiner(" ");
+  // the parts are joined with spaces
+  private final StringBuilder sqlBuilder;
+  private boolean sqlEmpty = true;
   private int uniqueNumber = 0;
+  // whether a ${} value was substituted into the SQL text
+  private boolean substituted;
 
   public DynamicContext(Configuration configuration, Object parameterObject) {
+    this(configuration, parameterObject, 16);
+  }
+
+  /**
+   * @param expectedSqlLength the initial capacity of the SQL text, e.g. the length of the SQL the same statement
+   *        produced before
+   */
+  DynamicContext(Configuration configuration, Object parameterObject, int expectedSqlLength) {
+    sqlBuilder = new StringBuilder(expectedSqlLength);
     if (parameterObject != null && !(parameterObject instanceof Map)) {
       MetaObject metaObject = configuration.newMetaObject(parameterObject);
       bindings = new ContextMap(metaObject);
@@ -65,13 +77,25 @@ public class DynamicContext {
    * @param sql
    */
   public void appendSql(String sql) {
-    sqlBuilder.add(sql);
+    if (!sqlEmpty) {
+      sqlBuilder.append(' ');
+    }
+    sqlBuilder.append(sql);
+    sqlEmpty = false;
   }
 
   public String getSql() {
     return sqlBuilder.toString().trim();
   }
 
+  void markSubstituted() {
+    substituted = true;
+  }
+
+  boolean isSubstituted() {
+    return substituted;
+  }
+
   public int getUniqueNumber() {
     return uniqueNumber++;
   }
@@ -15,9 +15,17 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
 import org.apache.ibatis.builder.SqlSourceBuilder;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.session.Configuration;
 
 /**
@@ -25,8 +33,23 @@ import org.apache.ibatis.session.Configuration;
  */
 public class DynamicSqlSource implements SqlSource {
 
+  // e.g. a foreach over lists of every length, beyond this the least recently used shapes are evicted
+  private static final int MAX_SHAPES = 256;
+
   private final Configuration configuration;
   private final SqlNode rootSqlNode;
+  // parsed #{} placeholders of the SQL texts the nodes have produced recently
+  private final Map<ShapeKey, Shape> shapes = Collections.synchronizedMap(
+      new LinkedHashMap<ShapeKey, Shape>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ShapeKey, Shape> eldest) {
+          return size() > MAX_SHAPES;
+        }
+      });
+  // the longest SQL text produced so far, so that the next one is built without resizing
+  private volatile int expectedSqlLength = 64;
 
   public DynamicSqlSource(Configuration configuration, SqlNode rootSqlNode) {
     this.configuration = configuration;
@@ -36,14 +59,88 @@ public class DynamicSqlSource implements SqlSource {
   @Override
   public BoundSql getBoundSql(Object parameterObject) {
     //上下文
-    DynamicContext context = new DynamicContext(configuration, parameterObject);
+    DynamicContext context = new DynamicContext(configuration, parameterObject, expectedSqlLength);
     rootSqlNode.apply(context);//设置上下文
-    SqlSourceBuilder sqlSourceParser = new SqlSourceBuilder(configuration);
     Class<?> parameterType = parameterObject == null ? Object.class : parameterObject.getClass();
-    SqlSource sqlSource = sqlSourceParser.parse(context.getSql(), parameterType, context.getBindings());
-    BoundSql boundSql = sqlSource.getBoundSql(parameterObject);
+    ShapeKey key = new ShapeKey(context.getSql(), parameterType);
+    if (key.sql.length() > expectedSqlLength) {
+      expectedSqlLength = key.sql.length();
+    }
+    MetaObject metaBindings = configuration.newMetaObject(context.getBindings());
+    // a text with ${} values is rarely produced again, so it is not worth a place in the cache
+    Shape shape = context.isSubstituted() ? null : shapes.get(key);
+    if (shape == null || !shape.matches(metaBindings)) {
+      SqlSourceBuilder sqlSourceParser = new SqlSourceBuilder(configuration);
+      SqlSource sqlSource = sqlSourceParser.parse(key.sql, parameterType, context.getBindings());
+      shape = new Shape(sqlSource, metaBindings);
+      if (!context.isSubstituted()) {
+        shapes.put(key, shape);
+      }
+    }
+    BoundSql boundSql = shape.sqlSource.getBoundSql(parameterObject);
     context.getBindings().forEach(boundSql::setAdditionalParameter);
     return boundSql;
   }
 
+  private static final class ShapeKey {
+    private final String sql;
+    private final Class<?> parameterType;
+
+    ShapeKey(String sql, Class<?> parameterType) {
+      this.sql = sql;
+      this.parameterType = parameterType;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof ShapeKey)) {
+        return false;
+      }
+      ShapeKey other = (ShapeKey) o;
+      return parameterType == other.parameterType && sql.equals(other.sql);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * sql.hashCode() + parameterType.hashCode();
+    }
+  }
+
+  /**
+   * A parsed SQL text. The types of its parameter mappings also depend on the values bound by the nodes (e.g. the
+   * items of a foreach), so the shape can only be reused when those bindings still have the same types.
+   */
+  private static final class Shape {
+    private final SqlSource sqlSource;
+    private final String[] properties;
+    private final Class<?>[] bindingTypes;
+
+    Shape(SqlSource sqlSource, MetaObject metaBindings) {
+      this.sqlSource = sqlSource;
+      List<ParameterMapping> parameterMappings = sqlSource.getBoundSql(null).getParameterMappings();
+      this.properties = new String[parameterMappings.size()];
+      this.bindingTypes = new Class<?>[parameterMappings.size()];
+      for (int i = 0; i < properties.length; i++) {
+        properties[i] = parameterMappings.get(i).getProperty();
+        bindingTypes[i] = bindingType(metaBindings, properties[i]);
+      }
+    }
+
+    boolean matches(MetaObject metaBindings) {
+      for (int i = 0; i < properties.length; i++) {
+        if (!Objects.equals(bindingTypes[i], bindingType(metaBindings, properties[i]))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static Class<?> bindingType(MetaObject metaBindings, String property) {
+      return property != null && metaBindings.hasGetter(property) ? metaBindings.getGetterType(property) : null;
+    }
+  }
+
 }
@@ -37,7 +37,11 @@ public class ForEachSqlNode implements SqlNode {
   private final Configuration configuration;
 
   public ForEachSqlNode(Configuration configuration, SqlNode contents, String collectionExpression, String index, String item, String open, String close, String separator) {
-    this.evaluator = new ExpressionEvaluator();
+    this(configuration, contents, collectionExpression, index, item, open, close, separator, new ExpressionEvaluator());
+  }
+
+  ForEachSqlNode(Configuration configuration, SqlNode contents, String collectionExpression, String index, String item, String open, String close, String separator, ExpressionEvaluator evaluator) {
+    this.evaluator = evaluator;
     this.collectionExpression = collectionExpression;
     this.contents = contents;
     this.open = open;
@@ -26,7 +26,12 @@ import org.apache.ibatis.cache.decorators.FifoCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.SoftCache;
 import org.apache.ibatis.cache.decorators.WeakCache;
+import org.apache.ibatis.cache.impl.ConcurrentCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.serializer.BinaryCacheSerializer;
+import org.apache.ibatis.cache.serializer.CopyingCacheSerializer;
+import org.apache.ibatis.cache.serializer.JavaCacheSerializer;
 import org.apache.ibatis.datasource.jndi.JndiDataSourceFactory;
 import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSourceFactory;
@@ -34,9 +39,11 @@ import org.apache.ibatis.executor.*;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
+import org.apache.ibatis.executor.loader.javassist.GeneratedProxyFactory;
 import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
+import org.apache.ibatis.executor.resultset.ResultMappingPlanCache;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
 import org.apache.ibatis.executor.statement.RoutingStatementHandler;
 import org.apache.ibatis.executor.statement.StatementHandler;
@@ -74,6 +81,12 @@ import org.apache.ibatis.type.TypeHandler;
 import org.apache.ibatis.type.TypeHandlerRegistry;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 
 /**
@@ -94,6 +107,12 @@ public class Configuration {
   protected boolean callSettersOnNulls;
   protected boolean useActualParamName = true;
   protected boolean returnInstanceForEmptyRow;
+  protected boolean dynamicSqlCompilationEnabled;
+  protected boolean resultMapCompilationEnabled;
+  protected boolean parallelRowMappingEnabled;
+  protected boolean parallelLazyLoadingEnabled;
+  protected boolean batchReorderingEnabled;
+  protected boolean multiRowInsertEnabled;
 
   protected String logPrefix;
   protected Class<? extends Log> logImpl;
@@ -101,17 +120,29 @@ public class Configuration {
   protected LocalCacheScope localCacheScope = LocalCacheScope.SESSION;
   protected JdbcType jdbcTypeForNull = JdbcType.OTHER;
   protected Set<String> lazyLoadTriggerMethods = new HashSet<>(Arrays.asList("equals", "clone", "hashCode", "toString"));
+  protected List<String> batchTableOrder = new ArrayList<>();
+  protected int batchSize;
+  protected int batchBytes;
+  protected BatchResultHandler batchResultHandler;
+  protected int multiRowInsertMaxParameters = 2000;
+  protected int reuseStatementCacheSize = 256;
   protected Integer defaultStatementTimeout;
   protected Integer defaultFetchSize;
+  protected int nestedSelectBatchSize = 100;
   protected ExecutorType defaultExecutorType = ExecutorType.SIMPLE;
   protected AutoMappingBehavior autoMappingBehavior = AutoMappingBehavior.PARTIAL;
   protected AutoMappingUnknownColumnBehavior autoMappingUnknownColumnBehavior = AutoMappingUnknownColumnBehavior.NONE;
+  protected ResultOrderViolationBehavior resultOrderViolationBehavior = ResultOrderViolationBehavior.NONE;
 
   protected Properties variables = new Properties();
   protected ReflectorFactory reflectorFactory = new DefaultReflectorFactory();
   protected ObjectFactory objectFactory = new DefaultObjectFactory();
   protected ObjectWrapperFactory objectWrapperFactory = new DefaultObjectWrapperFactory();
 
+  protected ForkJoinPool rowMappingPool = ForkJoinPool.commonPool();
+  // created on first use, see getLazyLoadingPool()
+  protected ExecutorService lazyLoadingPool;
+
   protected boolean lazyLoadingEnabled = false;
   protected ProxyFactory proxyFactory = new JavassistProxyFactory(); // #224 Using internal Javassist instead of OGNL
 
@@ -129,6 +160,7 @@ public class Configuration {
   protected final TypeHandlerRegistry typeHandlerRegistry = new TypeHandlerRegistry();
   protected final TypeAliasRegistry typeAliasRegistry = new TypeAliasRegistry();
   protected final LanguageDriverRegistry languageRegistry = new LanguageDriverRegistry();
+  protected final ResultMappingPlanCache resultMappingPlanCache = new ResultMappingPlanCache();
 
   /**
    * 存放mappedStatment
@@ -171,11 +203,17 @@ public class Configuration {
     typeAliasRegistry.registerAlias("UNPOOLED", UnpooledDataSourceFactory.class);
 
     typeAliasRegistry.registerAlias("PERPETUAL", PerpetualCache.class);
+    typeAliasRegistry.registerAlias("CONCURRENT", ConcurrentCache.class);
+    typeAliasRegistry.registerAlias("OFF_HEAP", OffHeapCache.class);
     typeAliasRegistry.registerAlias("FIFO", FifoCache.class);
     typeAliasRegistry.registerAlias("LRU", LruCache.class);
     typeAliasRegistry.registerAlias("SOFT", SoftCache.class);
     typeAliasRegistry.registerAlias("WEAK", WeakCache.class);
 
+    typeAliasRegistry.registerAlias("JAVA", JavaCacheSerializer.class);
+    typeAliasRegistry.registerAlias("BINARY", BinaryCacheSerializer.class);
+    typeAliasRegistry.registerAlias("COPY", CopyingCacheSerializer.class);
+
     typeAliasRegistry.registerAlias("DB_VENDOR", VendorDatabaseIdProvider.class);
 
     typeAliasRegistry.registerAlias("XML", XMLLanguageDriver.class);
@@ -191,6 +229,7 @@ public class Configuration {
 
     typeAliasRegistry.registerAlias("CGLIB", CglibProxyFactory.class);
     typeAliasRegistry.registerAlias("JAVASSIST", JavassistProxyFactory.class);
+    typeAliasRegistry.registerAlias("GENERATED", GeneratedProxyFactory.class);
 
     languageRegistry.setDefaultDriverClass(XMLLanguageDriver.class);
     languageRegistry.register(RawLanguageDriver.class);
@@ -232,6 +271,7 @@ public class Configuration {
 
   public void setCallSettersOnNulls(boolean callSettersOnNulls) {
     this.callSettersOnNulls = callSettersOnNulls;
+    resultMappingPlanCache.clear();
   }
 
   public boolean isUseActualParamName() {
@@ -242,12 +282,278 @@ public class Configuration {
     this.useActualParamName = useActualParamName;
   }
 
+  /**
+   * @since 3.5.2
+   */
+  public boolean isDynamicSqlCompilationEnabled() {
+    return dynamicSqlCompilationEnabled;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public void setDynamicSqlCompilationEnabled(boolean dynamicSqlCompilationEnabled) {
+    this.dynamicSqlCompilationEnabled = dynamicSqlCompilationEnabled;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public boolean isResultMapCompilationEnabled() {
+    return resultMapCompilationEnabled;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public void setResultMapCompilationEnabled(boolean resultMapCompilationEnabled) {
+    this.resultMapCompilationEnabled = resultMapCompilationEnabled;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public boolean isParallelRowMappingEnabled() {
+    return parallelRowMappingEnabled;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public void setParallelRowMappingEnabled(boolean parallelRowMappingEnabled) {
+    this.parallelRowMappingEnabled = parallelRowMappingEnabled;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public ForkJoinPool getRowMappingPool() {
+    return rowMappingPool;
+  }
+
+  /**
+   * Sets the pool building result objects when {@link #isParallelRowMappingEnabled() parallel row mapping} is enabled.
+   * Defaults to the {@link ForkJoinPool#commonPool() common pool}.
+   *
+   * @since 3.5.2
+   */
+  public void setRowMappingPool(ForkJoinPool rowMappingPool) {
+    this.rowMappingPool = rowMappingPool;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public boolean isParallelLazyLoadingEnabled() {
+    return parallelLazyLoadingEnabled;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public void setParallelLazyLoadingEnabled(boolean parallelLazyLoadingEnabled) {
+    this.parallelLazyLoadingEnabled = parallelLazyLoadingEnabled;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public synchronized ExecutorService getLazyLoadingPool() {
+    if (lazyLoadingPool == null) {
+      lazyLoadingPool = newLazyLoadingPool();
+    }
+    return lazyLoadingPool;
+  }
+
+  /**
+   * Sets the pool running the queries of lazy properties loaded at once when
+   * {@link #isParallelLazyLoadingEnabled() parallel lazy loading} is enabled.
+   * Defaults to a dedicated pool of daemon threads, one per processor, that time out when idle. Each query of the pool
+   * needs a connection of its own besides the one of the session, and the calling thread runs the queries that have
+   * not acquired their connection yet itself, so a pool larger than the connections left to it does not speed up.
+   *
+   * @since 3.5.2
+   */
+  public synchronized void setLazyLoadingPool(ExecutorService lazyLoadingPool) {
+    this.lazyLoadingPool = lazyLoadingPool;
+  }
+
+  // not the common pool, which is shared by the whole JVM and must not be held up by queries waiting for connections
+  private static ExecutorService newLazyLoadingPool() {
+    final int threads = Runtime.getRuntime().availableProcessors();
+    final AtomicInteger threadCount = new AtomicInteger();
+    ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+        runnable -> {
+          Thread thread = new Thread(runnable, "mybatis-lazy-loading-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+    pool.allowCoreThreadTimeOut(true);
+    return pool;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public boolean isBatchReorderingEnabled() {
+    return batchReorderingEnabled;
+  }
+
+  /**
+   * Sets whether the batch executor adds a statement to an earlier batch of the same sql, and not only to the last one,
+   * when the statement does not have to move ahead of statements of its own table or of tables it depends on.
+   *
+   * @since 3.5.2
+   * @see #setBatchTableOrder(List)
+   */
+  public void setBatchReorderingEnabled(boolean batchReorderingEnabled) {
+    this.batchReorderingEnabled = batchReorderingEnabled;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public List<String> getBatchTableOrder() {
+    return batchTableOrder;
+  }
+
+  /**
+   * Sets the tables written by reordered batches, parent tables first. When empty, the tables are ordered as they
+   * are first written in each batch.
+   *
+   * @since 3.5.2
+   */
+  public void setBatchTableOrder(List<String> batchTableOrder) {
+    this.batchTableOrder = batchTableOrder;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * Sets the number of statements after which the batch executor executes its batches without waiting for
+   * {@link SqlSession#flushStatements()}. {@code 0} (the default) disables it.
+   *
+   * @since 3.5.2
+   */
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public int getBatchBytes() {
+    return batchBytes;
+  }
+
+  /**
+   * Sets the estimated size in bytes of the parameters after which the batch executor executes its batches without
+   * waiting for {@link SqlSession#flushStatements()}. {@code 0} (the default) disables it.
+   *
+   * @since 3.5.2
+   */
+  public void setBatchBytes(int batchBytes) {
+    this.batchBytes = batchBytes;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public BatchResultHandler getBatchResultHandler() {
+    return batchResultHandler;
+  }
+
+  /**
+   * Sets the handler receiving every batch executed by any batch executor of this configuration. Without it, the
+   * batches flushed on reaching the {@link #setBatchSize(int) batch size} or {@link #setBatchBytes(int) bytes} are
+   * returned by the next {@code flushStatements()} of the session with their update counts but without their
+   * parameters, which the executor does not keep.
+   *
+   * @since 3.5.2
+   */
+  public void setBatchResultHandler(BatchResultHandler batchResultHandler) {
+    this.batchResultHandler = batchResultHandler;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public boolean isMultiRowInsertEnabled() {
+    return multiRowInsertEnabled;
+  }
+
+  /**
+   * Sets whether the batch executor executes the batched rows of a single row {@code INSERT ... VALUES (...)}
+   * statement as {@code INSERT ... VALUES (...), (...), ...} statements.
+   *
+   * @since 3.5.2
+   * @see #setMultiRowInsertMaxParameters(int)
+   */
+  public void setMultiRowInsertEnabled(boolean multiRowInsertEnabled) {
+    this.multiRowInsertEnabled = multiRowInsertEnabled;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public int getMultiRowInsertMaxParameters() {
+    return multiRowInsertMaxParameters;
+  }
+
+  /**
+   * Sets the maximum number of parameters of a multi row insert statement, which limits its number of rows.
+   *
+   * @since 3.5.2
+   */
+  public void setMultiRowInsertMaxParameters(int multiRowInsertMaxParameters) {
+    this.multiRowInsertMaxParameters = multiRowInsertMaxParameters;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public int getReuseStatementCacheSize() {
+    return reuseStatementCacheSize;
+  }
+
+  /**
+   * Sets the maximum number of statements kept open by a {@link ReuseExecutor}, which closes the least recently
+   * used statement when it is exceeded. 0 means no limit.
+   *
+   * @since 3.5.2
+   */
+  public void setReuseStatementCacheSize(int reuseStatementCacheSize) {
+    this.reuseStatementCacheSize = reuseStatementCacheSize;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public int getNestedSelectBatchSize() {
+    return nestedSelectBatchSize;
+  }
+
+  /**
+   * Sets the maximum number of keys a nested select declaring a {@code foreignColumn} is run with at once.
+   *
+   * @since 3.5.2
+   */
+  public void setNestedSelectBatchSize(int nestedSelectBatchSize) {
+    this.nestedSelectBatchSize = nestedSelectBatchSize;
+  }
+
   public boolean isReturnInstanceForEmptyRow() {
     return returnInstanceForEmptyRow;
   }
 
   public void setReturnInstanceForEmptyRow(boolean returnEmptyInstance) {
     this.returnInstanceForEmptyRow = returnEmptyInstance;
+    resultMappingPlanCache.clear();
   }
 
   public String getDatabaseId() {
@@ -288,6 +594,7 @@ public class Configuration {
 
   public void setMapUnderscoreToCamelCase(boolean mapUnderscoreToCamelCase) {
     this.mapUnderscoreToCamelCase = mapUnderscoreToCamelCase;
+    resultMappingPlanCache.clear();
   }
 
   public void addLoadedResource(String resource) {
@@ -312,6 +619,7 @@ public class Configuration {
 
   public void setAutoMappingBehavior(AutoMappingBehavior autoMappingBehavior) {
     this.autoMappingBehavior = autoMappingBehavior;
+    resultMappingPlanCache.clear();
   }
 
   /**
@@ -328,6 +636,20 @@ public class Configuration {
     this.autoMappingUnknownColumnBehavior = autoMappingUnknownColumnBehavior;
   }
 
+  /**
+   * @since 3.5.2
+   */
+  public ResultOrderViolationBehavior getResultOrderViolationBehavior() {
+    return resultOrderViolationBehavior;
+  }
+
+  /**
+   * @since 3.5.2
+   */
+  public void setResultOrderViolationBehavior(ResultOrderViolationBehavior resultOrderViolationBehavior) {
+    this.resultOrderViolationBehavior = resultOrderViolationBehavior;
+  }
+
   public boolean isLazyLoadingEnabled() {
     return lazyLoadingEnabled;
   }
@@ -476,12 +798,20 @@ public class Configuration {
     return mapperRegistry;
   }
 
+  /**
+   * @since 3.5.2
+   */
+  public ResultMappingPlanCache getResultMappingPlanCache() {
+    return resultMappingPlanCache;
+  }
+
   public ReflectorFactory getReflectorFactory() {
     return reflectorFactory;
   }
 
   public void setReflectorFactory(ReflectorFactory reflectorFactory) {
     this.reflectorFactory = reflectorFactory;
+    resultMappingPlanCache.clear();
   }
 
   public ObjectFactory getObjectFactory() {
@@ -490,6 +820,7 @@ public class Configuration {
 
   public void setObjectFactory(ObjectFactory objectFactory) {
     this.objectFactory = objectFactory;
+    resultMappingPlanCache.clear();
   }
 
   public ObjectWrapperFactory getObjectWrapperFactory() {
@@ -498,6 +829,7 @@ public class Configuration {
 
   public void setObjectWrapperFactory(ObjectWrapperFactory objectWrapperFactory) {
     this.objectWrapperFactory = objectWrapperFactory;
+    resultMappingPlanCache.clear();
   }
 
   /**
@@ -0,0 +1,94 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.util.Arrays;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+
+/**
+ * Specify the behavior when the rows of a {@code resultOrdered} statement with nested result maps are not ordered by the
+ * id columns of its result map. Such statements hand each object to the result handler once its rows end, so an object
+ * whose rows are not contiguous is returned more than once, each time with part of its nested objects.
+ *
+ * @since 3.5.2
+ */
+public enum ResultOrderViolationBehavior {
+
+  /**
+   * Do not check the order (Default).
+   */
+  NONE {
+    @Override
+    public void doAction(MappedStatement mappedStatement, ResultMap resultMap, Object[] previousIds, Object[] ids) {
+      // do nothing
+    }
+  },
+
+  /**
+   * Output warning log.
+   * Note: The log level of {@code 'org.apache.ibatis.session.ResultOrderViolationBehavior'} must be set to {@code WARN}.
+   */
+  WARNING {
+    @Override
+    public void doAction(MappedStatement mappedStatement, ResultMap resultMap, Object[] previousIds, Object[] ids) {
+      LogHolder.log.warn(buildMessage(mappedStatement, resultMap, previousIds, ids));
+    }
+  },
+
+  /**
+   * Fail mapping.
+   * Note: throw {@link SqlSessionException}.
+   */
+  FAILING {
+    @Override
+    public void doAction(MappedStatement mappedStatement, ResultMap resultMap, Object[] previousIds, Object[] ids) {
+      throw new SqlSessionException(buildMessage(mappedStatement, resultMap, previousIds, ids));
+    }
+  };
+
+  /**
+   * Perform the action when a row breaks the order of the rows before it.
+   * @param mappedStatement current mapped statement
+   * @param resultMap result map whose id columns are out of order
+   * @param previousIds id values of the previous object
+   * @param ids id values of the row breaking the order
+   */
+  public abstract void doAction(MappedStatement mappedStatement, ResultMap resultMap, Object[] previousIds, Object[] ids);
+
+  /**
+   * build error message.
+   */
+  private static String buildMessage(MappedStatement mappedStatement, ResultMap resultMap, Object[] previousIds, Object[] ids) {
+    return new StringBuilder("Rows of resultOrdered statement '")
+      .append(mappedStatement.getId())
+      .append("' are not ordered by the ids of result map '")
+      .append(resultMap.getId())
+      .append("'. Ids ")
+      .append(Arrays.toString(ids))
+      .append(" follow ")
+      .append(Arrays.toString(previousIds))
+      .toString();
+  }
+
+  private static class LogHolder {
+    private static final Log log = LogFactory.getLog(ResultOrderViolationBehavior.class);
+  }
+
+}
@@ -61,6 +61,8 @@ public final class TypeHandlerRegistry {
   private static final Map<JdbcType, TypeHandler<?>> NULL_TYPE_HANDLER_MAP = Collections.emptyMap();
 
   private Class<? extends TypeHandler> defaultEnumTypeHandler = EnumTypeHandler.class;
+  // changes whenever a type handler is registered, so that resolved type handlers can be resolved again
+  private volatile int registrationCount;
 
   public TypeHandlerRegistry() {
     register(Boolean.class, new BooleanTypeHandler());
@@ -171,6 +173,17 @@ public final class TypeHandlerRegistry {
    */
   public void setDefaultEnumTypeHandler(Class<? extends TypeHandler> typeHandler) {
     this.defaultEnumTypeHandler = typeHandler;
+    registrationCount++;
+  }
+
+  /**
+   * Returns the number of type handlers registered so far, which tells whether type handlers resolved earlier may
+   * have become stale.
+   *
+   * @since 3.5.2
+   */
+  public int getRegistrationCount() {
+    return registrationCount;
   }
 
   public boolean hasTypeHandler(Class<?> javaType) {
@@ -307,6 +320,7 @@ public final class TypeHandlerRegistry {
 
   public void register(JdbcType jdbcType, TypeHandler<?> handler) {
     jdbcTypeHandlerMap.put(jdbcType, handler);
+    registrationCount++;
   }
 
   //
@@ -380,6 +394,7 @@ public final class TypeHandlerRegistry {
       map.put(jdbcType, handler);
     }
     allTypeHandlersMap.put(handler.getClass(), handler);
+    registrationCount++;
   }
 
   //
@@ -83,6 +83,19 @@ class XmlConfigBuilderTest {
       assertThat(config.isSafeResultHandlerEnabled()).isTrue();
       assertThat(config.getDefaultScriptingLanuageInstance()).isInstanceOf(XMLLanguageDriver.class);
       assertThat(config.isCallSettersOnNulls()).isFalse();
+      assertThat(config.isDynamicSqlCompilationEnabled()).isFalse();
+      assertThat(config.isResultMapCompilationEnabled()).isFalse();
+      assertThat(config.isParallelRowMappingEnabled()).isFalse();
+      assertThat(config.isParallelLazyLoadingEnabled()).isFalse();
+      assertThat(config.isBatchReorderingEnabled()).isFalse();
+      assertThat(config.getBatchTableOrder()).isEmpty();
+      assertThat(config.getBatchSize()).isEqualTo(0);
+      assertThat(config.getBatchBytes()).isEqualTo(0);
+      assertThat(config.isMultiRowInsertEnabled()).isFalse();
+      assertThat(config.getMultiRowInsertMaxParameters()).isEqualTo(2000);
+      assertThat(config.getReuseStatementCacheSize()).isEqualTo(256);
+      assertThat(config.getResultOrderViolationBehavior()).isEqualTo(ResultOrderViolationBehavior.NONE);
+      assertThat(config.getNestedSelectBatchSize()).isEqualTo(100);
       assertNull(config.getLogPrefix());
       assertNull(config.getLogImpl());
       assertNull(config.getConfigurationFactory());
@@ -176,6 +189,19 @@ class XmlConfigBuilderTest {
       assertThat(config.isSafeResultHandlerEnabled()).isFalse();
       assertThat(config.getDefaultScriptingLanuageInstance()).isInstanceOf(RawLanguageDriver.class);
       assertThat(config.isCallSettersOnNulls()).isTrue();
+      assertThat(config.isDynamicSqlCompilationEnabled()).isTrue();
+      assertThat(config.isResultMapCompilationEnabled()).isTrue();
+      assertThat(config.isParallelRowMappingEnabled()).isTrue();
+      assertThat(config.isParallelLazyLoadingEnabled()).isTrue();
+      assertThat(config.isBatchReorderingEnabled()).isTrue();
+      assertThat(config.getBatchTableOrder()).containsExactly("orders", "items");
+      assertThat(config.getBatchSize()).isEqualTo(1000);
+      assertThat(config.getBatchBytes()).isEqualTo(1048576);
+      assertThat(config.isMultiRowInsertEnabled()).isTrue();
+      assertThat(config.getMultiRowInsertMaxParameters()).isEqualTo(500);
+      assertThat(config.getReuseStatementCacheSize()).isEqualTo(64);
+      assertThat(config.getResultOrderViolationBehavior()).isEqualTo(ResultOrderViolationBehavior.WARNING);
+      assertThat(config.getNestedSelectBatchSize()).isEqualTo(50);
       assertThat(config.getLogPrefix()).isEqualTo("mybatis_");
       assertThat(config.getLogImpl().getName()).isEqualTo(Slf4jImpl.class.getName());
       assertThat(config.getVfsImpl().getName()).isEqualTo(JBoss6VFS.class.getName());
@@ -31,6 +31,8 @@ import java.sql.SQLException;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 //动态sql测试
 class DynamicSqlSourceTest extends BaseDataTest {
@@ -379,6 +381,58 @@ class DynamicSqlSourceTest extends BaseDataTest {
     assertEquals("__frch_u_0", boundSql.getParameterMappings().get(3).getProperty());
   }
 
+  @Test
+  void shouldReuseTheParameterMappingsOfTheSameSqlShape() throws Exception {
+    DynamicSqlSource source = createDynamicSqlSource(new TextSqlNode("SELECT * FROM BLOG"),
+        new ForEachSqlNode(new Configuration(), mixedContents(
+            new TextSqlNode("#{item}")), "list", null, "item", "WHERE id in (", ")", ","));
+    BoundSql first = source.getBoundSql(Collections.singletonMap("list", Arrays.asList(1, 2)));
+    BoundSql second = source.getBoundSql(Collections.singletonMap("list", Arrays.asList(3, 4)));
+    BoundSql third = source.getBoundSql(Collections.singletonMap("list", Arrays.asList(5, 6, 7)));
+    assertSame(first.getParameterMappings(), second.getParameterMappings());
+    assertEquals(3, third.getParameterMappings().size());
+    assertEquals(4, second.getAdditionalParameter("__frch_item_1"));
+  }
+
+  @Test
+  void shouldParseTheSameSqlShapeAgainWhenTheBoundTypesChange() throws Exception {
+    DynamicSqlSource source = createDynamicSqlSource(new TextSqlNode("SELECT * FROM BLOG"),
+        new ForEachSqlNode(new Configuration(), mixedContents(
+            new TextSqlNode("#{item}")), "list", null, "item", "WHERE id in (", ")", ","));
+    BoundSql integers = source.getBoundSql(Collections.singletonMap("list", Arrays.asList(1, 2)));
+    BoundSql strings = source.getBoundSql(Collections.singletonMap("list", Arrays.asList("1", "2")));
+    assertEquals(Integer.class, integers.getParameterMappings().get(0).getJavaType());
+    assertEquals(String.class, strings.getParameterMappings().get(0).getJavaType());
+  }
+
+  @Test
+  void shouldEvictTheLeastRecentlyUsedSqlShapes() throws Exception {
+    DynamicSqlSource source = createDynamicSqlSource(new TextSqlNode("SELECT * FROM BLOG"),
+        new ForEachSqlNode(new Configuration(), mixedContents(
+            new TextSqlNode("#{item}")), "list", null, "item", "WHERE id in (", ")", ","));
+    List<Integer> ids = new ArrayList<>();
+    for (int i = 0; i < 256; i++) {
+      ids.add(i);
+      source.getBoundSql(Collections.singletonMap("list", ids));
+    }
+    ids.add(256);
+    BoundSql first = source.getBoundSql(Collections.singletonMap("list", ids));
+    BoundSql second = source.getBoundSql(Collections.singletonMap("list", ids));
+    assertSame(first.getParameterMappings(), second.getParameterMappings());
+  }
+
+  @Test
+  void shouldNotCacheSqlShapesWithSubstitutedValues() throws Exception {
+    DynamicSqlSource source = createDynamicSqlSource(new TextSqlNode("SELECT * FROM ${table} WHERE id = #{id}"));
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("table", "BLOG");
+    parameter.put("id", 1);
+    BoundSql first = source.getBoundSql(parameter);
+    BoundSql second = source.getBoundSql(parameter);
+    assertEquals("SELECT * FROM BLOG WHERE id = ?", second.getSql());
+    assertNotSame(first.getParameterMappings(), second.getParameterMappings());
+  }
+
   private DynamicSqlSource createDynamicSqlSource(SqlNode... contents) throws IOException, SQLException {
     createBlogDataSource();
     final String resource = "org/apache/ibatis/builder/MapperConfig.xml";
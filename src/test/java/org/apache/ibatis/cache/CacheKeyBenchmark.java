@@ -0,0 +1,171 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.reflection.ArrayUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares creating a {@link CacheKey} the way {@code BaseExecutor.createCacheKey} does and looking it up
+ * in a {@link PerpetualCache} against the former list based key, for an {@code IN (...)} query.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheKeyBenchmark {
+
+  private static final String STATEMENT_ID = "org.apache.ibatis.domain.blog.mappers.BlogMapper.selectBlogsByIds";
+
+  @Param({ "1", "10", "100" })
+  private int parameterCount;
+
+  private String sql;
+  private Object[] parameters;
+  private PerpetualCache cache;
+  private PerpetualCache listKeyCache;
+
+  @Setup
+  public void setup() {
+    StringBuilder builder = new StringBuilder("select * from blog where id in (");
+    parameters = new Object[parameterCount];
+    for (int i = 0; i < parameterCount; i++) {
+      builder.append(i == 0 ? "?" : ", ?");
+      parameters[i] = i;
+    }
+    sql = builder.append(")").toString();
+    cache = new PerpetualCache("compact");
+    cache.putObject(createKey(), "result");
+    listKeyCache = new PerpetualCache("list");
+    listKeyCache.putObject(createListKey(), "result");
+  }
+
+  @Benchmark
+  public CacheKey createCacheKey() {
+    return createKey();
+  }
+
+  @Benchmark
+  public Object lookupCacheKey() {
+    return cache.getObject(createKey());
+  }
+
+  @Benchmark
+  public ListCacheKey createListCacheKey() {
+    return createListKey();
+  }
+
+  @Benchmark
+  public Object lookupListCacheKey() {
+    return listKeyCache.getObject(createListKey());
+  }
+
+  private CacheKey createKey() {
+    CacheKey key = new CacheKey(parameterCount + 5);
+    key.update(STATEMENT_ID);
+    key.update(0);
+    key.update(Integer.MAX_VALUE);
+    key.update(sql);
+    for (Object parameter : parameters) {
+      key.update(parameter);
+    }
+    key.update("development");
+    return key;
+  }
+
+  private ListCacheKey createListKey() {
+    ListCacheKey key = new ListCacheKey();
+    key.update(STATEMENT_ID);
+    key.update(0);
+    key.update(Integer.MAX_VALUE);
+    key.update(sql);
+    for (Object parameter : parameters) {
+      key.update(parameter);
+    }
+    key.update("development");
+    return key;
+  }
+
+  /**
+   * The list based cache key as it was before being replaced with the presized array.
+   */
+  public static class ListCacheKey {
+
+    private int hashcode = 17;
+    private long checksum;
+    private int count;
+    private final List<Object> updateList = new ArrayList<>();
+
+    public void update(Object object) {
+      int baseHashCode = object == null ? 1 : ArrayUtil.hashCode(object);
+      count++;
+      checksum += baseHashCode;
+      baseHashCode *= count;
+      hashcode = 37 * hashcode + baseHashCode;
+      updateList.add(object);
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      if (this == object) {
+        return true;
+      }
+      if (!(object instanceof ListCacheKey)) {
+        return false;
+      }
+      ListCacheKey that = (ListCacheKey) object;
+      if (hashcode != that.hashcode || checksum != that.checksum || count != that.count) {
+        return false;
+      }
+      for (int i = 0; i < updateList.size(); i++) {
+        if (!ArrayUtil.equals(updateList.get(i), that.updateList.get(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      return hashcode;
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(CacheKeyBenchmark.class.getSimpleName()).build()).run();
+  }
+
+}
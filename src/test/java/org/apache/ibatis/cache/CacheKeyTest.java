@@ -83,6 +83,23 @@ class CacheKeyTest {
     assertTrue(key1.equals(key2));
   }
 
+  @Test
+  void shouldGrowBeyondExpectedUpdateCount() throws Exception {
+    CacheKey key1 = new CacheKey(1);
+    CacheKey key2 = new CacheKey();
+    for (int i = 0; i < 20; i++) {
+      key1.update(i);
+      key2.update(i);
+    }
+    assertEquals(20, key1.getUpdateCount());
+    assertEquals(key1, key2);
+    assertEquals(key1.hashCode(), key2.hashCode());
+    CacheKey clone = key1.clone();
+    clone.update("more");
+    assertEquals(20, key1.getUpdateCount());
+    assertNotEquals(key1, clone);
+  }
+
   @Test
   void serializationExceptionTest() {
     CacheKey cacheKey = new CacheKey();
@@ -0,0 +1,152 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.cache.impl.ConcurrentCache;
+import org.junit.jupiter.api.Test;
+
+class ConcurrentCacheTest {
+
+  @Test
+  void shouldNotExceedMaximumSize() {
+    ConcurrentCache cache = new ConcurrentCache("default");
+    cache.setSize(5);
+    for (int i = 0; i < 100; i++) {
+      cache.putObject(i, i);
+    }
+    assertEquals(5, cache.getSize());
+    assertEquals(5, cache.getWeight());
+  }
+
+  @Test
+  void shouldKeepFrequentlyUsedItemsWhenScanned() {
+    ConcurrentCache cache = new ConcurrentCache("default");
+    cache.setSize(5);
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    for (int n = 0; n < 5; n++) {
+      for (int i = 0; i < 5; i++) {
+        assertEquals(i, cache.getObject(i));
+      }
+    }
+    for (int i = 100; i < 200; i++) {
+      cache.getObject(i);
+      cache.putObject(i, i);
+    }
+    for (int i = 0; i < 5; i++) {
+      assertEquals(i, cache.getObject(i));
+    }
+    assertEquals(5, cache.getSize());
+  }
+
+  @Test
+  void shouldWeighCollectionsByElementCount() {
+    ConcurrentCache cache = new ConcurrentCache("default");
+    cache.setSize(10);
+    cache.setWeighCollections(true);
+    cache.putObject("a", Arrays.asList(1, 2, 3, 4, 5, 6));
+    assertEquals(6, cache.getWeight());
+    cache.putObject("b", Arrays.asList(1, 2, 3, 4, 5, 6));
+    assertEquals(1, cache.getSize());
+    assertTrue(cache.getWeight() <= 10);
+  }
+
+  @Test
+  void shouldExpireAfterWrite() throws Exception {
+    ConcurrentCache cache = new ConcurrentCache("default");
+    cache.setExpireAfterWrite(50);
+    cache.putObject(0, 0);
+    assertEquals(0, cache.getObject(0));
+    Thread.sleep(100);
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldExpireAfterAccess() throws Exception {
+    ConcurrentCache cache = new ConcurrentCache("default");
+    cache.setExpireAfterAccess(200);
+    cache.putObject(0, 0);
+    for (int i = 0; i < 4; i++) {
+      Thread.sleep(80);
+      assertEquals(0, cache.getObject(0));
+    }
+    Thread.sleep(300);
+    assertNull(cache.getObject(0));
+  }
+
+  @Test
+  void shouldRemoveItemOnDemand() {
+    ConcurrentCache cache = new ConcurrentCache("default");
+    cache.putObject(0, 0);
+    assertNotNull(cache.getObject(0));
+    cache.removeObject(0);
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getWeight());
+  }
+
+  @Test
+  void shouldFlushAllItemsOnDemand() {
+    ConcurrentCache cache = new ConcurrentCache("default");
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    cache.putObject(0, 0);
+    cache.clear();
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(4));
+    assertEquals(0, cache.getWeight());
+  }
+
+  @Test
+  void shouldStayBoundedUnderConcurrentAccess() throws Exception {
+    ConcurrentCache cache = new ConcurrentCache("default");
+    cache.setSize(100);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        final int offset = t * 1000;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 10000; i++) {
+            int key = offset + (i % 500);
+            if (cache.getObject(key) == null) {
+              cache.putObject(key, key);
+            }
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertTrue(cache.getSize() <= 100);
+    assertEquals(cache.getSize(), cache.getWeight());
+  }
+
+}
@@ -0,0 +1,148 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.ibatis.cache.impl.OffHeapCache;
+import org.apache.ibatis.cache.serializer.BinaryCacheSerializer;
+import org.junit.jupiter.api.Test;
+
+class OffHeapCacheTest {
+
+  @Test
+  void shouldReturnCopiesOfTheCachedValues() {
+    OffHeapCache cache = new OffHeapCache("default");
+    List<String> value = new ArrayList<>(Arrays.asList("a", "b"));
+    cache.putObject("key", value);
+    value.add("c");
+
+    assertEquals(Arrays.asList("a", "b"), cache.getObject("key"));
+    assertNotSame(cache.getObject("key"), cache.getObject("key"));
+    assertEquals(1, cache.getSize());
+  }
+
+  @Test
+  void shouldEvictTheOldestEntriesWhenFull() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setCapacity(4096);
+    cache.setSlabSize(1024);
+    cache.setSerializer(new BinaryCacheSerializer());
+    for (int i = 0; i < 1000; i++) {
+      cache.putObject(i, "value " + i);
+      assertEquals("value " + i, cache.getObject(i));
+    }
+    assertTrue(cache.getSize() < 1000);
+    assertNull(cache.getObject(0));
+    assertEquals("value 999", cache.getObject(999));
+  }
+
+  @Test
+  void shouldNotCacheValuesLargerThanASlab() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setCapacity(4096);
+    cache.setSlabSize(1024);
+    cache.putObject("key", "small");
+    cache.putObject("key", new byte[2048]);
+    assertNull(cache.getObject("key"));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldRemoveItemOnDemand() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.putObject(0, 0);
+    cache.putObject(1, null);
+    assertEquals(0, cache.getObject(0));
+    assertNull(cache.getObject(1));
+    cache.removeObject(0);
+    assertNull(cache.getObject(0));
+    cache.clear();
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldLoadThePersistedEntriesAgain() throws Exception {
+    File file = File.createTempFile("offheap", "cache");
+    file.deleteOnExit();
+    OffHeapCache cache = newPersistentCache(file);
+    for (int i = 0; i < 100; i++) {
+      cache.putObject(i, "value " + i);
+    }
+    cache.putObject(1, "replaced");
+    cache.removeObject(2);
+
+    OffHeapCache reopened = newPersistentCache(file);
+    assertEquals(99, reopened.getSize());
+    assertEquals("value 0", reopened.getObject(0));
+    assertEquals("replaced", reopened.getObject(1));
+    assertNull(reopened.getObject(2));
+    assertEquals("value 99", reopened.getObject(99));
+  }
+
+  @Test
+  void shouldStartEmptyWhenTheRecordsWereNotWritten() throws Exception {
+    File file = File.createTempFile("offheap", "cache");
+    file.deleteOnExit();
+    OffHeapCache cache = newPersistentCache(file);
+    for (int i = 0; i < 10; i++) {
+      cache.putObject(i, "value " + i);
+    }
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+      // the records after the file header, as left by a crash before the mapped file was flushed
+      randomAccessFile.seek(64);
+      randomAccessFile.write(new byte[1024]);
+    }
+
+    OffHeapCache reopened = newPersistentCache(file);
+    assertEquals(0, reopened.getSize());
+    reopened.putObject(1, "value 1");
+    assertEquals("value 1", newPersistentCache(file).getObject(1));
+  }
+
+  @Test
+  void shouldStartEmptyWhenAKeyLengthIsCorrupt() throws Exception {
+    File file = File.createTempFile("offheap", "cache");
+    file.deleteOnExit();
+    OffHeapCache cache = newPersistentCache(file);
+    for (int i = 0; i < 10; i++) {
+      cache.putObject(i, "value " + i);
+    }
+    try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+      // the key length of the first record
+      randomAccessFile.seek(64 + 4);
+      randomAccessFile.writeInt(Integer.MAX_VALUE);
+    }
+
+    assertEquals(0, newPersistentCache(file).getSize());
+  }
+
+  private OffHeapCache newPersistentCache(File file) {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setCapacity(64 * 1024);
+    cache.setSlabSize(8 * 1024);
+    cache.setFile(file.getAbsolutePath());
+    cache.initialize();
+    return cache;
+  }
+
+}
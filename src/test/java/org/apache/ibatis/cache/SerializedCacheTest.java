@@ -0,0 +1,239 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.serializer.BinaryCacheSerializer;
+import org.apache.ibatis.cache.serializer.CopyingCacheSerializer;
+import org.apache.ibatis.cache.serializer.JavaCacheSerializer;
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.junit.jupiter.api.Test;
+
+class SerializedCacheTest {
+
+  @Test
+  void shouldReturnEqualCopies() {
+    for (CacheSerializer serializer : serializers()) {
+      Cache cache = new SerializedCache(new PerpetualCache("default"), serializer);
+      Author author = new Author(101, "jim", "********", "jim@ibatis.apache.org", "Something...", Section.NEWS);
+      Map<String, Object> row = new LinkedHashMap<>();
+      row.put("author", author);
+      row.put("amount", new BigDecimal("12.50"));
+      row.put("created", new Timestamp(1234567890123L));
+      row.put("updated", new Date(1234567890000L));
+      row.put("tags", new ArrayList<>(Arrays.asList("a", "été", "中文", null)));
+      row.put("data", new byte[] { 1, 2, 3 });
+      row.put("ids", new Integer[] { 1, -2, Integer.MAX_VALUE });
+      row.put("flags", new HashMap<>(Collections.singletonMap('x', true)));
+      row.put("values", Arrays.asList(Long.MIN_VALUE, 1.5d, 2.5f, (short) 3, (byte) 4));
+      cache.putObject("key", row);
+
+      @SuppressWarnings("unchecked")
+      Map<String, Object> copy = (Map<String, Object>) cache.getObject("key");
+      assertNotSame(row, copy);
+      assertEquals(row.keySet(), copy.keySet());
+      assertEquals(author, copy.get("author"));
+      assertNotSame(author, copy.get("author"));
+      assertEquals(row.get("amount"), copy.get("amount"));
+      assertEquals(row.get("created"), copy.get("created"));
+      assertEquals(row.get("updated"), copy.get("updated"));
+      assertEquals(row.get("tags"), copy.get("tags"));
+      assertArrayEquals((byte[]) row.get("data"), (byte[]) copy.get("data"));
+      assertArrayEquals((Object[]) row.get("ids"), (Object[]) copy.get("ids"));
+      assertEquals(row.get("flags"), copy.get("flags"));
+      assertEquals(row.get("values"), copy.get("values"));
+      assertNotSame(copy, cache.getObject("key"));
+    }
+  }
+
+  @Test
+  void shouldPreserveSharedAndCyclicReferences() {
+    for (CacheSerializer serializer : serializers()) {
+      Cache cache = new SerializedCache(new PerpetualCache("default"), serializer);
+      Author author = new Author(101);
+      List<Object> list = new ArrayList<>();
+      list.add(author);
+      list.add(author);
+      list.add(list);
+      cache.putObject("key", list);
+
+      List<?> copy = (List<?>) cache.getObject("key");
+      assertEquals(3, copy.size());
+      assertSame(copy.get(0), copy.get(1));
+      assertSame(copy, copy.get(2));
+      assertEquals(101, ((Author) copy.get(0)).getId());
+    }
+  }
+
+  @Test
+  void shouldCopyBeansThatAreNotSerializable() {
+    for (CacheSerializer serializer : beanSerializers()) {
+      Cache cache = new SerializedCache(new PerpetualCache("default"), serializer);
+      Bean bean = new Bean();
+      bean.setName("bean");
+      bean.setChild(new Bean());
+      cache.putObject("key", bean);
+      bean.getChild().setName("changed");
+
+      Bean copy = (Bean) cache.getObject("key");
+      assertNotSame(bean, copy);
+      assertEquals("bean", copy.getName());
+      assertNull(copy.getChild().getName());
+    }
+  }
+
+  @Test
+  void shouldRejectValuesThatCannotBeCopied() {
+    for (CacheSerializer serializer : serializers()) {
+      Cache cache = new SerializedCache(new PerpetualCache("default"), serializer);
+      assertThrows(CacheException.class, () -> cache.putObject("key", new Object() {
+        @Override
+        public String toString() {
+          return "not serializable";
+        }
+      }));
+      cache.putObject("null", null);
+      assertNull(cache.getObject("null"));
+    }
+  }
+
+  @Test
+  void shouldCopyStateThatIsNotAReadableAndWritableProperty() {
+    for (CacheSerializer serializer : beanSerializers()) {
+      Cache cache = new SerializedCache(new PerpetualCache("default"), serializer);
+      Counter counter = new Counter();
+      counter.increment();
+      HidingBean hiding = new HidingBean();
+      hiding.setName("super");
+      hiding.setLabel("sub");
+      cache.putObject("counter", counter);
+      cache.putObject("hiding", hiding);
+
+      assertEquals(1, ((Counter) cache.getObject("counter")).getCount());
+      // the hidden field is copied with Java serialization
+      HidingBean copy = (HidingBean) cache.getObject("hiding");
+      assertEquals("super", copy.getName());
+      assertEquals("sub", copy.getLabel());
+      // neither copied property by property nor serializable
+      assertThrows(CacheException.class, () -> cache.putObject("hidden", new HiddenBean()));
+    }
+  }
+
+  @Test
+  void shouldWriteRegisteredClassesAsNumbers() {
+    Bean bean = new Bean();
+    bean.setName("bean");
+    bean.setChild(new Bean());
+    BinaryCacheSerializer serializer = new BinaryCacheSerializer();
+    BinaryCacheSerializer registered = new BinaryCacheSerializer().register(Section.class, Bean.class, Bean.class);
+
+    byte[] bytes = (byte[]) registered.serialize(bean);
+    assertTrue(bytes.length < ((byte[]) serializer.serialize(bean)).length);
+    Bean copy = (Bean) new BinaryCacheSerializer().register(Section.class, Bean.class).deserialize(bytes);
+    assertEquals("bean", copy.getName());
+    assertNull(copy.getChild().getName());
+    assertThrows(CacheException.class, () -> serializer.deserialize(bytes));
+    // values written by name can still be read after registering
+    assertEquals("bean", ((Bean) registered.deserialize(serializer.serialize(bean))).getName());
+  }
+
+  private static CacheSerializer[] serializers() {
+    return new CacheSerializer[] { new JavaCacheSerializer(), new BinaryCacheSerializer(), new CopyingCacheSerializer() };
+  }
+
+  private static CacheSerializer[] beanSerializers() {
+    return new CacheSerializer[] { new BinaryCacheSerializer(), new CopyingCacheSerializer() };
+  }
+
+  public static class Bean {
+    private String name;
+    private Bean child;
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public Bean getChild() {
+      return child;
+    }
+
+    public void setChild(Bean child) {
+      this.child = child;
+    }
+  }
+
+  public static class Counter {
+    private int count;
+
+    public int getCount() {
+      return count;
+    }
+
+    public void increment() {
+      count++;
+    }
+  }
+
+  public static class SerializableBean implements java.io.Serializable {
+    private static final long serialVersionUID = 1L;
+    private String name;
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+  }
+
+  public static class HidingBean extends SerializableBean {
+    private static final long serialVersionUID = 1L;
+    private String name;
+
+    public String getLabel() {
+      return name;
+    }
+
+    public void setLabel(String label) {
+      this.name = label;
+    }
+  }
+
+  public static class HiddenBean extends Bean {
+    private String name;
+  }
+
+}
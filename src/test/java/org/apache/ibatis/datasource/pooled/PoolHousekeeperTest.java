@@ -0,0 +1,74 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.BaseDataTest;
+import org.junit.jupiter.api.Test;
+
+class PoolHousekeeperTest extends BaseDataTest {
+
+  @Test
+  void shouldWaitForConnectionsTakenForMaintenance() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      ds.setPoolMaximumActiveConnections(1);
+      ds.getConnection().close();
+      List<PooledConnection> taken = ds.takeIdleConnections(conn -> true, 1);
+      assertEquals(1, taken.size());
+      Future<Connection> checkout = executor.submit(() -> ds.getConnection());
+      Thread.sleep(100);
+      assertFalse(checkout.isDone());
+      ds.returnIdleConnection(taken.get(0));
+      try (Connection c = checkout.get(5, TimeUnit.SECONDS)) {
+        assertSame(taken.get(0).getRealConnection(), PooledDataSource.unwrapConnection(c));
+      }
+    } finally {
+      executor.shutdownNow();
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldTakeNoMoreIdleConnectionsThanTheLimit() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      Connection c1 = ds.getConnection();
+      Connection c2 = ds.getConnection();
+      c1.close();
+      c2.close();
+      List<PooledConnection> taken = ds.takeIdleConnections(conn -> true, 1);
+      assertEquals(1, taken.size());
+      assertEquals(1, ds.getPoolState().getIdleConnectionCount());
+      ds.returnIdleConnection(taken.get(0));
+      assertEquals(2, ds.getPoolState().getIdleConnectionCount());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+}
@@ -15,7 +15,19 @@
  */
 package org.apache.ibatis.executor;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Post;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.transaction.Transaction;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
 import org.junit.jupiter.api.Test;
 
 class ReuseExecutorTest extends BaseExecutorTest {
@@ -30,6 +42,87 @@ class ReuseExecutorTest extends BaseExecutorTest {
     super.shouldFetchPostWithBlogWithCompositeKey();
   }
 
+  @Test
+  void shouldReuseStatementsWithSameSqlAndOptions() throws Exception {
+    ReuseExecutor executor = (ReuseExecutor) createExecutor(new JdbcTransaction(createBlogDataSource(), null, false));
+    try {
+      MappedStatement selectStatement = ExecutorTestHelper.prepareSelectOneAuthorMappedStatement(config);
+      MappedStatement fetchSizeStatement = new MappedStatement.Builder(config, "selectAuthorWithFetchSize",
+          selectStatement.getSqlSource(), SqlCommandType.SELECT)
+          .parameterMap(selectStatement.getParameterMap())
+          .resultMaps(selectStatement.getResultMaps())
+          .fetchSize(10).build();
+      executor.query(selectStatement, 101, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      executor.query(selectStatement, 102, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      executor.query(fetchSizeStatement, 103, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      assertEquals(1, executor.getHitCount());
+      assertEquals(2, executor.getMissCount());
+      assertEquals(0, executor.getEvictionCount());
+    } finally {
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldCloseLeastRecentlyUsedStatements() throws Exception {
+    config.setReuseStatementCacheSize(1);
+    ReuseExecutor executor = (ReuseExecutor) createExecutor(new JdbcTransaction(createBlogDataSource(), null, false));
+    try {
+      MappedStatement selectAuthor = ExecutorTestHelper.prepareSelectOneAuthorMappedStatement(config);
+      MappedStatement selectAuthors = ExecutorTestHelper.prepareSelectAllAuthorsAutoMappedStatement(config);
+      executor.query(selectAuthor, 101, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      executor.query(selectAuthors, null, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      executor.query(selectAuthor, 102, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      assertEquals(0, executor.getHitCount());
+      assertEquals(3, executor.getMissCount());
+      assertEquals(2, executor.getEvictionCount());
+    } finally {
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldNotCloseTheStatementOfAnOpenCursor() throws Exception {
+    config.setReuseStatementCacheSize(1);
+    ReuseExecutor executor = (ReuseExecutor) createExecutor(new JdbcTransaction(createBlogDataSource(), null, false));
+    try {
+      MappedStatement selectAuthor = ExecutorTestHelper.prepareSelectOneAuthorMappedStatement(config);
+      MappedStatement selectAuthors = ExecutorTestHelper.prepareSelectAllAuthorsAutoMappedStatement(config);
+      Cursor<Author> cursor = executor.queryCursor(selectAuthor, 101, RowBounds.DEFAULT);
+      executor.query(selectAuthor, 102, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      executor.query(selectAuthors, null, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      List<Author> authors = new ArrayList<>();
+      cursor.forEach(authors::add);
+      assertEquals(1, authors.size());
+      assertEquals(101, authors.get(0).getId());
+      assertEquals(1, executor.getEvictionCount());
+    } finally {
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldNotCloseTheStatementOfAnExecutingQuery() throws Exception {
+    config.setReuseStatementCacheSize(1);
+    config.setLazyLoadingEnabled(false);
+    ReuseExecutor executor = (ReuseExecutor) createExecutor(new JdbcTransaction(createBlogDataSource(), null, false));
+    try {
+      MappedStatement selectBlog = ExecutorTestHelper.prepareComplexSelectBlogMappedStatement(config);
+      MappedStatement selectPosts = ExecutorTestHelper.prepareSelectPostsForBlogMappedStatement(config);
+      config.addMappedStatement(selectBlog);
+      config.addMappedStatement(selectPosts);
+      List<Post> posts = executor.query(selectPosts, 1, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      assertEquals(2, posts.size());
+      assertEquals(1, posts.get(1).getBlog().getId());
+      assertEquals(0, executor.getEvictionCount());
+      MappedStatement selectAuthor = ExecutorTestHelper.prepareSelectOneAuthorMappedStatement(config);
+      executor.query(selectAuthor, 101, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      assertEquals(2, executor.getEvictionCount());
+    } finally {
+      executor.close(false);
+    }
+  }
+
   @Override
   protected Executor createExecutor(Transaction transaction) {
     return new ReuseExecutor(config,transaction);
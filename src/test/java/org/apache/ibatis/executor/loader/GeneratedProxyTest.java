@@ -0,0 +1,59 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.loader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+
+import javassist.util.proxy.Proxy;
+
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.executor.loader.javassist.GeneratedProxyFactory;
+import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+class GeneratedProxyTest extends SerializableProxyTest {
+
+  GeneratedProxyTest() {
+    proxyFactory = new GeneratedProxyFactory();
+  }
+
+  @Test
+  void shouldGenerateOneProxyClassPerType() {
+    Configuration configuration = new Configuration();
+    Object proxy1 = proxyFactory.createProxy(author, new ResultLoaderMap(), configuration, new DefaultObjectFactory(), new ArrayList<>(), new ArrayList<>());
+    Object proxy2 = proxyFactory.createProxy(new Author(), new ResultLoaderMap(), configuration, new DefaultObjectFactory(), new ArrayList<>(), new ArrayList<>());
+    assertSame(proxy1.getClass(), proxy2.getClass());
+    assertEquals(author, proxy1);
+    configuration.setLazyLoadTriggerMethods(Collections.singleton("toString"));
+    Object proxy3 = proxyFactory.createProxy(author, new ResultLoaderMap(), configuration, new DefaultObjectFactory(), new ArrayList<>(), new ArrayList<>());
+    assertNotSame(proxy1.getClass(), proxy3.getClass());
+  }
+
+  @Test
+  void shouldDeserializeAPartiallyLoadedBeanToAJavassistProxy() throws Exception {
+    ResultLoaderMap loader = new ResultLoaderMap();
+    loader.addLoader("id", null, null);
+    Object proxy = proxyFactory.createProxy(author, loader, new Configuration(), new DefaultObjectFactory(), new ArrayList<>(), new ArrayList<>());
+    Author author2 = (Author) deserialize(serialize((Serializable) proxy));
+    assertTrue(author2 instanceof Proxy);
+  }
+
+}
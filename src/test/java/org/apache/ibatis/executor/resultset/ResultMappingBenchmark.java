@@ -0,0 +1,182 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.result.DefaultResultHandler;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.type.IntegerTypeHandler;
+import org.apache.ibatis.type.TypeHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Maps 100 rows of 50 and 200 integer columns into maps, with explicit result mappings and with automatic mappings.
+ * The result set looks up column labels with a case-insensitive scan, as many drivers do. {@code readByLabel} and
+ * {@code readByIndex} compare the bare cost of reading every cell by label (as the result set handler did) and by the
+ * index resolved by the {@link ResultSetWrapper}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultMappingBenchmark {
+
+  private static final int ROWS = 100;
+
+  @Param({ "50", "200" })
+  private int columns;
+
+  @Param({ "explicit", "auto" })
+  private String mapping;
+
+  private Configuration configuration;
+  private MappedStatement mappedStatement;
+  private String[] labels;
+  private final TypeHandler<Integer> typeHandler = new IntegerTypeHandler();
+
+  @Setup
+  public void setup() {
+    configuration = new Configuration();
+    labels = new String[columns];
+    List<ResultMapping> resultMappings = new ArrayList<>();
+    for (int i = 0; i < columns; i++) {
+      labels[i] = "COLUMN_" + i;
+      if ("explicit".equals(mapping)) {
+        resultMappings.add(new ResultMapping.Builder(configuration, "column" + i, labels[i], typeHandler).build());
+      }
+    }
+    ResultMap resultMap = new ResultMap.Builder(configuration, "rowMap", HashMap.class, resultMappings).build();
+    mappedStatement = new MappedStatement.Builder(configuration, "selectRows", new StaticSqlSource(configuration, "select ..."),
+        SqlCommandType.SELECT).resultMaps(Collections.singletonList(resultMap)).build();
+  }
+
+  @Benchmark
+  public List<Object> mapRows() throws Exception {
+    DefaultResultSetHandler handler = new DefaultResultSetHandler(null, mappedStatement, null, null, null, RowBounds.DEFAULT);
+    DefaultResultHandler resultHandler = new DefaultResultHandler();
+    handler.handleRowValues(new ResultSetWrapper(newResultSet(labels, ROWS), configuration),
+        mappedStatement.getResultMaps().get(0), resultHandler, RowBounds.DEFAULT, null);
+    return resultHandler.getResultList();
+  }
+
+  @Benchmark
+  public void readByLabel(Blackhole blackhole) throws Exception {
+    ResultSet rs = newResultSet(labels, ROWS);
+    while (rs.next()) {
+      for (String label : labels) {
+        blackhole.consume(typeHandler.getResult(rs, label));
+      }
+    }
+  }
+
+  @Benchmark
+  public void readByIndex(Blackhole blackhole) throws Exception {
+    ResultSet rs = newResultSet(labels, ROWS);
+    ResultSetWrapper rsw = new ResultSetWrapper(rs, configuration);
+    while (rs.next()) {
+      for (String label : labels) {
+        blackhole.consume(typeHandler.getResult(rs, rsw.getColumnIndex(label)));
+      }
+    }
+  }
+
+  private static ResultSet newResultSet(String[] labels, int rows) {
+    ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(ResultMappingBenchmark.class.getClassLoader(),
+        new Class<?>[] { ResultSetMetaData.class }, (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getColumnCount":
+              return labels.length;
+            case "getColumnLabel":
+            case "getColumnName":
+              return labels[(Integer) args[0] - 1];
+            case "getColumnType":
+              return Types.INTEGER;
+            case "getColumnClassName":
+              return Integer.class.getName();
+            default:
+              throw new UnsupportedOperationException(method.getName());
+          }
+        });
+    int[] row = { 0 };
+    return (ResultSet) Proxy.newProxyInstance(ResultMappingBenchmark.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getMetaData":
+              return metaData;
+            case "next":
+              return ++row[0] <= rows;
+            case "isClosed":
+            case "wasNull":
+              return false;
+            case "getType":
+              return ResultSet.TYPE_FORWARD_ONLY;
+            case "getInt":
+              return row[0] * 1000 + columnIndex(labels, args[0]);
+            default:
+              throw new UnsupportedOperationException(method.getName());
+          }
+        });
+  }
+
+  private static int columnIndex(String[] labels, Object column) {
+    if (column instanceof Integer) {
+      return (Integer) column;
+    }
+    // like the findColumn of many drivers
+    for (int i = 0; i < labels.length; i++) {
+      if (labels[i].equalsIgnoreCase((String) column)) {
+        return i + 1;
+      }
+    }
+    throw new IllegalArgumentException("Unknown column " + column);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(ResultMappingBenchmark.class.getSimpleName()).build()).run();
+  }
+
+}
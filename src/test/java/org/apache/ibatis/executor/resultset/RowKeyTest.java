@@ -0,0 +1,97 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import org.apache.ibatis.type.IntegerTypeHandler;
+import org.apache.ibatis.type.StringTypeHandler;
+import org.junit.jupiter.api.Test;
+
+class RowKeyTest {
+
+  private final RowKey.Columns columns = new RowKey.Columns("personResult", null, Arrays.asList(1, 2),
+      Arrays.asList(new IntegerTypeHandler(), new StringTypeHandler()), false);
+
+  @Test
+  void shouldEqualKeysOfRowsWithSameValues() throws SQLException {
+    RowKey key1 = columns.read(row(1, "grandma"));
+    RowKey key2 = columns.read(row(1, "grandma"));
+    assertEquals(key1, key2);
+    assertEquals(key1.hashCode(), key2.hashCode());
+    assertNotEquals(key1, columns.read(row(2, "grandma")));
+    assertNotEquals(key1, columns.read(row(1, "sister")));
+  }
+
+  @Test
+  void shouldTellNullFromZero() throws SQLException {
+    assertNotEquals(columns.read(row(null, "grandma")), columns.read(row(0, "grandma")));
+  }
+
+  @Test
+  void shouldNotKeyRowsWithoutValues() throws SQLException {
+    assertSame(RowKey.NULL, columns.read(row(null, null)));
+    RowKey.Columns keyOfNulls = new RowKey.Columns("personResult", null, Arrays.asList(1, 2),
+        Arrays.asList(new IntegerTypeHandler(), null), true);
+    assertEquals(keyOfNulls.read(row(null, null)), keyOfNulls.read(row(null, null)));
+    RowKey.Columns noColumns = new RowKey.Columns("personResult", null, Arrays.asList(), Arrays.asList(), true);
+    assertSame(RowKey.NULL, noColumns.read(row(1, "grandma")));
+  }
+
+  @Test
+  void shouldCombineWithParentKey() throws SQLException {
+    RowKey.Columns itemColumns = new RowKey.Columns("itemResult", null, Arrays.asList(1, 2),
+        Arrays.asList(new IntegerTypeHandler(), new StringTypeHandler()), false);
+    RowKey grandma = columns.read(row(1, "grandma"));
+    RowKey sister = columns.read(row(2, "sister"));
+    RowKey item = itemColumns.read(row(1, "book"));
+    assertEquals(item.combine(grandma), itemColumns.read(row(1, "book")).combine(columns.read(row(1, "grandma"))));
+    assertNotEquals(item.combine(grandma), item.combine(sister));
+    assertNotEquals(item, item.combine(grandma));
+    assertNotEquals(item, columns.read(row(1, "book")));
+    assertSame(RowKey.NULL, item.combine(RowKey.NULL));
+    assertSame(RowKey.NULL, RowKey.NULL.combine(grandma));
+  }
+
+  @Test
+  void shouldTellApartColumnPrefixes() throws SQLException {
+    RowKey.Columns petColumns = new RowKey.Columns("petResult", "P_", Arrays.asList(1, 2),
+        Arrays.asList(new IntegerTypeHandler(), new StringTypeHandler()), false);
+    RowKey.Columns favoriteColumns = new RowKey.Columns("petResult", "F_", Arrays.asList(1, 2),
+        Arrays.asList(new IntegerTypeHandler(), new StringTypeHandler()), false);
+    RowKey grandma = columns.read(row(1, "grandma"));
+    RowKey pet = petColumns.read(row(10, "tom")).combine(grandma);
+    assertEquals(pet, petColumns.read(row(10, "tom")).combine(grandma));
+    assertNotEquals(pet, favoriteColumns.read(row(10, "tom")).combine(grandma));
+  }
+
+  private ResultSet row(Integer id, String name) throws SQLException {
+    ResultSet rs = mock(ResultSet.class);
+    when(rs.getInt(1)).thenReturn(id == null ? 0 : id);
+    when(rs.wasNull()).thenReturn(id == null, name == null);
+    when(rs.getString(2)).thenReturn(name);
+    return rs;
+  }
+
+}
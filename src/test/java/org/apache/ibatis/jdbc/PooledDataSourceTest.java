@@ -21,12 +21,20 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 
 import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.datasource.pooled.PoolListener;
+import org.apache.ibatis.datasource.pooled.PoolSnapshot;
 import org.apache.ibatis.datasource.pooled.PooledDataSource;
 import org.hsqldb.jdbc.JDBCConnection;
 import org.junit.jupiter.api.Disabled;
@@ -75,6 +83,331 @@ class PooledDataSourceTest extends BaseDataTest {
     }
   }
 
+  @Test
+  void shouldProperlyMaintainPoolWithConcurrentCheckout() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolConcurrentCheckoutEnabled(true);
+      ds.setPoolMaximumActiveConnections(3);
+      ds.setPoolMaximumIdleConnections(2);
+      List<Connection> connections = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        connections.add(ds.getConnection());
+      }
+      assertEquals(3, ds.getPoolState().getActiveConnectionCount());
+      for (Connection c : connections) {
+        c.close();
+      }
+      assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+      assertEquals(2, ds.getPoolState().getIdleConnectionCount());
+      Connection c = ds.getConnection();
+      assertEquals(1, ds.getPoolState().getIdleConnectionCount());
+      c.close();
+      assertEquals(2, ds.getPoolState().getIdleConnectionCount());
+      assertEquals(4, ds.getPoolState().getRequestCount());
+      assertEquals(0, ds.getPoolState().getBadConnectionCount());
+      assertEquals(0, ds.getPoolState().getHadToWaitCount());
+    } finally {
+      ds.forceCloseAll();
+    }
+    assertEquals(0, ds.getPoolState().getIdleConnectionCount());
+  }
+
+  @Test
+  void shouldHandOffReturnedConnectionToWaitingThreadWithConcurrentCheckout() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolConcurrentCheckoutEnabled(true);
+      ds.setPoolMaximumActiveConnections(1);
+      ds.setPoolMaximumIdleConnections(1);
+      ds.setPoolTimeToWait(10000);
+      Connection first = ds.getConnection();
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+        Future<Connection> waiter = executor.submit(() -> ds.getConnection());
+        while (ds.getPoolState().getHadToWaitCount() == 0) {
+          Thread.sleep(10);
+        }
+        // the waiter may not poll for a handed off connection yet, then it finds the idle connection
+        first.close();
+        Connection second = waiter.get(1, TimeUnit.SECONDS);
+        assertEquals(1, ds.getPoolState().getActiveConnectionCount());
+        assertEquals(PooledDataSource.unwrapConnection(first), PooledDataSource.unwrapConnection(second));
+        second.close();
+      } finally {
+        executor.shutdown();
+      }
+      assertEquals(1, ds.getPoolState().getIdleConnectionCount());
+      assertEquals(1, ds.getPoolState().getHadToWaitCount());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldRefillMinimumIdleConnectionsInBackground() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolMaximumActiveConnections(5);
+      ds.setPoolMaximumIdleConnections(3);
+      ds.setPoolMinimumIdleConnections(2);
+      ds.setPoolHousekeepingPeriod(50);
+      ds.getConnection().close();
+      waitFor(() -> ds.getPoolState().getIdleConnectionCount() == 2);
+      Connection c1 = ds.getConnection();
+      Connection c2 = ds.getConnection();
+      waitFor(() -> ds.getPoolState().getIdleConnectionCount() == 2);
+      assertEquals(2, ds.getPoolState().getActiveConnectionCount());
+      c1.close();
+      c2.close();
+      assertEquals(3, ds.getPoolState().getIdleConnectionCount());
+    } finally {
+      ds.close();
+    }
+    Thread.sleep(150);
+    assertEquals(0, ds.getPoolState().getIdleConnectionCount());
+  }
+
+  @Test
+  void shouldNotOpenMoreThanMaximumActiveConnectionsWhenRefilling() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolConcurrentCheckoutEnabled(true);
+      ds.setPoolMaximumActiveConnections(3);
+      ds.setPoolMaximumIdleConnections(3);
+      ds.setPoolMinimumIdleConnections(3);
+      ds.setPoolHousekeepingPeriod(10);
+      AtomicInteger created = new AtomicInteger();
+      ds.addPoolListener(new PoolListener() {
+        @Override
+        public void connectionCreated(long creationTime) {
+          created.incrementAndGet();
+        }
+      });
+      List<Connection> connections = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        connections.add(ds.getConnection());
+      }
+      for (int i = 0; i < 20; i++) {
+        for (Connection c : connections) {
+          c.close();
+        }
+        connections.clear();
+        for (int j = 0; j < 3; j++) {
+          connections.add(ds.getConnection());
+        }
+      }
+      for (Connection c : connections) {
+        c.close();
+      }
+      waitFor(() -> ds.getPoolState().getIdleConnectionCount() == 3);
+      assertEquals(3, created.get());
+    } finally {
+      ds.close();
+    }
+  }
+
+  @Test
+  void shouldRetireConnectionsExceedingMaxLifetimeAndIdleTimeout() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolConcurrentCheckoutEnabled(true);
+      ds.setPoolMaximumIdleConnections(3);
+      ds.setPoolIdleTimeout(100);
+      ds.setPoolHousekeepingPeriod(50);
+      List<Connection> connections = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        connections.add(ds.getConnection());
+      }
+      for (Connection c : connections) {
+        c.close();
+      }
+      assertEquals(3, ds.getPoolState().getIdleConnectionCount());
+      waitFor(() -> ds.getPoolState().getIdleConnectionCount() == 0);
+
+      ds.setPoolIdleTimeout(0);
+      ds.setPoolMaxLifetime(100);
+      Connection c = ds.getConnection();
+      Thread.sleep(150);
+      c.close();
+      assertEquals(0, ds.getPoolState().getIdleConnectionCount());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the pool");
+      Thread.sleep(10);
+    }
+  }
+
+  @Test
+  void shouldRecordHistogramsAndNotifyListeners() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      AtomicInteger created = new AtomicInteger();
+      AtomicInteger checkedOut = new AtomicInteger();
+      AtomicInteger returned = new AtomicInteger();
+      ds.addPoolListener(new PoolListener() {
+        @Override
+        public void connectionCreated(long creationTime) {
+          created.incrementAndGet();
+        }
+
+        @Override
+        public void connectionCheckedOut(long waitTime) {
+          checkedOut.incrementAndGet();
+        }
+
+        @Override
+        public void connectionReturned(long holdTime) {
+          returned.incrementAndGet();
+        }
+      });
+      ds.getConnection().close();
+      Connection c = ds.getConnection();
+      Thread.sleep(20);
+      c.close();
+      PoolSnapshot snapshot = ds.getPoolState().snapshot();
+      assertEquals(1, created.get());
+      assertEquals(2, checkedOut.get());
+      assertEquals(2, returned.get());
+      assertEquals(2, snapshot.getRequestCount());
+      assertEquals(1, snapshot.getIdleConnectionCount());
+      assertEquals(1, snapshot.getCreationTime().getCount());
+      assertEquals(2, snapshot.getCheckoutTime().getCount());
+      assertEquals(2, snapshot.getHoldTime().getCount());
+      assertTrue(snapshot.getHoldTime().getMax() >= 20000);
+      assertNotNull(snapshot.toString());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldReusePreparedStatementsOfPooledConnections() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolPreparedStatements(true);
+      ds.setMaxOpenPreparedStatements(1);
+      String sql = "SELECT USER_NAME FROM INFORMATION_SCHEMA.SYSTEM_USERS";
+      PreparedStatement realStatement;
+      try (Connection c = ds.getConnection()) {
+        PreparedStatement st = c.prepareStatement(sql);
+        realStatement = st.unwrap(PreparedStatement.class);
+        st.setMaxRows(1);
+        st.executeQuery().close();
+        st.close();
+        assertTrue(st.isClosed());
+        assertFalse(realStatement.isClosed());
+        assertThrows(SQLException.class, st::executeQuery);
+      }
+      PreparedStatement otherStatement;
+      try (Connection c = ds.getConnection();
+           PreparedStatement st = c.prepareStatement(sql)) {
+        assertSame(realStatement, st.unwrap(PreparedStatement.class));
+        assertSame(c, st.getConnection());
+        assertEquals(0, st.getMaxRows());
+        try (PreparedStatement other = c.prepareStatement(sql)) {
+          otherStatement = other.unwrap(PreparedStatement.class);
+          assertNotSame(realStatement, otherStatement);
+        }
+      }
+      // only one statement is kept for the same sql
+      assertTrue(realStatement.isClosed());
+      assertFalse(otherStatement.isClosed());
+      try (Connection c = ds.getConnection()) {
+        c.prepareStatement(sql + " WHERE ADMIN = TRUE").close();
+        assertTrue(otherStatement.isClosed());
+      }
+      assertEquals(1, ds.getPoolState().getPreparedStatementHitCount());
+      assertEquals(3, ds.getPoolState().getPreparedStatementMissCount());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldCloseTheResultSetOfAPooledPreparedStatement() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolPreparedStatements(true);
+      try (Connection c = ds.getConnection()) {
+        PreparedStatement st = c.prepareStatement("SELECT USER_NAME FROM INFORMATION_SCHEMA.SYSTEM_USERS");
+        PreparedStatement realStatement = st.unwrap(PreparedStatement.class);
+        ResultSet rs = st.executeQuery();
+        st.close();
+        assertTrue(rs.isClosed());
+        assertFalse(realStatement.isClosed());
+      }
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldClearThePendingBatchOfAPooledPreparedStatement() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolPreparedStatements(true);
+      String sql = "INSERT INTO BATCH_ROWS (ID) VALUES (?)";
+      try (Connection c = ds.getConnection()) {
+        c.setAutoCommit(false);
+        try (Statement st = c.createStatement()) {
+          st.execute("DECLARE LOCAL TEMPORARY TABLE BATCH_ROWS (ID INT)");
+        }
+        PreparedStatement st = c.prepareStatement(sql);
+        st.setInt(1, 1);
+        st.addBatch();
+        st.close();
+        c.rollback();
+      }
+      try (Connection c = ds.getConnection();
+           PreparedStatement st = c.prepareStatement(sql)) {
+        st.setInt(1, 2);
+        st.addBatch();
+        assertEquals(1, st.executeBatch().length);
+        c.rollback();
+      }
+      assertEquals(1, ds.getPoolState().getPreparedStatementHitCount());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldNotLeakConnectionsWhenListenerFails() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.addPoolListener(new PoolListener() {
+        @Override
+        public void connectionCreated(long creationTime) {
+          throw new IllegalStateException("created");
+        }
+
+        @Override
+        public void connectionCheckedOut(long waitTime) {
+          throw new IllegalStateException("checked out");
+        }
+
+        @Override
+        public void connectionReturned(long holdTime) {
+          throw new IllegalStateException("returned");
+        }
+      });
+      Connection c = ds.getConnection();
+      assertEquals(1, ds.getPoolState().getActiveConnectionCount());
+      c.close();
+      assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+      assertEquals(1, ds.getPoolState().getIdleConnectionCount());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
   @Test
   void shouldNotFailCallingToStringOverAnInvalidConnection() throws Exception {
     PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
@@ -18,11 +18,17 @@ package org.apache.ibatis.mapping;
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.impl.ConcurrentCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.serializer.CopyingCacheSerializer;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.Field;
+import java.util.Properties;
 
 import static com.googlecode.catchexception.apis.BDDCatchException.*;
 import static org.assertj.core.api.BDDAssertions.then;
@@ -43,6 +49,42 @@ class CacheBuilderTest {
       .hasMessage("Failed cache initialization for 'test' on 'org.apache.ibatis.mapping.CacheBuilderTest$InitializingFailureCache'");
   }
 
+  @Test
+  void testConcurrentCacheIsNotSynchronized() {
+    Properties properties = new Properties();
+    properties.setProperty("expireAfterWrite", "60000");
+    Cache cache = new CacheBuilder("test").implementation(ConcurrentCache.class).addDecorator(LruCache.class)
+      .size(10).properties(properties).build();
+
+    Assertions.assertThat(cache).isInstanceOf(LoggingCache.class);
+    ConcurrentCache concurrentCache = unwrap(cache);
+    for (int i = 0; i < 20; i++) {
+      concurrentCache.putObject(i, i);
+    }
+    Assertions.assertThat(concurrentCache.getSize()).isEqualTo(10);
+  }
+
+  @Test
+  void testReadWriteCacheUsesSerializer() {
+    Cache cache = new CacheBuilder("test").readWrite(true).serializer(CopyingCacheSerializer.class).build();
+    Counter counter = new Counter();
+    counter.setCount(1);
+    cache.putObject("key", counter);
+    counter.setCount(2);
+
+    Counter copy = (Counter) cache.getObject("key");
+    Assertions.assertThat(copy).isNotSameAs(counter);
+    Assertions.assertThat(copy.getCount()).isEqualTo(1);
+  }
+
+  @Test
+  void testOffHeapCacheIsNotSerializedTwice() {
+    Cache cache = new CacheBuilder("test").implementation(OffHeapCache.class).readWrite(true).build();
+
+    Assertions.assertThat(cache).isInstanceOf(LoggingCache.class);
+    Assertions.assertThat((Cache) unwrap(cache)).isInstanceOf(OffHeapCache.class);
+  }
+
   @SuppressWarnings("unchecked")
   private <T> T unwrap(Cache cache) {
     Field field;
@@ -61,6 +103,20 @@ class CacheBuilderTest {
     }
   }
 
+  public static class Counter {
+
+    private int count;
+
+    public int getCount() {
+      return count;
+    }
+
+    public void setCount(int count) {
+      this.count = count;
+    }
+
+  }
+
   private static class InitializingCache extends PerpetualCache implements InitializingObject {
 
     private boolean initialized;
@@ -0,0 +1,97 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.invoker.LambdaMethodInvoker;
+import org.junit.jupiter.api.Test;
+
+class LambdaReflectorFactoryTest {
+
+  @Test
+  void shouldGenerateInvokersForPublicGettersAndSetters() throws Exception {
+    Reflector reflector = new LambdaReflectorFactory().findForClass(Author.class);
+    Author author = new Author();
+
+    Invoker setUsername = reflector.getSetInvoker("username");
+    Invoker setId = reflector.getSetInvoker("id");
+    assertTrue(setUsername instanceof LambdaMethodInvoker);
+    assertEquals(String.class, setUsername.getType());
+    assertEquals(int.class, setId.getType());
+    setUsername.invoke(author, new Object[] { "mybatis" });
+    setId.invoke(author, new Object[] { 3 });
+
+    Invoker getUsername = reflector.getGetInvoker("username");
+    Invoker getId = reflector.getGetInvoker("id");
+    assertTrue(getUsername instanceof LambdaMethodInvoker);
+    assertEquals(int.class, getId.getType());
+    assertEquals("mybatis", getUsername.invoke(author, null));
+    assertEquals(3, getId.invoke(author, null));
+  }
+
+  @Test
+  void shouldWrapExceptionsLikeReflection() throws Exception {
+    Reflector reflector = new LambdaReflectorFactory().findForClass(Author.class);
+    InvocationTargetException e = assertThrows(InvocationTargetException.class,
+        () -> reflector.getSetInvoker("id").invoke(new Author(), new Object[] { null }));
+    assertTrue(e.getTargetException() instanceof NullPointerException);
+  }
+
+  @Test
+  void shouldFallBackToReflectionForNonPublicClasses() throws Exception {
+    Reflector reflector = new LambdaReflectorFactory().findForClass(PackagePrivateBean.class);
+    PackagePrivateBean bean = new PackagePrivateBean();
+    Invoker setter = reflector.getSetInvoker("value");
+    assertFalse(setter instanceof LambdaMethodInvoker);
+    setter.invoke(bean, new Object[] { 7L });
+    assertEquals(7L, reflector.getGetInvoker("value").invoke(bean, null));
+  }
+
+  @Test
+  void shouldWorkThroughMetaObject() {
+    Author author = new Author();
+    MetaObject metaObject = MetaObject.forObject(author, SystemMetaObject.DEFAULT_OBJECT_FACTORY,
+        SystemMetaObject.DEFAULT_OBJECT_WRAPPER_FACTORY, new LambdaReflectorFactory());
+    metaObject.setValue("username", "a");
+    metaObject.setValue("id", 1);
+    assertEquals("a", metaObject.getValue("username"));
+    assertEquals(1, author.getId());
+    metaObject.setValue("username", null);
+    assertNull(author.getUsername());
+  }
+
+  static class PackagePrivateBean {
+    private Long value;
+
+    public Long getValue() {
+      return value;
+    }
+
+    public void setValue(Long value) {
+      this.value = value;
+    }
+  }
+
+}
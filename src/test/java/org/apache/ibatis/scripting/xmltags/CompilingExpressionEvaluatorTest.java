@@ -0,0 +1,104 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+class CompilingExpressionEvaluatorTest {
+
+  private static final String[] EXPRESSIONS = {
+      "username", "password", "id", "id == 1", "id != 1", "id eq 1L", "id > 0 and id < 10", "id >= 1 && id <= 1",
+      "id gt 0 or password != null", "username == 'cbegin'", "username neq \"cbegin\"", "!(username == null)",
+      "not username == null", "username != null and username != ''", "favouriteSection == 'NEWS'",
+      "favouriteSection.name == 'NEWS'", "email.length() > 3", "bio == null or bio.isEmpty()", "id == 1.0",
+      "_parameter != null", "_databaseId == null", "true and false", "null", "(id == 1) == true",
+      "username.bytes != null", "username.toUpperCase() == 'CBEGIN'"
+  };
+
+  private final Configuration configuration = new Configuration();
+  private final ExpressionEvaluator ognl = new ExpressionEvaluator();
+  private final ExpressionEvaluator compiled = new CompilingExpressionEvaluator(configuration);
+
+  @Test
+  void shouldEvaluateBeanPropertiesLikeOgnl() {
+    Author author = new Author(1, "cbegin", null, "cbegin@apache.org", "", Section.NEWS);
+    for (String expression : EXPRESSIONS) {
+      assertSameResult(expression, new DynamicContext(configuration, author).getBindings());
+    }
+  }
+
+  @Test
+  void shouldEvaluateMapEntriesLikeOgnl() {
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("id", 0);
+    parameter.put("username", "");
+    parameter.put("email", "cbegin@apache.org");
+    parameter.put("favouriteSection", Section.VIDEOS);
+    for (String expression : EXPRESSIONS) {
+      assertSameResult(expression, new DynamicContext(configuration, parameter).getBindings());
+    }
+  }
+
+  @Test
+  void shouldEvaluateNestedPropertiesAndBindings() {
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("author", new Author(3, "jim", "secret", null, null, Section.IMAGES));
+    parameter.put("ids", Arrays.asList(1, 2));
+    parameter.put("empty", "");
+    DynamicContext context = new DynamicContext(configuration, parameter);
+    context.bind("item", new Author(4));
+    for (String expression : new String[] { "author.username == 'jim'", "author.email == null", "author.id > 2",
+        "item.id == 4", "item.username", "ids.size > 1", "ids.size() == 2", "empty == 0", "author != null and author.password != ''" }) {
+      assertSameResult(expression, context.getBindings());
+    }
+    assertEquals(Arrays.asList(1, 2), compiled.evaluateIterable("ids", context.getBindings()));
+  }
+
+  @Test
+  void shouldReportTheErrorsOfOgnl() {
+    Map<String, Object> parameter = new HashMap<>();
+    DynamicContext context = new DynamicContext(configuration, parameter);
+    assertThrows(BuilderException.class, () -> compiled.evaluateBoolean("author.username == null", context.getBindings()));
+    assertThrows(BuilderException.class, () -> compiled.evaluateIterable("ids", context.getBindings()));
+  }
+
+  private void assertSameResult(String expression, Map<String, Object> bindings) {
+    Object expected;
+    try {
+      expected = ognl.evaluateBoolean(expression, bindings);
+    } catch (RuntimeException e) {
+      expected = e.getClass();
+    }
+    Object actual;
+    try {
+      actual = compiled.evaluateBoolean(expression, bindings);
+    } catch (RuntimeException e) {
+      actual = e.getClass();
+    }
+    assertEquals(expected, actual, expression);
+  }
+
+}
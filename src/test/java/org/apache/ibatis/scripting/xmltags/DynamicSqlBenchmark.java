@@ -0,0 +1,97 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares building the SQL of the dynamic statements of {@code PostMapper.xml} with the tests evaluated by OGNL
+ * against the compiled tests of {@code dynamicSqlCompilationEnabled}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DynamicSqlBenchmark {
+
+  private static final String RESOURCE = "org/apache/ibatis/builder/PostMapper.xml";
+  private static final String NAMESPACE = "org.apache.ibatis.domain.blog.mappers.PostMapper.";
+
+  @Param({ "false", "true" })
+  private boolean compiled;
+
+  private MappedStatement findPost;
+  private MappedStatement selectPostIn;
+  private Map<String, Object> findPostParameter;
+  private Map<String, Object> selectPostInParameter;
+
+  @Setup
+  public void setup() throws Exception {
+    Configuration configuration = new Configuration();
+    configuration.setDynamicSqlCompilationEnabled(compiled);
+    try (InputStream inputStream = Resources.getResourceAsStream(RESOURCE)) {
+      new XMLMapperBuilder(inputStream, configuration, RESOURCE, configuration.getSqlFragments()).parse();
+    }
+    findPost = configuration.getMappedStatement(NAMESPACE + "findPost");
+    selectPostIn = configuration.getMappedStatement(NAMESPACE + "selectPostIn");
+    findPostParameter = new HashMap<>();
+    findPostParameter.put("ids", Arrays.asList(1, 2, 3));
+    findPostParameter.put("blog_id", 1);
+    selectPostInParameter = new HashMap<>();
+    selectPostInParameter.put("list", Arrays.asList(1, 2, 3, 4, 5));
+  }
+
+  @Benchmark
+  public BoundSql findPost() {
+    return findPost.getBoundSql(findPostParameter);
+  }
+
+  @Benchmark
+  public BoundSql selectPostIn() {
+    return selectPostIn.getBoundSql(selectPostInParameter);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(DynamicSqlBenchmark.class.getSimpleName()).build()).run();
+  }
+
+}
@@ -16,14 +16,21 @@
 package org.apache.ibatis.submitted.automapping;
 
 import java.io.Reader;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
+import java.util.Locale;
 
 import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.resultset.ResultMappingPlanCache;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.session.AutoMappingBehavior;
+import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.StringTypeHandler;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -157,6 +164,49 @@ class AutomappingTest {
     }
   }
 
+  @Test
+  void shouldShareAutoMappingsAcrossExecutions() {
+    ResultMappingPlanCache planCache = sqlSessionFactory.getConfiguration().getResultMappingPlanCache();
+    planCache.clear();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.getUser(1);
+      Assertions.assertEquals(1, planCache.getSize());
+      sqlSession.clearCache();
+      User user = mapper.getUser(1);
+      Assertions.assertEquals("User1", user.getName());
+      Assertions.assertEquals(1, planCache.getSize());
+    }
+  }
+
+  @Test
+  void shouldResolveAutoMappingsAgainWhenTheirSettingsOrTypeHandlersChange() throws Exception {
+    SqlSessionFactory factory;
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/automapping/mybatis-config.xml")) {
+      factory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    Configuration configuration = factory.getConfiguration();
+    ResultMappingPlanCache planCache = configuration.getResultMappingPlanCache();
+    try (SqlSession sqlSession = factory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      Assertions.assertEquals("User1", mapper.getUser(1).getName());
+      Assertions.assertEquals(1, planCache.getSize());
+      configuration.setMapUnderscoreToCamelCase(true);
+      Assertions.assertEquals(0, planCache.getSize());
+
+      sqlSession.clearCache();
+      Assertions.assertEquals("User1", mapper.getUser(1).getName());
+      configuration.getTypeHandlerRegistry().register(String.class, JdbcType.VARCHAR, new StringTypeHandler() {
+        @Override
+        public String getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+          return rs.getString(columnIndex).toUpperCase(Locale.ENGLISH);
+        }
+      });
+      sqlSession.clearCache();
+      Assertions.assertEquals("USER1", mapper.getUser(1).getName());
+    }
+  }
+
   @Test
   void shouldUpdateFinalField() {
     // set automapping to default partial
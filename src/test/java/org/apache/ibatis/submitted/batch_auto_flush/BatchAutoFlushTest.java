@@ -0,0 +1,132 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.batch_auto_flush;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BatchAutoFlushTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+  private final List<BatchResult> handledResults = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/batch_auto_flush/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    sqlSessionFactory.getConfiguration().setBatchResultHandler(handledResults::add);
+
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+            "org/apache/ibatis/submitted/batch_auto_flush/CreateDB.sql");
+  }
+
+  @Test
+  void shouldExecuteBatchesOfBatchSize() {
+    List<User> users = new ArrayList<>();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 7; i++) {
+        User user = new User("user" + i);
+        users.add(user);
+        mapper.insertUser(user);
+      }
+      assertEquals(2, handledResults.size());
+      assertArrayEquals(new int[] { 1, 1, 1 }, handledResults.get(0).getUpdateCounts());
+      assertEquals(users.subList(3, 6), handledResults.get(1).getParameterObjects());
+      assertEquals(Integer.valueOf(6), users.get(5).getId());
+
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(1, results.size());
+      assertEquals(users.subList(6, 7), results.get(0).getParameterObjects());
+      assertEquals(3, handledResults.size());
+      assertEquals(Integer.valueOf(7), users.get(6).getId());
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals(7, sqlSession.getMapper(Mapper.class).countUsers());
+    }
+  }
+
+  @Test
+  void shouldExecuteBatchesOfBatchBytes() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    configuration.setBatchSize(0);
+    // each name is estimated at 10 bytes
+    configuration.setBatchBytes(25);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 7; i++) {
+        mapper.insertUser(new User("name" + i));
+      }
+      assertEquals(2, handledResults.size());
+      assertEquals(3, handledResults.get(0).getParameterObjects().size());
+      assertEquals(1, sqlSession.flushStatements().size());
+    }
+  }
+
+  @Test
+  void shouldReturnExecutedBatchesWithoutBatchResultHandler() {
+    sqlSessionFactory.getConfiguration().setBatchResultHandler(null);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 7; i++) {
+        mapper.insertUser(new User("user" + i));
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(3, results.size());
+      assertArrayEquals(new int[] { 1, 1, 1 }, results.get(0).getUpdateCounts());
+      assertArrayEquals(new int[] { 1, 1, 1 }, results.get(1).getUpdateCounts());
+      // the executor does not keep the parameters of the batches flushed automatically
+      assertEquals(0, results.get(0).getParameterObjects().size());
+      assertEquals(0, results.get(1).getParameterObjects().size());
+      assertEquals(1, results.get(2).getParameterObjects().size());
+      assertEquals(0, sqlSession.flushStatements().size());
+      assertEquals(0, handledResults.size());
+    }
+  }
+
+  @Test
+  void shouldNotFlushWithoutBatchSize() {
+    sqlSessionFactory.getConfiguration().setBatchSize(0);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 7; i++) {
+        mapper.insertUser(new User("user" + i));
+      }
+      assertEquals(0, handledResults.size());
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(7, results.get(0).getParameterObjects().size());
+      assertEquals(results, handledResults);
+    }
+  }
+
+}
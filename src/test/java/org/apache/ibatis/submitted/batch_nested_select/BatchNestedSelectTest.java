@@ -0,0 +1,153 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.batch_nested_select;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.plugin.StatementCounter;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BatchNestedSelectTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/batch_nested_select/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/batch_nested_select/CreateDB.sql");
+  }
+
+  @BeforeEach
+  void resetCounter() {
+    StatementCounter.STATEMENTS.set(0);
+  }
+
+  @AfterEach
+  void resetBatchSize() {
+    sqlSessionFactory.getConfiguration().setNestedSelectBatchSize(100);
+  }
+
+  @Test
+  void shouldLoadNestedSelectsOfAllRowsAtOnce() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = sqlSession.getMapper(Mapper.class).getBlogs();
+      assertEquals(3, StatementCounter.STATEMENTS.get());
+      assertBlogs(blogs);
+    }
+  }
+
+  @Test
+  void shouldLoadNestedSelectsInBatchesOfBatchSize() {
+    sqlSessionFactory.getConfiguration().setNestedSelectBatchSize(2);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = sqlSession.getMapper(Mapper.class).getBlogs();
+      // authors of blogs 1 and 2, 3 and 4 (blog 5 has none); posts of blogs 1 and 2, 3 and 4, 5
+      assertEquals(1 + 2 + 3, StatementCounter.STATEMENTS.get());
+      // blogs 1 and 3 get their author from different batches
+      assertNotSame(blogs.get(0).getAuthor(), blogs.get(2).getAuthor());
+      assertEquals("alice", blogs.get(2).getAuthor().getName());
+      assertBlogs(blogs, false);
+    }
+  }
+
+  @Test
+  void shouldLoadNestedSelectsOfEachRowForResultHandler() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = new ArrayList<>();
+      sqlSession.getMapper(Mapper.class).getBlogs(context -> {
+        assertTrue(context.getResultObject().getPosts() != null);
+        blogs.add(context.getResultObject());
+      });
+      assertBlogs(blogs);
+    }
+  }
+
+  @Test
+  void shouldLoadLazyNestedSelectsOfSiblingsWithFirstOne() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Blog> blogs = sqlSession.getMapper(Mapper.class).getLazyBlogs();
+      assertEquals(1, StatementCounter.STATEMENTS.get());
+      assertEquals("alice", blogs.get(0).getAuthor().getName());
+      assertEquals(2, StatementCounter.STATEMENTS.get());
+      assertEquals("carol", blogs.get(3).getAuthor().getName());
+      assertEquals(2, StatementCounter.STATEMENTS.get());
+      assertBlogs(blogs);
+      assertEquals(3, StatementCounter.STATEMENTS.get());
+    }
+  }
+
+  @Test
+  void shouldRejectCompositeColumnsOfBatchedNestedSelects() throws Exception {
+    Configuration configuration = new Configuration();
+    String resource = "org/apache/ibatis/submitted/batch_nested_select/CompositeKeyMapper.xml";
+    try (InputStream inputStream = Resources.getResourceAsStream(resource)) {
+      XMLMapperBuilder builder = new XMLMapperBuilder(inputStream, configuration, resource, configuration.getSqlFragments());
+      BuilderException e = assertThrows(BuilderException.class, builder::parse);
+      assertTrue(e.getMessage().contains("Cannot batch a nested select with a composite column in property posts"));
+    }
+  }
+
+  private void assertBlogs(List<Blog> blogs) {
+    assertBlogs(blogs, true);
+  }
+
+  private void assertBlogs(List<Blog> blogs, boolean sameAuthors) {
+    assertEquals(5, blogs.size());
+    assertEquals("alice", blogs.get(0).getAuthor().getName());
+    assertEquals("bob", blogs.get(1).getAuthor().getName());
+    if (sameAuthors) {
+      assertSame(blogs.get(0).getAuthor(), blogs.get(2).getAuthor());
+    }
+    assertEquals("carol", blogs.get(3).getAuthor().getName());
+    assertNull(blogs.get(4).getAuthor());
+    assertEquals("[post1, post2, post5]", subjects(blogs.get(0)));
+    assertEquals("[post3]", subjects(blogs.get(1)));
+    assertEquals("[]", subjects(blogs.get(2)));
+    assertEquals("[post4]", subjects(blogs.get(3)));
+    assertEquals("[]", subjects(blogs.get(4)));
+  }
+
+  private String subjects(Blog blog) {
+    return blog.getPosts().stream().map(Post::getSubject).collect(Collectors.toList()).toString();
+  }
+
+}
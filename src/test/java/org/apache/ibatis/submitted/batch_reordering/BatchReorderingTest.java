@@ -0,0 +1,132 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.batch_reordering;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BatchReorderingTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/batch_reordering/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+            "org/apache/ibatis/submitted/batch_reordering/CreateDB.sql");
+  }
+
+  @Test
+  void shouldBatchInterleavedInsertsPerStatement() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      Item item1 = new Item(1, "item1");
+      Item item2 = new Item(1, "item2");
+      Item item3 = new Item(2, "item3");
+      mapper.insertOrder(new Order(1, "alice"));
+      mapper.insertItem(item1);
+      mapper.insertItem(item2);
+      mapper.insertOrder(new Order(2, "bob"));
+      mapper.insertItem(item3);
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(2, results.size());
+      assertEquals("insertOrder", results.get(0).getMappedStatement().getId().replaceAll(".*\\.", ""));
+      assertEquals(2, results.get(0).getParameterObjects().size());
+      assertEquals(Arrays.asList(item1, item2, item3), results.get(1).getParameterObjects());
+      assertEquals(Integer.valueOf(1), item1.getId());
+      assertEquals(Integer.valueOf(2), item2.getId());
+      assertEquals(Integer.valueOf(3), item3.getId());
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Item> items = sqlSession.getMapper(Mapper.class).getItems();
+      assertEquals(3, items.size());
+      assertEquals("item3", items.get(2).getName());
+      assertEquals(Integer.valueOf(2), items.get(2).getOrderId());
+    }
+  }
+
+  @Test
+  void shouldKeepTheOrderOfTheStatementsOfATable() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertOrder(new Order(1, "alice"));
+      mapper.updateOrder(new Order(1, "carol"));
+      mapper.insertOrder(new Order(2, "bob"));
+      mapper.updateOrder(new Order(2, "dave"));
+      assertEquals(4, sqlSession.flushStatements().size());
+      assertEquals("carol", sqlSession.getMapper(Mapper.class).getCustomer(1));
+      assertEquals("dave", sqlSession.getMapper(Mapper.class).getCustomer(2));
+    }
+  }
+
+  @Test
+  void shouldNotMoveAChildAheadOfAParentListedBeforeIt() {
+    sqlSessionFactory.getConfiguration().setBatchTableOrder(Arrays.asList("orders", "items"));
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertItem(new Item(10, "item1"));
+      mapper.insertOrder(new Order(1, "alice"));
+      mapper.insertItem(new Item(1, "item2"));
+      assertEquals(3, sqlSession.flushStatements().size());
+      sqlSession.commit();
+    }
+  }
+
+  @Test
+  void shouldOrderTablesAsFirstWrittenWithoutTableOrder() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      // items are written first, so the second item joins the first one ahead of its order
+      mapper.insertItem(new Item(10, "item1"));
+      mapper.insertOrder(new Order(1, "alice"));
+      mapper.insertItem(new Item(1, "item2"));
+      assertThrows(PersistenceException.class, sqlSession::flushStatements);
+    }
+  }
+
+  @Test
+  void shouldBatchOnlyContiguousStatementsWhenDisabled() {
+    sqlSessionFactory.getConfiguration().setBatchReorderingEnabled(false);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertOrder(new Order(1, "alice"));
+      mapper.insertItem(new Item(1, "item1"));
+      mapper.insertOrder(new Order(2, "bob"));
+      mapper.insertItem(new Item(2, "item2"));
+      assertEquals(4, sqlSession.flushStatements().size());
+    }
+  }
+
+}
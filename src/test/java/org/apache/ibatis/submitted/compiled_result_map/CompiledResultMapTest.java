@@ -0,0 +1,147 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compiled_result_map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class CompiledResultMapTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/compiled_result_map/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/compiled_result_map/CreateDB.sql");
+  }
+
+  @Test
+  void shouldMapRowsAfterTheFirstWithoutReflectorLookups() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      String statement = Mapper.class.getName() + ".getUsers";
+      sqlSessionFactory.getConfiguration().getResultMappingPlanCache().clear();
+      CountingReflectorFactory.LOOKUPS.set(0);
+      sqlSession.selectList(statement, null, new RowBounds(0, 1));
+      int lookupsForOneRow = CountingReflectorFactory.LOOKUPS.getAndSet(0);
+
+      sqlSessionFactory.getConfiguration().getResultMappingPlanCache().clear();
+      List<User> users = sqlSession.selectList(statement);
+      assertEquals(3, users.size());
+      assertUser(users.get(0), 1, "alice", "alice@example.com");
+      assertUser(users.get(1), 2, "bob", null);
+      assertUser(users.get(2), 3, "carol", "carol@example.com");
+      assertEquals(lookupsForOneRow, CountingReflectorFactory.LOOKUPS.get());
+    }
+  }
+
+  @Test
+  void shouldReuseCompiledRowMappersAcrossExecutions() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.getUsers();
+      sqlSession.clearCache();
+      CountingReflectorFactory.LOOKUPS.set(0);
+
+      List<User> users = mapper.getUsers();
+      assertEquals(3, users.size());
+      assertUser(users.get(0), 1, "alice", "alice@example.com");
+      assertEquals(0, CountingReflectorFactory.LOOKUPS.get());
+    }
+  }
+
+  @Test
+  void shouldMapAutomaticMappings() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsersAutoMapped();
+      assertEquals(3, users.size());
+      assertUser(users.get(0), 1, "alice", "alice@example.com");
+      assertUser(users.get(1), 2, "bob", null);
+      assertUser(users.get(2), 3, "carol", "carol@example.com");
+    }
+  }
+
+  @Test
+  void shouldMapRowsOfACursor() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession();
+         Cursor<User> cursor = sqlSession.getMapper(Mapper.class).getUsersAsCursor()) {
+      List<User> users = new ArrayList<>();
+      cursor.forEach(users::add);
+      assertEquals(3, users.size());
+      assertUser(users.get(2), 3, "carol", "carol@example.com");
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Test
+  void shouldMapConstructorArgs() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<ImmutableUser> users = sqlSession.getMapper(Mapper.class).getImmutableUsers();
+      assertEquals(3, users.size());
+      assertEquals(1, users.get(0).getId());
+      assertEquals("alice", users.get(0).getName());
+      assertEquals(3, users.get(2).getId());
+      assertEquals("carol", users.get(2).getName());
+    }
+  }
+
+  @Test
+  void shouldNotCompileNestedProperties() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsersWithAddress();
+      assertEquals(3, users.size());
+      assertEquals("Tokyo", users.get(0).getAddress().getCity());
+      assertEquals("Osaka", users.get(1).getAddress().getCity());
+      assertNull(users.get(2).getAddress());
+    }
+  }
+
+  @Test
+  void shouldReturnNullForEmptyRows() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).getEmails();
+      assertEquals(3, users.size());
+      assertEquals("alice@example.com", users.get(0).getEmail());
+      assertNull(users.get(1));
+      assertEquals("carol@example.com", users.get(2).getEmail());
+    }
+  }
+
+  private void assertUser(User user, int id, String name, String email) {
+    assertEquals(id, user.getId());
+    assertEquals(name, user.getName());
+    assertEquals(email, user.getEmail());
+  }
+
+}
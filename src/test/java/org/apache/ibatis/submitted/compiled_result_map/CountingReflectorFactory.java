@@ -0,0 +1,36 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compiled_result_map;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.reflection.DefaultReflectorFactory;
+import org.apache.ibatis.reflection.Reflector;
+
+/**
+ * Counts the reflector lookups, which the regular row mapping does for every row.
+ */
+public class CountingReflectorFactory extends DefaultReflectorFactory {
+
+  static final AtomicInteger LOOKUPS = new AtomicInteger();
+
+  @Override
+  public Reflector findForClass(Class<?> type) {
+    LOOKUPS.incrementAndGet();
+    return super.findForClass(type);
+  }
+
+}
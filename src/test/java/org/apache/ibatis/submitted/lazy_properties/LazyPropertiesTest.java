@@ -18,18 +18,25 @@ package org.apache.ibatis.submitted.lazy_properties;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.Reader;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
 import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
+import org.apache.ibatis.executor.loader.javassist.GeneratedProxyFactory;
 import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
 import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -73,6 +80,72 @@ class LazyPropertiesTest {
     }
   }
 
+  @Test
+  void shouldLoadLazyPropertiesInParallelInDedicatedPoolByDefault() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    configuration.setAggressiveLazyLoading(false);
+    configuration.setParallelLazyLoadingEnabled(true);
+    configuration.setLazyLoadingPool(null);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      User user = sqlSession.getMapper(Mapper.class).getUser(1);
+      user.toString();
+      assertEquals("lazy3", user.getLazy3().get(0).getName());
+      ThreadPoolExecutor pool = (ThreadPoolExecutor) configuration.getLazyLoadingPool();
+      assertEquals(2, pool.getTaskCount());
+      assertEquals(Runtime.getRuntime().availableProcessors(), pool.getMaximumPoolSize());
+    }
+  }
+
+  @Test
+  void shouldLoadAllLazyPropertiesInParallel() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(2);
+    configuration.setAggressiveLazyLoading(false);
+    configuration.setParallelLazyLoadingEnabled(true);
+    configuration.setLazyLoadingPool(pool);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      User user = mapper.getUser(1);
+      user.toString();
+      assertEquals(3, user.setterCounter);
+      // the first property is loaded on the calling thread
+      assertEquals(2, pool.getTaskCount());
+      assertEquals("lazy1", user.getLazy1().getName());
+      assertEquals("lazy2", user.getLazy2().getName());
+      assertEquals("lazy3", user.getLazy3().get(0).getName());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void shouldLoadLazyPropertiesInParallelWithoutAConnectionLeftForThePool() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    PooledDataSource dataSource = new PooledDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:mem:lazyprops", "sa", null);
+    dataSource.setPoolMaximumActiveConnections(1);
+    dataSource.setPoolMaximumCheckoutTime(60000);
+    ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(2);
+    configuration.setEnvironment(new Environment("pooled", new JdbcTransactionFactory(), dataSource));
+    configuration.setAggressiveLazyLoading(false);
+    configuration.setParallelLazyLoadingEnabled(true);
+    configuration.setLazyLoadingPool(pool);
+    try {
+      assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+          User user = sqlSession.getMapper(Mapper.class).getUser(1);
+          user.toString();
+          assertEquals(3, user.setterCounter);
+          assertEquals("lazy1", user.getLazy1().getName());
+          assertEquals("lazy2", user.getLazy2().getName());
+          assertEquals("lazy3", user.getLazy3().get(0).getName());
+        }
+      });
+    } finally {
+      pool.shutdownNow();
+      dataSource.forceCloseAll();
+    }
+  }
+
   @Test
   void shouldToStringTriggerLazyLoading() {
     sqlSessionFactory.getConfiguration().setAggressiveLazyLoading(false);
@@ -162,6 +235,40 @@ class LazyPropertiesTest {
     shoulInvokingSetterInvalidateLazyLoading(new CglibProxyFactory());
   }
 
+  @Test
+  void shouldInvokingSetterInvalidateLazyLoading_Generated() {
+    shoulInvokingSetterInvalidateLazyLoading(new GeneratedProxyFactory());
+  }
+
+  @Test
+  void shouldGeneratedProxyLoadOnlyTheInvokedLazyProperty() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    configuration.setProxyFactory(new GeneratedProxyFactory());
+    configuration.setAggressiveLazyLoading(false);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      User user = mapper.getUser(1);
+      assertEquals(0, user.setterCounter);
+      assertEquals("lazy1", user.getLazy1().getName());
+      assertEquals(1, user.setterCounter, "Should NOT load other lazy properties.");
+      user.hashCode();
+      assertEquals(3, user.setterCounter);
+      assertEquals("lazy3", user.getLazy3().get(0).getName());
+    }
+  }
+
+  @Test
+  void shouldGeneratedProxyLoadAllLazyPropertiesAggressively() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    configuration.setProxyFactory(new GeneratedProxyFactory());
+    configuration.setAggressiveLazyLoading(true);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      User user = mapper.getUser(1);
+      assertEquals(3, user.setterCounter, "Should load all lazy properties.");
+    }
+  }
+
   private void shoulInvokingSetterInvalidateLazyLoading(ProxyFactory proxyFactory) {
     Configuration config = sqlSessionFactory.getConfiguration();
     config.setProxyFactory(proxyFactory);
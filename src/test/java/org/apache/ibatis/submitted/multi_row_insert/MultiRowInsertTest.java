@@ -0,0 +1,140 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.multi_row_insert;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.plugin.StatementCounter;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.Test;
+
+class MultiRowInsertTest {
+
+  private SqlSessionFactory createSqlSessionFactory(String environment) throws Exception {
+    SqlSessionFactory sqlSessionFactory;
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/multi_row_insert/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader, environment);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+            "org/apache/ibatis/submitted/multi_row_insert/CreateDB.sql");
+    StatementCounter.STATEMENTS.set(0);
+    return sqlSessionFactory;
+  }
+
+  @Test
+  void shouldInsertRowsWithMultiRowStatements() throws Exception {
+    SqlSessionFactory sqlSessionFactory = createSqlSessionFactory("hsqldb");
+    List<User> users = new ArrayList<>();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 5; i++) {
+        User user = new User("user" + i, 20 + i);
+        users.add(user);
+        mapper.insertUser(user);
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      // 2 parameters a row and at most 4 parameters a statement
+      assertEquals(3, StatementCounter.STATEMENTS.get());
+      assertEquals(1, results.size());
+      assertEquals(users, results.get(0).getParameterObjects());
+      assertArrayEquals(new int[] { 1, 1, 1, 1, 1 }, results.get(0).getUpdateCounts());
+      for (int i = 0; i < 5; i++) {
+        assertEquals(Integer.valueOf(i + 1), users.get(i).getId());
+      }
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> loaded = sqlSession.getMapper(Mapper.class).getUsers();
+      assertEquals(5, loaded.size());
+      assertEquals("user4", loaded.get(4).getName());
+      assertEquals(Integer.valueOf(24), loaded.get(4).getAge());
+    }
+  }
+
+  @Test
+  void shouldInsertTheValuesOfReusedParameterWhenItWasExecuted() throws Exception {
+    SqlSessionFactory sqlSessionFactory = createSqlSessionFactory("hsqldb");
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      User user = new User();
+      for (int i = 0; i < 3; i++) {
+        user.setName("user" + i);
+        user.setAge(20 + i);
+        mapper.insertUserWithoutKey(user);
+      }
+      sqlSession.flushStatements();
+      assertEquals(2, StatementCounter.STATEMENTS.get());
+      List<User> loaded = mapper.getUsers();
+      assertEquals(3, loaded.size());
+      for (int i = 0; i < 3; i++) {
+        assertEquals("user" + i, loaded.get(i).getName());
+        assertEquals(Integer.valueOf(20 + i), loaded.get(i).getAge());
+      }
+    }
+  }
+
+  @Test
+  void shouldBatchOtherStatementsAsBefore() throws Exception {
+    SqlSessionFactory sqlSessionFactory = createSqlSessionFactory("hsqldb");
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertUserWithoutKey(new User("user0", null));
+      mapper.insertUserWithoutKey(new User("user1", 21));
+      mapper.updateUser(new User("user0", 30));
+      mapper.updateUser(new User("user1", 31));
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(2, StatementCounter.STATEMENTS.get());
+      assertEquals(2, results.size());
+      assertArrayEquals(new int[] { 1, 1 }, results.get(1).getUpdateCounts());
+      List<User> loaded = mapper.getUsers();
+      assertEquals(Integer.valueOf(30), loaded.get(0).getAge());
+      assertEquals(Integer.valueOf(31), loaded.get(1).getAge());
+    }
+  }
+
+  @Test
+  void shouldInsertRowsWithMultiRowStatementsOnDerby() throws Exception {
+    SqlSessionFactory sqlSessionFactory = createSqlSessionFactory("derby");
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 5; i++) {
+        mapper.insertUserWithoutKey(new User("user" + i, i == 2 ? null : 20 + i));
+      }
+      sqlSession.flushStatements();
+      assertEquals(3, StatementCounter.STATEMENTS.get());
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> loaded = sqlSession.getMapper(Mapper.class).getUsers();
+      assertEquals(5, loaded.size());
+      assertEquals("user2", loaded.get(2).getName());
+      assertEquals(Integer.valueOf(0), loaded.get(2).getAge());
+      assertEquals(Integer.valueOf(24), loaded.get(4).getAge());
+    }
+  }
+
+}
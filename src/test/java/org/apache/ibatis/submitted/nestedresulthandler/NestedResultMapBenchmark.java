@@ -0,0 +1,130 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.nestedresulthandler;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Maps the statements of the {@code nestedresulthandler} tests over their schema filled with more persons, each owning
+ * ten items: a collection mapped with {@code resultOrdered}, the same collection keeping every person until the end of
+ * the result set, and pairs of associations. Most of the work per row is building the keys of the nested objects and
+ * looking them up.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NestedResultMapBenchmark {
+
+  private static final int ITEMS_PER_PERSON = 10;
+
+  @Param({ "1000" })
+  private int persons;
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @Setup
+  public void setup() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/nestedresulthandler/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/nestedresulthandler/CreateDB.sql");
+    try (Connection connection = sqlSessionFactory.getConfiguration().getEnvironment().getDataSource().getConnection()) {
+      try (PreparedStatement statement = connection.prepareStatement("delete from items")) {
+        statement.execute();
+      }
+      try (PreparedStatement statement = connection.prepareStatement("delete from persons")) {
+        statement.execute();
+      }
+      try (PreparedStatement statement = connection.prepareStatement("create index persons_id on persons (id)")) {
+        statement.execute();
+      }
+      try (PreparedStatement statement = connection.prepareStatement("create index items_owner on items (owner)")) {
+        statement.execute();
+      }
+      try (PreparedStatement statement = connection.prepareStatement("insert into persons (id, name) values (?, ?)")) {
+        for (int i = 1; i <= persons; i++) {
+          statement.setInt(1, i);
+          statement.setString(2, "person" + i);
+          statement.addBatch();
+        }
+        statement.executeBatch();
+      }
+      try (PreparedStatement statement = connection.prepareStatement("insert into items (id, owner, name) values (?, ?, ?)")) {
+        for (int i = 1; i <= persons * ITEMS_PER_PERSON; i++) {
+          statement.setInt(1, i);
+          statement.setInt(2, (i - 1) / ITEMS_PER_PERSON + 1);
+          statement.setString(3, "item" + i);
+          statement.addBatch();
+        }
+        statement.executeBatch();
+      }
+    }
+  }
+
+  @Benchmark
+  public List<Person> orderedCollection() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      return sqlSession.getMapper(Mapper.class).getPersons();
+    }
+  }
+
+  @Benchmark
+  public List<Person> unorderedCollection() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      return sqlSession.getMapper(Mapper.class).getPersonsWithItemsOrdered();
+    }
+  }
+
+  @Benchmark
+  public List<PersonItemPair> associations() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      return sqlSession.getMapper(Mapper.class).getPersonItemPairs();
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(NestedResultMapBenchmark.class.getSimpleName()).build()).run();
+  }
+
+}
@@ -0,0 +1,132 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.parallel_row_mapping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ParallelRowMappingTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+  private static ForkJoinPool pool;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/parallel_row_mapping/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    pool = new ForkJoinPool(4);
+    sqlSessionFactory.getConfiguration().setRowMappingPool(pool);
+
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/parallel_row_mapping/CreateDB.sql");
+  }
+
+  @AfterAll
+  static void tearDown() {
+    pool.shutdown();
+  }
+
+  @Test
+  void shouldMapRowsInOrder() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Item> items = sqlSession.getMapper(Mapper.class).getItems();
+      assertEquals(5000, items.size());
+      for (int i = 0; i < items.size(); i++) {
+        assertEquals(i + 1, items.get(i).getId());
+        assertEquals("item" + (i + 1), items.get(i).getName());
+      }
+      assertTrue(items.stream().anyMatch(item -> item.getBuiltBy() != Thread.currentThread()));
+    }
+  }
+
+  @Test
+  void shouldApplyRowBounds() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Item> items = sqlSession.selectList(Mapper.class.getName() + ".getItems", null, new RowBounds(10, 2000));
+      assertEquals(2000, items.size());
+      assertEquals(11, items.get(0).getId());
+      assertEquals(2010, items.get(1999).getId());
+    }
+  }
+
+  @Test
+  void shouldCallResultHandlerInOrderOnCallingThreadUntilStopped() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Thread caller = Thread.currentThread();
+      List<Item> items = new ArrayList<>();
+      sqlSession.getMapper(Mapper.class).getItems(context -> {
+        assertSame(caller, Thread.currentThread());
+        items.add(context.getResultObject());
+        if (context.getResultCount() == 1500) {
+          context.stop();
+        }
+      });
+      assertEquals(1500, items.size());
+      for (int i = 0; i < items.size(); i++) {
+        assertEquals(i + 1, items.get(i).getId());
+      }
+    }
+  }
+
+  @Test
+  void shouldReturnEveryRowThroughCursor() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession();
+        Cursor<Item> cursor = sqlSession.selectCursor(Mapper.class.getName() + ".getItems")) {
+      int count = 0;
+      for (Item item : cursor) {
+        assertEquals(++count, item.getId());
+      }
+      assertEquals(5000, count);
+    }
+  }
+
+  @Test
+  void shouldThrowBuildFailureAfterHandlingPrecedingRows() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Item> items = new ArrayList<>();
+      try {
+        sqlSession.select(Mapper.class.getName() + ".getItemsWithBrokenName", 3000,
+            context -> items.add((Item) context.getResultObject()));
+        fail("Should have failed to set the broken name");
+      } catch (PersistenceException e) {
+        assertTrue(e.getMessage().contains("broken name of item 3000"));
+      }
+      assertEquals(2999, items.size());
+      assertEquals(2999, items.get(2998).getId());
+    }
+  }
+
+}
@@ -0,0 +1,106 @@
+/**
+ *    Copyright 2009-2026 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.result_ordered;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.ResultOrderViolationBehavior;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionException;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ResultOrderedTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/result_ordered/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/result_ordered/CreateDB.sql");
+  }
+
+  @AfterEach
+  void resetBehavior() {
+    sqlSessionFactory.getConfiguration().setResultOrderViolationBehavior(ResultOrderViolationBehavior.NONE);
+  }
+
+  @Test
+  void shouldAcceptRowsInDescendingIdOrder() {
+    sqlSessionFactory.getConfiguration().setResultOrderViolationBehavior(ResultOrderViolationBehavior.FAILING);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).getUsersOrderedById();
+      assertEquals(4, users.size());
+      assertEquals(Integer.valueOf(4), users.get(0).getId());
+      assertEquals(2, users.get(0).getGroups().size());
+      assertEquals(Integer.valueOf(1), users.get(3).getId());
+      assertEquals(3, users.get(3).getRoles().size());
+    }
+  }
+
+  @Test
+  void shouldReturnUsersAgainWhenRowsAreNotOrderedAndNotChecked() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = new ArrayList<>();
+      sqlSession.getMapper(Mapper.class).getUsersOrderedByGroup(context -> users.add(context.getResultObject()));
+      assertTrue(users.size() > 4);
+    }
+  }
+
+  @Test
+  void shouldFailResultHandlerWhenRowsAreNotOrderedById() {
+    sqlSessionFactory.getConfiguration().setResultOrderViolationBehavior(ResultOrderViolationBehavior.FAILING);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = new ArrayList<>();
+      PersistenceException e = assertThrows(PersistenceException.class,
+          () -> sqlSession.getMapper(Mapper.class).getUsersOrderedByGroup(context -> users.add(context.getResultObject())));
+      assertTrue(e.getCause() instanceof SqlSessionException);
+      assertEquals("Rows of resultOrdered statement 'org.apache.ibatis.submitted.result_ordered.Mapper.getUsersOrderedByGroup'"
+          + " are not ordered by the ids of result map 'org.apache.ibatis.submitted.result_ordered.Mapper.results'."
+          + " Ids [1] follow [4]", e.getCause().getMessage());
+      assertEquals(4, users.size());
+    }
+  }
+
+  @Test
+  void shouldFailCursorWhenRowsAreNotOrderedById() throws Exception {
+    sqlSessionFactory.getConfiguration().setResultOrderViolationBehavior(ResultOrderViolationBehavior.FAILING);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession();
+         Cursor<User> cursor = sqlSession.getMapper(Mapper.class).getUsersOrderedByGroup()) {
+      List<User> users = new ArrayList<>();
+      assertThrows(RuntimeException.class, () -> cursor.forEach(users::add));
+      assertEquals(3, users.size());
+    }
+  }
+
+}